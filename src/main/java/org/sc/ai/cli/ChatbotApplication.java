@@ -1,14 +1,68 @@
 package org.sc.ai.cli;
 
+import java.io.IOException;
+import java.util.List;
+
+import org.sc.ai.cli.daemon.DaemonClient;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 @SpringBootApplication(proxyBeanMethods = false)
 public class ChatbotApplication {
+    static final String COMMAND_PROFILES_ENABLED = "sc.command-profiles.enabled";
+    private static final String BASE_URL_OPTION = "--base-url";
 
-    public static void main(String[] args) {
-        int exitCode = SpringApplication.exit(SpringApplication.run(ChatbotApplication.class, args));
+    public static void main(String[] args) throws IOException {
+        // One-shot chats are served by a running daemon without booting a context here
+        var daemon = new DaemonClient(DaemonClient.defaultSocket());
+        args = daemon.inlineStdin(args, System.in);
+        var forwarded = daemon.forward(args, System.out, System.err);
+        if (forwarded.isPresent()) {
+            System.exit(forwarded.getAsInt());
+        }
+        var application = new SpringApplication(ChatbotApplication.class);
+        application.setAdditionalProfiles(commandProfiles(args));
+        int exitCode = SpringApplication.exit(application.run(args));
         System.exit(exitCode);
     }
 
+    /**
+     * Selects the profiles that trim the application context down to what the
+     * subcommand in {@code args} needs. {@code chat} gets the full context,
+     * {@code rag} skips the chat model and chat memory, and everything else
+     * ({@code config}, {@code help}, {@code --help}, {@code --version} and the
+     * {@code daemon} client commands) gets a lazily initialised context without any
+     * model or datasource. The daemon itself ({@code daemon start --foreground})
+     * serves chat, so it gets the full context.
+     *
+     * <p>The subcommand names are the ones registered on
+     * {@link org.sc.ai.cli.command.TopCommand}. Set the system property
+     * {@code sc.command-profiles.enabled=false} to always boot the full context.
+     *
+     * @param args the command line arguments
+     * @return the profiles to activate
+     */
+    static String[] commandProfiles(String... args) {
+        if (!Boolean.parseBoolean(System.getProperty(COMMAND_PROFILES_ENABLED, "true"))) {
+            return new String[0];
+        }
+        for (int i = 0; i < args.length; i++) {
+            var arg = args[i];
+            if (BASE_URL_OPTION.equals(arg)) {
+                i++; // skip the option value
+                continue;
+            }
+            if (arg.startsWith("-")) {
+                continue;
+            }
+            return switch (arg) {
+                case "chat" -> new String[0];
+                case "daemon" -> List.of(args).contains("--foreground") ? new String[0] : new String[] { "cli-minimal" };
+                case "rag" -> new String[] { "cli-rag" };
+                default -> new String[] { "cli-minimal" };
+            };
+        }
+        return new String[] { "cli-minimal" };
+    }
+
 }
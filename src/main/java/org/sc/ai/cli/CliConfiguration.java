@@ -5,7 +5,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.function.Supplier;
 
-import org.jline.builtins.Completers;
 import org.jline.console.CommandRegistry;
 import org.jline.console.SystemRegistry;
 import org.jline.console.impl.SystemRegistryImpl;
@@ -19,12 +18,16 @@ import org.jline.terminal.Terminal;
 import org.jline.terminal.TerminalBuilder;
 import org.sc.ai.cli.chat.ChatSubCommand;
 import org.sc.ai.cli.chat.StreamingContext;
+import org.sc.ai.cli.chat.multimodal.AttachmentCompletionMatcher;
 import org.sc.ai.cli.chat.multimodal.FilePathCompleter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.PathResource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import picocli.CommandLine;
 import picocli.CommandLine.IFactory;
 import picocli.shell.jline3.PicocliCommands;
@@ -65,21 +68,37 @@ public class CliConfiguration {
         return terminal;
     }
 
+    /**
+     * In-process registry for the CLI's own meters. These are displayed with
+     * {@code /show metrics} in the REPL.
+     * 
+     * @return a {@link MeterRegistry} instance
+     */
+    @Bean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    /**
+     * Created when {@code sc chat} goes interactive, which also starts indexing the
+     * working directory for {@code @} completion.
+     */
     @Bean
-    LineReader lineReader(Terminal terminal, SystemRegistry systemRegistry,
+    @Lazy
+    LineReader lineReader(Terminal terminal, SystemRegistry systemRegistry, FilePathCompleter filePathCompleter,
             @Value("${spring.application.name}") String appName) throws IOException {
         Path historyFile = Paths.get(configDirectory.getURI()).resolve("history");
         
-        // Combine system registry completer with file path completer
+        // Combine system registry completer with the indexed @ file path completer
         Completer combinedCompleter = new AggregateCompleter(
             systemRegistry.completer(),
-            new FilePathCompleter(), 
-            new Completers.FileNameCompleter()
+            filePathCompleter
         );
         
         return LineReaderBuilder.builder()
                 .terminal(terminal)
                 .completer(combinedCompleter)
+                .completionMatcher(new AttachmentCompletionMatcher())
                 .parser(parser)
                 .option(LineReader.Option.AUTO_FRESH_LINE, true)
                 .option(LineReader.Option.HISTORY_BEEP, false)
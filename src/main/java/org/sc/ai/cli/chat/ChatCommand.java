@@ -6,6 +6,7 @@ import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import org.jline.console.SystemRegistry;
@@ -18,7 +19,13 @@ import org.jline.reader.UserInterruptException;
 import org.jline.reader.Widget;
 import org.jline.widget.TailTipWidgets;
 import org.jline.widget.Widgets;
+import org.sc.ai.cli.chat.memory.CachingChatMemoryRepository;
 import org.sc.ai.cli.chat.multimodal.PromptParser;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import org.sc.ai.cli.command.ChatbotVersionProvider;
 import org.sc.ai.cli.command.ProviderMixin;
@@ -34,6 +41,8 @@ import picocli.CommandLine.Parameters;
 import picocli.CommandLine.Spec;
 
 @Component
+// One instance per command line, so the daemon never replays a previous client's message or model
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Command(name = "chat", description = "Chat with a bot", mixinStandardHelpOptions = true, versionProvider = ChatbotVersionProvider.class, subcommands = CommandLine.HelpCommand.class)
 public class ChatCommand implements Runnable {
     private static final String PROMPT = "sc> ";
@@ -42,7 +51,10 @@ public class ChatCommand implements Runnable {
     private final LineReader reader;
     private final SystemRegistry systemRegistry;
     private final StreamingContext streamingContext;
+    private final ObjectProvider<CachingChatMemoryRepository> chatMemoryRepository;
     private final PromptParser promptParser = new PromptParser();
+    @Value("${sc.chat.retrieval.speculative.enabled:true}")
+    private boolean speculativeRetrieval;
     @Parameters(arity = "0..1", paramLabel = "MESSAGE", description = "Message to send")
     private String message;
     @Option(names = { "-m", "--model" }, paramLabel = "MODEL", description = "Specify LLM to use")
@@ -108,12 +120,18 @@ public class ChatCommand implements Runnable {
         }
     }
 
-    public ChatCommand(ChatService chatService, LineReader reader,
-            SystemRegistry systemRegistry, StreamingContext streamingContext) {
+    /**
+     * The chat service and terminal beans are injected lazily: picocli creates every
+     * subcommand up front, and they should only be built when {@code chat} actually runs.
+     */
+    public ChatCommand(@Lazy ChatService chatService, @Lazy LineReader reader,
+            @Lazy SystemRegistry systemRegistry, StreamingContext streamingContext,
+            ObjectProvider<CachingChatMemoryRepository> chatMemoryRepository) {
         this.chatService = chatService;
         this.reader = reader;
         this.systemRegistry = systemRegistry;
         this.streamingContext = streamingContext;
+        this.chatMemoryRepository = chatMemoryRepository;
     }
 
     @Override
@@ -145,6 +163,7 @@ public class ChatCommand implements Runnable {
         while (true) {
             try {
                 if (!processUserInput(conversationId)) {
+                    flushChatMemory();
                     return;
                 }
                 reader.getTerminal().flush();
@@ -153,6 +172,7 @@ public class ChatCommand implements Runnable {
                 reader.getTerminal().flush();
             } catch (EndOfFileException _) {
                 // Ctrl-D pressed, exit gracefully
+                flushChatMemory();
                 return;
             } catch (Exception e) {
                 systemRegistry.trace(e);
@@ -160,6 +180,10 @@ public class ChatCommand implements Runnable {
         }
     }
 
+    private void flushChatMemory() {
+        chatMemoryRepository.ifAvailable(CachingChatMemoryRepository::flush);
+    }
+
     private void setupWidgetsAndKeyBindings() {
         final String INSERT_DATE = "insert-date";
         Widget insertDateWidget = this::insertDateWidget;
@@ -176,6 +200,28 @@ public class ChatCommand implements Runnable {
         } else {
             keyMap.bind(new Reference(Widgets.TAILTIP_TOGGLE), KeyMap.ctrl('S'));
         }
+        if (speculativeRetrieval) {
+            hookSpeculativeRetrieval();
+        }
+    }
+
+    /**
+     * Wraps the widgets that edit the buffer so that every edit hands the current text to
+     * {@link ChatService#speculate(String)}, which searches for it once typing pauses.
+     */
+    private void hookSpeculativeRetrieval() {
+        var widgets = reader.getWidgets();
+        for (var name : List.of(LineReader.SELF_INSERT, LineReader.BACKWARD_DELETE_CHAR, LineReader.DELETE_CHAR,
+                LineReader.BACKWARD_KILL_WORD, LineReader.KILL_WORD, LineReader.KILL_LINE, LineReader.YANK)) {
+            var widget = widgets.get(name);
+            if (widget != null) {
+                widgets.put(name, () -> {
+                    boolean applied = widget.apply();
+                    chatService.speculate(reader.getBuffer().toString());
+                    return applied;
+                });
+            }
+        }
     }
 
     boolean insertDateWidget() {
@@ -3,10 +3,16 @@ package org.sc.ai.cli.chat;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+import org.sc.ai.cli.chat.multimodal.DocumentAttachmentIndex;
+import org.sc.ai.cli.chat.multimodal.ImagePreprocessor;
 import org.sc.ai.cli.chat.multimodal.ParsedPrompt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +24,7 @@ import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.content.Media;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Value;
@@ -25,9 +32,8 @@ import org.springframework.core.io.PathResource;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
-import org.springframework.util.MimeType;
-import org.springframework.util.MimeTypeUtils;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import reactor.core.publisher.Flux;
 
 /**
@@ -37,41 +43,63 @@ import reactor.core.publisher.Flux;
 public class ChatService {
     private final ChatClient chatClient;
     private final VectorStore vectorStore;
+    private final SpeculativeVectorStore retrievalStore;
+    private static final SearchRequest SEARCH_REQUEST = SearchRequest.builder().build();
     private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
+    private static final List<String> SUPPORTED_IMAGE_EXTENSIONS = List.of(".jpg", ".jpeg", ".png", ".gif", ".webp",
+            ".bmp");
+    private final ImagePreprocessor imagePreprocessor;
+    private final DocumentAttachmentIndex documentAttachmentIndex;
     @Value("${sc.vector.simple.store:}")
     private PathResource vectorStoreStorageDirectory;
+    @Value("${spring.ai.ollama.chat.options.model:}")
+    private String defaultModel;
+    @Value("${sc.chat.retrieval.speculative.idle-pause:300ms}")
+    private Duration speculationIdlePause = Duration.ofMillis(300);
+    @Nullable
+    private List<String> loadedVectorFiles;
 
-    public ChatService(ChatClient.Builder chatClientBuilder, ChatMemory chatMemory, EmbeddingModel embeddingModel) {
+    public ChatService(ChatClient.Builder chatClientBuilder, ChatMemory chatMemory, EmbeddingModel embeddingModel,
+            ImagePreprocessor imagePreprocessor, DocumentAttachmentIndex documentAttachmentIndex,
+            MeterRegistry meterRegistry, @Value("${sc.chat.context.token-budget:1500}") int contextTokenBudget,
+            @Value("${sc.chat.context.num-ctx-buckets:2048,4096,8192,16384,32768}") int[] numCtxBuckets) {
+        this.imagePreprocessor = imagePreprocessor;
+        this.documentAttachmentIndex = documentAttachmentIndex;
         this.vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+        this.retrievalStore = new SpeculativeVectorStore(vectorStore, SEARCH_REQUEST, meterRegistry,
+                this::loadVectorStore);
         this.chatClient = chatClientBuilder
-                .defaultAdvisors(advisors -> advisors.advisors(
+                .defaultAdvisors(advisors -> advisors.advisors(new ParallelContextAdvisor(
                         MessageChatMemoryAdvisor.builder(chatMemory).scheduler(BaseAdvisor.DEFAULT_SCHEDULER).build(),
-                        QuestionAnswerAdvisor.builder(vectorStore).build()))
+                        QuestionAnswerAdvisor
+                                .builder(new ContextPackingVectorStore(retrievalStore, contextTokenBudget,
+                                        meterRegistry))
+                                .searchRequest(SEARCH_REQUEST)
+                                .build(),
+                        meterRegistry), new DocumentExcerptAdvisor(), new ContextWindowAdvisor(numCtxBuckets)))
                 .build();
     }
 
-    public Flux<String> sendAndStreamMessage(String message, @Nullable String model, String conversationId) {
-        Assert.hasText(message, "Message must not be empty");
-        logger.info("Sending message: \"{}\" using model: {}", message, model);
-        if (vectorStore instanceof SimpleVectorStore simpleVectorStore) {
-            try (var files = Files.walk(vectorStoreStorageDirectory.getFile().toPath(), 1)
-                    .filter(Files::isRegularFile)) {
-                files.forEach(path -> simpleVectorStore.load(new PathResource(path)));
-            } catch (IOException e) {
-                logger.error("Failed to load vector store files", e);
-            } 
-        }
-        var spec = chatClient.prompt().user(message)
-                .advisors(advisors -> advisors.param(ChatMemory.CONVERSATION_ID,
-                        Optional.ofNullable(conversationId).orElse(UUID.randomUUID().toString())));
-        if (model != null && !model.isBlank()) {
-            var options = OllamaOptions.builder()
-                    .model(model)
-                    .build();
-            spec.options(options);
+    /**
+     * Starts retrieving context for a prompt that is still being typed, once it has been
+     * left unchanged for a moment. If the prompt is sent as it is, or nearly so, the turn
+     * reuses those results instead of searching after Enter.
+     * 
+     * @param text what the user has typed so far
+     */
+    public void speculate(String text) {
+        // Commands are not sent, and attachments change the text that is searched for
+        if (text.startsWith("/") || text.contains("@")) {
+            retrievalStore.speculate("", speculationIdlePause);
+            return;
         }
+        retrievalStore.speculate(text, speculationIdlePause);
+    }
 
-        return spec.stream().content();
+    public Flux<String> sendAndStreamMessage(String message, @Nullable String model, String conversationId) {
+        Assert.hasText(message, "Message must not be empty");
+        return send(message, new Media[0], "", model,
+                Optional.ofNullable(conversationId).orElse(UUID.randomUUID().toString()));
     }
 
     /**
@@ -83,36 +111,52 @@ public class ChatService {
      * @return a Flux of response content
      */
     public Flux<String> sendAndStreamMessage(ParsedPrompt parsedPrompt, @Nullable String model, @Nullable String conversationId) {
-        if (!parsedPrompt.hasFiles()) {
-            // No files, use the simple text-only method
-            return sendAndStreamMessage(parsedPrompt.textContent(), model, conversationId);
+        var conversation = Optional.ofNullable(conversationId).orElse(UUID.randomUUID().toString());
+        var documents = parsedPrompt.filePaths().stream()
+                .filter(DocumentAttachmentIndex::isSupported)
+                .toList();
+        // Documents are not sent whole; only their chunks relevant to this turn are
+        var excerpts = documentAttachmentIndex.excerpts(conversation, parsedPrompt.textContent(), documents);
+        var text = parsedPrompt.textContent().isBlank() && !documents.isEmpty()
+                ? "Attached " + documents.stream().map(path -> path.getFileName().toString())
+                        .collect(Collectors.joining(", "))
+                : parsedPrompt.textContent();
+        var images = parsedPrompt.filePaths().stream()
+                .filter(path -> !DocumentAttachmentIndex.isSupported(path))
+                .filter(this::isSupportedImage)
+                .toList();
+        if (images.isEmpty()) {
+            Assert.hasText(text, "Message must not be empty");
+            return send(text, new Media[0], excerpts, model, conversation);
         }
 
-        // Handle multimodal prompt with files
-        logger.info("Processing multimodal prompt with {} file(s)", parsedPrompt.fileCount());
-        
-        if (vectorStore instanceof SimpleVectorStore simpleVectorStore) {
-            if (!vectorStoreStorageDirectory.exists()) {
-                logger.error("Vector store storage directory does not exist: {}", vectorStoreStorageDirectory);
-            } else {
-                try (var files = Files.walk(vectorStoreStorageDirectory.getFile().toPath(), 1)
-                        .filter(Files::isRegularFile)) {
-                    files.forEach(path -> simpleVectorStore.load(new PathResource(path)));
-                } catch (IOException e) {
-                    logger.error("Failed to load vector store files", e);
-                } 
-            }
-        }
+        // Handle multimodal prompt with images
+        logger.info("Processing multimodal prompt with {} image(s)", images.size());
 
-        // Convert file paths to Media objects
-        var mediaObjects = parsedPrompt.filePaths().stream()
-                .map(this::createMediaFromPath)
+        // Convert file paths to Media objects, downsized for the model in parallel
+        var mediaObjects = imagePreprocessor.prepare(images, model != null && !model.isBlank() ? model : defaultModel)
+                .stream()
                 .filter(Objects::nonNull)
                 .toArray(Media[]::new);
+        return send(text, mediaObjects, excerpts, model, conversation);
+    }
 
-         var spec = chatClient.prompt().user(u -> u.text(parsedPrompt.textContent()).media(mediaObjects))
-                .advisors(advisors -> advisors.param(ChatMemory.CONVERSATION_ID,
-                        Optional.ofNullable(conversationId).orElse(UUID.randomUUID().toString())));
+    /**
+     * @param excerpts passed to {@link DocumentExcerptAdvisor}, which adds them to the
+     *        prompt but not to the conversation's memory
+     */
+    private Flux<String> send(String text, Media[] media, String excerpts, @Nullable String model,
+            String conversationId) {
+        logger.info("Sending message: \"{}\" using model: {}", text, model);
+        loadVectorStore();
+        var spec = media.length == 0 ? chatClient.prompt().user(text)
+                : chatClient.prompt().user(u -> u.text(text).media(media));
+        spec.advisors(advisors -> {
+            advisors.param(ChatMemory.CONVERSATION_ID, conversationId);
+            if (!excerpts.isEmpty()) {
+                advisors.param(DocumentExcerptAdvisor.EXCERPTS, excerpts);
+            }
+        });
         if (model != null && !model.isBlank()) {
             var options = OllamaOptions.builder()
                     .model(model)
@@ -123,42 +167,55 @@ public class ChatService {
     }
     
     /**
-     * Creates a Media object from a file path with appropriate MIME type detection.
+     * Loads the vector store files, unless none was added, removed or written since they
+     * were last loaded.
+     */
+    private synchronized void loadVectorStore() {
+        if (!(vectorStore instanceof SimpleVectorStore simpleVectorStore)) {
+            return;
+        }
+        if (!vectorStoreStorageDirectory.exists()) {
+            logger.error("Vector store storage directory does not exist: {}", vectorStoreStorageDirectory);
+            return;
+        }
+        List<Path> paths;
+        List<String> fingerprint;
+        try (var files = Files.walk(vectorStoreStorageDirectory.getFile().toPath(), 1)
+                .filter(Files::isRegularFile)) {
+            paths = files.sorted().toList();
+            fingerprint = new ArrayList<>(paths.size());
+            for (var path : paths) {
+                fingerprint.add(path + ":" + Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis());
+            }
+        } catch (IOException e) {
+            logger.error("Failed to load vector store files", e);
+            return;
+        }
+        if (fingerprint.equals(loadedVectorFiles)) {
+            return;
+        }
+        paths.forEach(path -> simpleVectorStore.load(new PathResource(path)));
+        loadedVectorFiles = fingerprint;
+        retrievalStore.invalidate();
+    }
+
+    /**
+     * Checks that a file exists and has a supported image extension.
      * 
      * @param filePath the path to the media file
-     * @return Media object or null if the file cannot be processed
+     * @return whether the file can be attached
      */
-    private Media createMediaFromPath(Path filePath) {
-        try {
-            if (!Files.exists(filePath) || !Files.isRegularFile(filePath)) {
-                logger.warn("File does not exist or is not a regular file: {}", filePath);
-                return null;
-            }
-            
-            String fileName = filePath.getFileName().toString().toLowerCase();
-            MimeType mimeType;
-            
-            if (fileName.endsWith(".jpg") || fileName.endsWith(".jpeg")) {
-                mimeType = MimeTypeUtils.IMAGE_JPEG;
-            } else if (fileName.endsWith(".png")) {
-                mimeType = MimeTypeUtils.IMAGE_PNG;
-            } else if (fileName.endsWith(".gif")) {
-                mimeType = MimeTypeUtils.IMAGE_GIF;
-            } else if (fileName.endsWith(".webp")) {
-                mimeType = MimeType.valueOf("image/webp");
-            } else if (fileName.endsWith(".bmp")) {
-                mimeType = MimeType.valueOf("image/bmp");
-            } else {
-                logger.warn("Unsupported image format for file: {}", filePath);
-                return null;
-            }
-            
-            return new Media(mimeType, new PathResource(filePath));
-            
-        } catch (Exception e) {
-            logger.error("Failed to create media object from path: {}", filePath, e);
-            return null;
+    private boolean isSupportedImage(Path filePath) {
+        if (!Files.exists(filePath) || !Files.isRegularFile(filePath)) {
+            logger.warn("File does not exist or is not a regular file: {}", filePath);
+            return false;
+        }
+        String fileName = filePath.getFileName().toString().toLowerCase();
+        if (SUPPORTED_IMAGE_EXTENSIONS.stream().noneMatch(fileName::endsWith)) {
+            logger.warn("Unsupported image format for file: {}", filePath);
+            return false;
         }
+        return true;
     }
 
 }
@@ -1,13 +1,21 @@
 package org.sc.ai.cli.chat;
 
 import java.io.PrintWriter;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
 
 import org.jline.terminal.Terminal;
 import org.jline.utils.InfoCmp.Capability;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
 
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Parameters;
 import picocli.CommandLine.ParentCommand;
 import picocli.CommandLine.Spec;
 
@@ -21,12 +29,16 @@ import picocli.CommandLine.Spec;
 public class ChatSubCommand implements Runnable {
         final PrintWriter out;
         final Terminal terminal;
+        final MeterRegistry meterRegistry;
+        final ModelResidency modelResidency;
         @Spec
         private CommandLine.Model.CommandSpec spec;
 
-        public ChatSubCommand(Terminal terminal) {
+        public ChatSubCommand(Terminal terminal, MeterRegistry meterRegistry, ModelResidency modelResidency) {
                 this.terminal = terminal;
                 this.out = terminal.writer();
+                this.meterRegistry = meterRegistry;
+                this.modelResidency = modelResidency;
         }
 
         @Override
@@ -47,15 +59,89 @@ public class ChatSubCommand implements Runnable {
                 }
         }
 
-        @Command(name = "", mixinStandardHelpOptions = true, description = { "Show model information" })
+        @Command(name = "", mixinStandardHelpOptions = true, description = { "Show model information or metrics" })
         public static class ShowCommand implements Runnable {
+                private static final double GIGABYTE = 1024 * 1024 * 1024;
 
                 @ParentCommand
                 ChatSubCommand parent;
+                @Parameters(arity = "0..1", paramLabel = "TOPIC", defaultValue = "models", description = {
+                                "models (default): the models Ollama holds in memory",
+                                "metrics: the CLI's own meters" })
+                String topic = "models";
 
                 @Override
                 public void run() {
-                        parent.out.println("/show command executed.");
+                        switch (topic) {
+                                case "metrics" -> showMetrics();
+                                case "models" -> showModels();
+                                default -> parent.out.println("Unknown topic '" + topic + "', use models or metrics.");
+                        }
+                }
+
+                private void showMetrics() {
+                        parent.meterRegistry.getMeters().stream()
+                                        .sorted(Comparator.comparing((Meter meter) -> meter.getId().getName())
+                                                        .thenComparing(meter -> meter.getId().getTags().toString()))
+                                        .forEach(meter -> {
+                                                var line = new StringBuilder(meter.getId().getName());
+                                                meter.getId().getTags().forEach(tag -> line.append(' ')
+                                                                .append(tag.getKey()).append('=').append(tag.getValue()));
+                                                meter.measure().forEach(measurement -> line.append(' ')
+                                                                .append(measurement.getStatistic().getTagValueRepresentation())
+                                                                .append('=')
+                                                                .append(String.format("%.2f", measurement.getValue())));
+                                                parent.out.println(line);
+                                        });
+                }
+
+                private void showModels() {
+                        List<ModelResidency.ResidentModel> models;
+                        try {
+                                models = parent.modelResidency.residentModels();
+                        } catch (RestClientException e) {
+                                parent.out.println("Could not reach Ollama: " + e.getMessage());
+                                return;
+                        }
+                        if (models.isEmpty()) {
+                                parent.out.println("No models are loaded.");
+                                return;
+                        }
+                        parent.out.println(String.format("%-32s %10s %-16s %s", "NAME", "SIZE", "PROCESSOR", "UNLOADS"));
+                        for (var model : models) {
+                                parent.out.println(String.format("%-32s %10s %-16s %s", model.name(),
+                                                String.format("%.1f GB", model.size() / GIGABYTE), processor(model),
+                                                unloads(model.expiresAt())));
+                        }
+                }
+
+                private static String processor(ModelResidency.ResidentModel model) {
+                        if (model.size() <= 0 || model.sizeVram() <= 0) {
+                                return "100% CPU";
+                        }
+                        if (model.sizeVram() >= model.size()) {
+                                return "100% GPU";
+                        }
+                        long gpu = Math.round(100.0 * model.sizeVram() / model.size());
+                        return (100 - gpu) + "%/" + gpu + "% CPU/GPU";
+                }
+
+                static String unloads(String expiresAt) {
+                        Duration left;
+                        try {
+                                left = Duration.between(OffsetDateTime.now(), OffsetDateTime.parse(expiresAt));
+                        } catch (RuntimeException e) {
+                                return "unknown";
+                        }
+                        if (left.toDays() > 365) {
+                                return "never";
+                        }
+                        if (left.isNegative() || left.isZero()) {
+                                return "now";
+                        }
+                        return left.toHours() > 0 ? "in " + left.toHours() + "h " + left.toMinutesPart() + "m"
+                                        : left.toMinutes() > 0 ? "in " + left.toMinutes() + "m"
+                                                        : "in " + left.toSeconds() + "s";
                 }
         }
 
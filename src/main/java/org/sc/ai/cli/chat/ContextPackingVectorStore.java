@@ -0,0 +1,282 @@
+package org.sc.ai.cli.chat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.sc.ai.cli.rag.RagService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.lang.Nullable;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Packs search results into as few prompt tokens as they need before they are pasted into
+ * the prompt.
+ *
+ * <p>Results are taken in rank order. A result whose SimHash is within
+ * {@value #NEAR_DUPLICATE_BITS} bits of one already taken, such as the same chunk ingested
+ * twice, is dropped. Results from the same source that follow each other, by
+ * {@code chunk_index} or because one ends with what the next starts with, are merged into
+ * one, keeping the overlap once. Results are then kept in rank order while they fit
+ * {@code tokenBudget}.
+ *
+ * <p>Each search logs the tokens it saved and records them in
+ * {@code sc.chat.context.tokens.saved}.
+ *
+ * @author Julius Krah
+ */
+final class ContextPackingVectorStore implements VectorStore {
+    private static final Logger logger = LoggerFactory.getLogger(ContextPackingVectorStore.class);
+    static final int NEAR_DUPLICATE_BITS = 3;
+    private static final int MIN_OVERLAP = 32;
+    // Stores indexed before every chunk had a source may only have the PDF reader's file name
+    private static final List<String> SOURCE_KEYS = List.of(RagService.SOURCE_METADATA, "file_name");
+    private static final String CHUNK_INDEX = RagService.CHUNK_INDEX_METADATA;
+    private static final String LAST_CHUNK_INDEX = "last_chunk_index";
+    private final VectorStore delegate;
+    private final int tokenBudget;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final DistributionSummary tokensSaved;
+
+    /**
+     * @param delegate the store searched
+     * @param tokenBudget the most tokens of results kept
+     * @param meterRegistry where saved tokens are recorded
+     */
+    ContextPackingVectorStore(VectorStore delegate, int tokenBudget, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.tokenBudget = tokenBudget;
+        this.tokensSaved = DistributionSummary.builder("sc.chat.context.tokens.saved")
+                .description("Prompt tokens saved per turn by merging, deduplicating and budgeting retrieved chunks")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Nullable
+    public List<Document> similaritySearch(SearchRequest request) {
+        var results = delegate.similaritySearch(request);
+        if (results == null || results.isEmpty()) {
+            return results;
+        }
+        int before = results.stream().mapToInt(document -> tokens(document.getText())).sum();
+        var packed = pack(results);
+        int after = packed.stream().mapToInt(document -> tokens(document.getText())).sum();
+        tokensSaved.record(before - after);
+        logger.info("Packed {} retrieved chunk(s) into {}: {} -> {} tokens, saved {}", results.size(), packed.size(),
+                before, after, before - after);
+        return packed;
+    }
+
+    List<Document> pack(List<Document> results) {
+        return budget(merge(deduplicate(results)));
+    }
+
+    private List<Document> deduplicate(List<Document> results) {
+        var kept = new ArrayList<Document>();
+        var hashes = new ArrayList<Long>();
+        for (var document : results) {
+            if (document.getText() == null || document.getText().isBlank()) {
+                continue;
+            }
+            long hash = simHash(document.getText());
+            if (hashes.stream().anyMatch(other -> Long.bitCount(hash ^ other) <= NEAR_DUPLICATE_BITS)) {
+                logger.debug("Dropping near-duplicate chunk {}", document.getId());
+                continue;
+            }
+            hashes.add(hash);
+            kept.add(document);
+        }
+        return kept;
+    }
+
+    /**
+     * Merges each result into the first result from the same source it follows or precedes,
+     * until no more merge.
+     */
+    private List<Document> merge(List<Document> results) {
+        var merged = new ArrayList<Document>(results);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < merged.size() && !changed; i++) {
+                for (int j = i + 1; j < merged.size() && !changed; j++) {
+                    var joined = join(merged.get(i), merged.get(j));
+                    if (joined != null) {
+                        // The merged chunk takes the better rank
+                        merged.set(i, joined);
+                        merged.remove(j);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * @return {@code a} and {@code b} as one document in source order, or {@code null} if
+     *         they are not adjacent parts of the same source
+     */
+    @Nullable
+    private static Document join(Document a, Document b) {
+        var source = source(a);
+        if (source == null || !source.equals(source(b))) {
+            return null;
+        }
+        var first = a;
+        var second = b;
+        boolean indexed = a.getMetadata().get(CHUNK_INDEX) instanceof Number
+                && b.getMetadata().get(CHUNK_INDEX) instanceof Number;
+        if (indexed) {
+            if (firstIndex(a) == lastIndex(b) + 1) {
+                first = b;
+                second = a;
+            } else if (firstIndex(b) != lastIndex(a) + 1) {
+                return null;
+            }
+        } else if (overlap(a.getText(), b.getText()) < MIN_OVERLAP) {
+            if (overlap(b.getText(), a.getText()) < MIN_OVERLAP) {
+                return null;
+            }
+            first = b;
+            second = a;
+        }
+        int overlap = overlap(first.getText(), second.getText());
+        var text = overlap >= MIN_OVERLAP ? first.getText() + second.getText().substring(overlap)
+                : first.getText() + "\n" + second.getText();
+        var metadata = new HashMap<>(first.getMetadata());
+        if (indexed) {
+            metadata.put(LAST_CHUNK_INDEX, lastIndex(second));
+        }
+        var scores = Stream.of(a.getScore(), b.getScore()).filter(Objects::nonNull).toList();
+        return Document.builder()
+                .id(a.getId())
+                .text(text)
+                .metadata(metadata)
+                .score(scores.isEmpty() ? null : Collections.max(scores))
+                .build();
+    }
+
+    /**
+     * @return the length of the longest end of {@code first} that {@code second} starts with
+     */
+    private static int overlap(String first, String second) {
+        int longest = Math.min(first.length(), second.length());
+        for (int length = longest; length >= MIN_OVERLAP; length--) {
+            if (first.regionMatches(first.length() - length, second, 0, length)) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    private List<Document> budget(List<Document> results) {
+        var kept = new ArrayList<Document>();
+        int used = 0;
+        for (var document : results) {
+            int tokens = tokens(document.getText());
+            if (used + tokens > tokenBudget) {
+                logger.debug("Chunk {} of {} tokens does not fit the remaining {} tokens", document.getId(), tokens,
+                        tokenBudget - used);
+                continue;
+            }
+            used += tokens;
+            kept.add(document);
+        }
+        return kept;
+    }
+
+    private int tokens(@Nullable String text) {
+        return text == null || text.isEmpty() ? 0 : tokenCountEstimator.estimate(text);
+    }
+
+    @Nullable
+    private static String source(Document document) {
+        return SOURCE_KEYS.stream()
+                .map(document.getMetadata()::get)
+                .filter(Objects::nonNull)
+                .map(Object::toString)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static int firstIndex(Document document) {
+        return ((Number) document.getMetadata().get(CHUNK_INDEX)).intValue();
+    }
+
+    private static int lastIndex(Document document) {
+        return document.getMetadata().get(LAST_CHUNK_INDEX) instanceof Number last ? last.intValue()
+                : firstIndex(document);
+    }
+
+    /**
+     * 64-bit SimHash of the word 3-shingles of {@code text}, ignoring case and punctuation.
+     */
+    static long simHash(String text) {
+        var words = Stream.of(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toList();
+        var weights = new int[64];
+        int shingles = Math.max(1, words.size() - 2);
+        for (int i = 0; i < shingles; i++) {
+            long hash = fnv1a(String.join(" ", words.subList(i, Math.min(i + 3, words.size()))));
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += (hash >>> bit & 1) == 1 ? 1 : -1;
+            }
+        }
+        long simHash = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash;
+    }
+
+    private static long fnv1a(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // FNV spreads short inputs poorly over the high bits; finish with a mix
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+}
@@ -0,0 +1,131 @@
+package org.sc.ai.cli.chat;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.core.Ordered;
+import org.springframework.util.Assert;
+
+/**
+ * Sizes Ollama's context window ({@code num_ctx}) for each request from the prompt it is
+ * about to send.
+ *
+ * <p>Runs after memory and retrieval have added their messages, counts the tokens of the
+ * whole prompt, adds room for the response and picks the smallest of the configured
+ * buckets that fits. Ollama reloads a model whenever {@code num_ctx} changes, so the
+ * window only grows through the fixed buckets: a model keeps the largest bucket it has been
+ * given until the process exits. Prompts for other providers pass through unchanged.
+ *
+ * <p>The local tokenizer does not match every model's, so counts are padded by
+ * {@value #MARGIN_PERCENT}%. Counts of messages already seen, such as earlier turns replayed
+ * from memory, are cached.
+ *
+ * @author Julius Krah
+ */
+final class ContextWindowAdvisor implements BaseAdvisor {
+    private static final Logger logger = LoggerFactory.getLogger(ContextWindowAdvisor.class);
+    static final int MARGIN_PERCENT = 10;
+    // About what vision models spend on one image
+    static final int IMAGE_TOKENS = 768;
+    // Room for the response when num_predict is not set
+    static final int DEFAULT_RESPONSE_TOKENS = 1024;
+    private static final int CACHE_SIZE = 512;
+    private final int[] buckets;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final Map<String, Integer> counts = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private final Map<String, Integer> windows = new ConcurrentHashMap<>();
+
+    /**
+     * @param buckets the context window sizes that may be requested
+     */
+    ContextWindowAdvisor(int... buckets) {
+        Assert.isTrue(buckets.length > 0, "At least one num_ctx bucket is required");
+        this.buckets = Arrays.stream(buckets).sorted().distinct().toArray();
+    }
+
+    @Override
+    public ChatClientRequest before(ChatClientRequest chatClientRequest, AdvisorChain advisorChain) {
+        if (!(chatClientRequest.prompt().getOptions() instanceof OllamaOptions options)) {
+            return chatClientRequest;
+        }
+        int prompt = chatClientRequest.prompt().getInstructions().stream().mapToInt(this::tokens).sum();
+        int response = options.getNumPredict() != null && options.getNumPredict() > 0 ? options.getNumPredict()
+                : DEFAULT_RESPONSE_TOKENS;
+        int needed = (prompt + response) * (100 + MARGIN_PERCENT) / 100;
+        var model = Objects.requireNonNullElse(options.getModel(), "");
+        int window = windows.merge(model, bucket(needed), Math::max);
+        if (needed > window) {
+            logger.warn("Prompt needs about {} tokens, more than the largest num_ctx of {}; the model will truncate it",
+                    needed, window);
+        }
+        logger.debug("Prompt of {} tokens with {} for the response; num_ctx {} for {}", prompt, response, window,
+                model);
+        var sized = options.copy();
+        sized.setNumCtx(window);
+        return chatClientRequest.mutate()
+                .prompt(chatClientRequest.prompt().mutate().chatOptions(sized).build())
+                .build();
+    }
+
+    /**
+     * @return the smallest bucket of at least {@code tokens}, or the largest bucket
+     */
+    int bucket(int tokens) {
+        for (int bucket : buckets) {
+            if (bucket >= tokens) {
+                return bucket;
+            }
+        }
+        return buckets[buckets.length - 1];
+    }
+
+    private int tokens(Message message) {
+        var text = Objects.requireNonNullElse(message.getText(), "");
+        Integer count;
+        synchronized (counts) {
+            count = counts.get(text);
+        }
+        if (count == null) {
+            count = tokenCountEstimator.estimate(text);
+            synchronized (counts) {
+                counts.put(text, count);
+            }
+        }
+        return message instanceof UserMessage user ? count + user.getMedia().size() * IMAGE_TOKENS : count;
+    }
+
+    @Override
+    public ChatClientResponse after(ChatClientResponse chatClientResponse, AdvisorChain advisorChain) {
+        return chatClientResponse;
+    }
+
+    @Override
+    public int getOrder() {
+        // After memory and retrieval, before the model is called
+        return Ordered.LOWEST_PRECEDENCE - 1000;
+    }
+
+    @Override
+    public String getName() {
+        return "ContextWindowAdvisor";
+    }
+}
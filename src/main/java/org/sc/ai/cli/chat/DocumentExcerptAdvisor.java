@@ -0,0 +1,48 @@
+package org.sc.ai.cli.chat;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.core.Ordered;
+
+/**
+ * Adds excerpts of the documents attached to a conversation to the prompt sent to the
+ * model, without making them part of the conversation.
+ *
+ * <p>{@link ChatService} passes the excerpts as the {@value #EXCERPTS} advisor param. Like
+ * the context of {@code QuestionAnswerAdvisor}, they are appended to the user message after
+ * memory has stored the user's own words, so later turns neither replay nor summarise them.
+ *
+ * @author Julius Krah
+ */
+final class DocumentExcerptAdvisor implements BaseAdvisor {
+    static final String EXCERPTS = "sc_document_excerpts";
+
+    @Override
+    public ChatClientRequest before(ChatClientRequest chatClientRequest, AdvisorChain advisorChain) {
+        if (!(chatClientRequest.context().get(EXCERPTS) instanceof String excerpts) || excerpts.isBlank()) {
+            return chatClientRequest;
+        }
+        var text = chatClientRequest.prompt().getUserMessage().getText();
+        return chatClientRequest.mutate()
+                .prompt(chatClientRequest.prompt().augmentUserMessage(text + "\n\n" + excerpts))
+                .build();
+    }
+
+    @Override
+    public ChatClientResponse after(ChatClientResponse chatClientResponse, AdvisorChain advisorChain) {
+        return chatClientResponse;
+    }
+
+    @Override
+    public int getOrder() {
+        // After memory and retrieval, before ContextWindowAdvisor counts the prompt
+        return Ordered.LOWEST_PRECEDENCE - 2000;
+    }
+
+    @Override
+    public String getName() {
+        return "DocumentExcerptAdvisor";
+    }
+}
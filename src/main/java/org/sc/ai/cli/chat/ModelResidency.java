@@ -0,0 +1,131 @@
+package org.sc.ai.cli.chat;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Keeps the models {@code sc} uses loaded in Ollama, and reports which models Ollama holds
+ * in memory.
+ *
+ * <p>Ollama loads a model on its first request and unloads it once it has been idle for
+ * {@code keep_alive}. When this bean is created, which in {@code sc chat} and the daemon is
+ * while the rest of the context starts, it sends the chat model and the embedding model an
+ * empty request on a virtual thread. Loading then overlaps with startup instead of delaying
+ * the first reply. The chat model is the one given with {@code --model}, or else the
+ * configured one. Both requests carry the configured {@code keep_alive}, as do the chat
+ * and embedding requests that follow. A failed warm-up is only logged, and the first
+ * request loads the model as before.
+ *
+ * <p>Set {@code sc.ollama.warm-up.enabled=false} to skip the warm-up.
+ *
+ * @author Julius Krah
+ */
+@Component
+public class ModelResidency implements InitializingBean {
+    private static final Logger logger = LoggerFactory.getLogger(ModelResidency.class);
+    private static final String OLLAMA = "ollama";
+    private final RestClient restClient;
+    private final Environment environment;
+    private final String[] arguments;
+
+    /**
+     * A model loaded in Ollama, as reported by {@code /api/ps}.
+     *
+     * @param name the model name
+     * @param size the memory it takes, in bytes
+     * @param sizeVram the part of {@code size} held in GPU memory
+     * @param expiresAt when Ollama unloads it if it stays idle, as an ISO-8601 timestamp
+     */
+    public record ResidentModel(String name, long size, @JsonProperty("size_vram") long sizeVram,
+            @JsonProperty("expires_at") String expiresAt) {
+    }
+
+    private record RunningModels(List<ResidentModel> models) {
+    }
+
+    public ModelResidency(RestClient.Builder restClientBuilder, Environment environment,
+            ApplicationArguments arguments) {
+        this.restClient = restClientBuilder
+                .baseUrl(environment.getProperty("spring.ai.ollama.base-url", "http://localhost:11434"))
+                .build();
+        this.environment = environment;
+        this.arguments = arguments.getSourceArgs();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!environment.getProperty("sc.ollama.warm-up.enabled", Boolean.class, true)) {
+            return;
+        }
+        if (OLLAMA.equals(environment.getProperty("spring.ai.model.chat"))) {
+            var model = modelArgument(arguments);
+            warmUp("/api/generate", model != null ? model
+                    : environment.getProperty("spring.ai.ollama.chat.options.model"),
+                    environment.getProperty("spring.ai.ollama.chat.options.keep-alive"), Map.of());
+        }
+        if (OLLAMA.equals(environment.getProperty("spring.ai.model.embedding"))) {
+            warmUp("/api/embed", environment.getProperty("spring.ai.ollama.embedding.options.model"),
+                    environment.getProperty("spring.ai.ollama.embedding.options.keep-alive"),
+                    Map.of("input", List.of("warm-up")));
+        }
+    }
+
+    private void warmUp(String path, String model, String keepAlive, Map<String, Object> input) {
+        if (!StringUtils.hasText(model)) {
+            return;
+        }
+        var body = new LinkedHashMap<String, Object>(input);
+        body.put("model", model);
+        if (StringUtils.hasText(keepAlive)) {
+            body.put("keep_alive", keepAlive);
+        }
+        Thread.ofVirtual().name("warm-up-" + model).start(() -> {
+            long start = System.nanoTime();
+            try {
+                restClient.post().uri(path).body(body).retrieve().toBodilessEntity();
+                logger.debug("Loaded {} in {} ms", model, Duration.ofNanos(System.nanoTime() - start).toMillis());
+            } catch (RestClientException e) {
+                logger.debug("Could not warm up {}", model, e);
+            }
+        });
+    }
+
+    /**
+     * @return the value of {@code -m} or {@code --model} in {@code args}, if given
+     */
+    static String modelArgument(String... args) {
+        for (int i = 0; i < args.length; i++) {
+            var arg = args[i];
+            if (("-m".equals(arg) || "--model".equals(arg)) && i + 1 < args.length) {
+                return args[i + 1];
+            }
+            if (arg.startsWith("--model=")) {
+                return arg.substring("--model=".length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the models Ollama holds in memory
+     * @throws RestClientException if Ollama cannot be reached
+     */
+    public List<ResidentModel> residentModels() {
+        var running = restClient.get().uri("/api/ps").retrieve().body(RunningModels.class);
+        return running == null || running.models() == null ? List.of() : running.models();
+    }
+}
@@ -0,0 +1,122 @@
+package org.sc.ai.cli.chat;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Loads the conversation's memory and retrieves context for the prompt at the same time,
+ * instead of one advisor after the other, so a turn waits only for the slower of the two
+ * before the model is called.
+ *
+ * <p>Both advisors see the request as sent. The memory advisor's messages are kept and the
+ * user message is replaced with the one the retrieval advisor augmented, which is the
+ * request the two would have produced in sequence: the memory advisor stores the user
+ * message before retrieval changes it. After the response, retrieval runs its
+ * {@code after} first, then memory, as in the chain they replace.
+ *
+ * <p>Each branch is timed as {@code sc.chat.advisor.before} with a {@code branch} tag of
+ * {@code memory} or {@code retrieval}, and both together as {@code total}.
+ *
+ * @author Julius Krah
+ */
+final class ParallelContextAdvisor implements BaseAdvisor {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelContextAdvisor.class);
+    private final BaseAdvisor memory;
+    private final BaseAdvisor retrieval;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Timer memoryTimer;
+    private final Timer retrievalTimer;
+    private final Timer totalTimer;
+
+    ParallelContextAdvisor(BaseAdvisor memory, BaseAdvisor retrieval, MeterRegistry meterRegistry) {
+        this.memory = memory;
+        this.retrieval = retrieval;
+        this.memoryTimer = timer("memory", meterRegistry);
+        this.retrievalTimer = timer("retrieval", meterRegistry);
+        this.totalTimer = timer("total", meterRegistry);
+    }
+
+    private static Timer timer(String branch, MeterRegistry meterRegistry) {
+        return Timer.builder("sc.chat.advisor.before")
+                .description("Time taken to prepare a prompt before the model is called")
+                .tag("branch", branch)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ChatClientRequest before(ChatClientRequest chatClientRequest, AdvisorChain advisorChain) {
+        long start = System.nanoTime();
+        var remembered = branch("memory", () -> memory.before(chatClientRequest, advisorChain), memoryTimer);
+        var retrieved = branch("retrieval", () -> retrieval.before(chatClientRequest, advisorChain), retrievalTimer);
+        try {
+            var withMemory = remembered.join();
+            var withContext = retrieved.join();
+            var context = new HashMap<>(withMemory.context());
+            context.putAll(withContext.context());
+            return withMemory.mutate()
+                    .prompt(withMemory.prompt().augmentUserMessage(withContext.prompt().getUserMessage().getText()))
+                    .context(context)
+                    .build();
+        } catch (CompletionException e) {
+            remembered.cancel(true);
+            retrieved.cancel(true);
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            totalTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            logger.debug("Prepared prompt in {} ms", elapsed / 1_000_000);
+        }
+    }
+
+    private CompletableFuture<ChatClientRequest> branch(String name, Supplier<ChatClientRequest> before, Timer timer) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                return before.get();
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                timer.record(elapsed, TimeUnit.NANOSECONDS);
+                logger.debug("Prepared {} in {} ms", name, elapsed / 1_000_000);
+            }
+        }, executor);
+    }
+
+    @Override
+    public ChatClientResponse after(ChatClientResponse chatClientResponse, AdvisorChain advisorChain) {
+        return memory.after(retrieval.after(chatClientResponse, advisorChain), advisorChain);
+    }
+
+    @Override
+    public int getOrder() {
+        return memory.getOrder();
+    }
+
+    @Override
+    public Scheduler getScheduler() {
+        return memory.getScheduler();
+    }
+
+    @Override
+    public String getName() {
+        return "ParallelContextAdvisor";
+    }
+}
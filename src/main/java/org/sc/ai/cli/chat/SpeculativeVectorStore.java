@@ -0,0 +1,228 @@
+package org.sc.ai.cli.chat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.lang.Nullable;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Searches for what the user is typing before they press Enter, so the turn can use results
+ * that are already there.
+ *
+ * <p>{@link #speculate(String, Duration)} starts a search once the text has not changed for
+ * the idle pause; a newer text cancels the pending or running search. The next
+ * {@link #similaritySearch(SearchRequest)} takes the prefetched results if its query is the
+ * same text, ignoring case and whitespace, or within {@value #MAX_DISTANCE} edits per
+ * character of it, and the store has not been reloaded since. Otherwise it searches as
+ * usual. Hits and misses are counted as {@code sc.chat.retrieval.speculative}.
+ *
+ * @author Julius Krah
+ */
+final class SpeculativeVectorStore implements VectorStore {
+    private static final Logger logger = LoggerFactory.getLogger(SpeculativeVectorStore.class);
+    static final double MAX_DISTANCE = 0.1;
+    private final VectorStore delegate;
+    private final SearchRequest template;
+    private final Runnable prepare;
+    private final ScheduledExecutorService scheduler = Executors
+            .newSingleThreadScheduledExecutor(Thread.ofVirtual().name("speculative-retrieval").factory());
+    private final ExecutorService searches = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter hits;
+    private final Counter misses;
+    private final Object lock = new Object();
+    private long generation;
+    @Nullable
+    private Future<?> pending;
+    @Nullable
+    private Prefetch prefetch;
+
+    private record Prefetch(String query, long generation, Future<List<Document>> results) {
+    }
+
+    /**
+     * @param delegate the store searched
+     * @param template the search the advisor runs, apart from its query
+     * @param meterRegistry where hits and misses are counted
+     * @param prepare run before a speculative search, e.g. to load the store
+     */
+    SpeculativeVectorStore(VectorStore delegate, SearchRequest template, MeterRegistry meterRegistry,
+            Runnable prepare) {
+        this.delegate = delegate;
+        this.template = template;
+        this.prepare = prepare;
+        this.hits = Counter.builder("sc.chat.retrieval.speculative")
+                .description("Turns that reused the results of a search started while typing")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("sc.chat.retrieval.speculative")
+                .description("Turns that reused the results of a search started while typing")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Searches for {@code text} once it has been left unchanged for {@code idlePause}.
+     */
+    void speculate(String text, Duration idlePause) {
+        synchronized (lock) {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            pending = text.isBlank() ? null
+                    : scheduler.schedule(() -> prefetch(text), idlePause.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Discards prefetched results; called when the store's contents changed.
+     */
+    void invalidate() {
+        synchronized (lock) {
+            generation++;
+        }
+    }
+
+    private void prefetch(String text) {
+        prepare.run();
+        synchronized (lock) {
+            if (prefetch != null) {
+                if (prefetch.generation() == generation && normalize(prefetch.query()).equals(normalize(text))) {
+                    return;
+                }
+                prefetch.results().cancel(true);
+            }
+            var request = SearchRequest.from(template).query(text).build();
+            logger.debug("Prefetching {} results for \"{}\"", request.getTopK(), text);
+            prefetch = new Prefetch(text, generation, searches.submit(() -> delegate.similaritySearch(request)));
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        Prefetch candidate;
+        boolean speculated;
+        synchronized (lock) {
+            candidate = prefetch != null && prefetch.generation() == generation ? prefetch : null;
+            speculated = pending != null || prefetch != null;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            if (prefetch != null && candidate == null) {
+                prefetch.results().cancel(true);
+            }
+            pending = null;
+            prefetch = null;
+        }
+        if (candidate != null) {
+            if (isReusable(candidate, request)) {
+                try {
+                    // Already running or done; waiting costs no more than searching again
+                    var results = candidate.results().get();
+                    hits.increment();
+                    logger.debug("Reusing results prefetched for \"{}\"", candidate.query());
+                    return results;
+                } catch (ExecutionException | CancellationException e) {
+                    logger.debug("Prefetch for \"{}\" failed, searching again", candidate.query(), e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for prefetched results", e);
+                }
+            } else {
+                candidate.results().cancel(true);
+            }
+        }
+        if (speculated) {
+            misses.increment();
+        }
+        return delegate.similaritySearch(request);
+    }
+
+    private boolean isReusable(Prefetch candidate, SearchRequest request) {
+        return request.getTopK() == template.getTopK()
+                && request.getSimilarityThreshold() == template.getSimilarityThreshold()
+                && Objects.equals(request.getFilterExpression(), template.getFilterExpression())
+                && isClose(candidate.query(), request.getQuery());
+    }
+
+    /**
+     * @return whether {@code b} is {@code a} with at most {@value #MAX_DISTANCE} edits per
+     *         character, ignoring case and whitespace
+     */
+    static boolean isClose(String a, String b) {
+        var x = normalize(a);
+        var y = normalize(b);
+        if (x.equals(y)) {
+            return true;
+        }
+        int longest = Math.max(x.length(), y.length());
+        int allowed = (int) (longest * MAX_DISTANCE);
+        return Math.abs(x.length() - y.length()) <= allowed && distance(x, y) <= allowed;
+    }
+
+    private static String normalize(String text) {
+        return text.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Levenshtein distance, keeping two rows.
+     */
+    private static int distance(String a, String b) {
+        var previous = new int[b.length() + 1];
+        var current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            var swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+        invalidate();
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+        invalidate();
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+        invalidate();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+}
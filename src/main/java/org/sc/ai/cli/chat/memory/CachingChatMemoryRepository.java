@@ -0,0 +1,243 @@
+package org.sc.ai.cli.chat.memory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * A {@link ChatMemoryRepository} decorator that keeps active conversations in
+ * memory and writes them behind to the delegate (JDBC by default).
+ *
+ * <p>Reads are served from the cache once a conversation has been loaded. Writes are
+ * applied to the cache and pushed to the delegate according to the configured
+ * {@link Durability}. {@link #flush()} writes all pending changes and is called on
+ * {@code /bye}, Ctrl-D and when the application context closes.
+ *
+ * <p>The cache holds at most {@code maxConversations} conversations, evicting the least
+ * recently used first. Conversations with changes not yet written are never evicted, so
+ * with {@link Durability#ON_EXIT} every conversation changed since the last flush stays.
+ *
+ * <p>Flush latency is recorded in the {@code sc.chat.memory.flush} timer.
+ *
+ * @author Julius Krah
+ */
+public class CachingChatMemoryRepository implements ChatMemoryRepository, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CachingChatMemoryRepository.class);
+
+    private final ChatMemoryRepository delegate;
+    private final Durability durability;
+    // In access order; guarded by its own monitor, which also makes its updates to dirty and deleted atomic
+    private final LinkedHashMap<String, List<Message>> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxConversations;
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    private final Timer flushTimer;
+    private final Counter flushedConversations;
+    @Nullable
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * When cached writes reach the delegate.
+     */
+    public enum Durability {
+        /** Every write goes through to the delegate before returning. */
+        SYNC,
+        /** Pending writes are flushed in the background at a fixed interval. */
+        INTERVAL,
+        /** Pending writes are flushed only on explicit flush or shutdown. */
+        ON_EXIT
+    }
+
+    public CachingChatMemoryRepository(ChatMemoryRepository delegate, Durability durability, Duration flushInterval,
+            MeterRegistry meterRegistry) {
+        this(delegate, durability, flushInterval, 64, meterRegistry);
+    }
+
+    public CachingChatMemoryRepository(ChatMemoryRepository delegate, Durability durability, Duration flushInterval,
+            int maxConversations, MeterRegistry meterRegistry) {
+        Assert.notNull(delegate, "delegate must not be null");
+        Assert.notNull(durability, "durability must not be null");
+        Assert.isTrue(maxConversations > 0, "maxConversations must be greater than 0");
+        Assert.notNull(meterRegistry, "meterRegistry must not be null");
+        this.delegate = delegate;
+        this.durability = durability;
+        this.maxConversations = maxConversations;
+        this.flushTimer = Timer.builder("sc.chat.memory.flush")
+                .description("Time taken to write cached chat memory to the backing repository")
+                .tag("durability", durability.name().toLowerCase())
+                .register(meterRegistry);
+        this.flushedConversations = Counter.builder("sc.chat.memory.flush.conversations")
+                .description("Number of conversations written to the backing repository")
+                .register(meterRegistry);
+        if (durability == Durability.INTERVAL) {
+            Assert.isTrue(flushInterval != null && !flushInterval.isNegative() && !flushInterval.isZero(),
+                    "flushInterval must be positive");
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "chat-memory-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(),
+                    flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Lists the conversations without the running summaries {@link TokenBudgetChatMemory}
+     * keeps next to them, which are stored like conversations but are not ones.
+     */
+    @Override
+    public List<String> findConversationIds() {
+        var ids = new LinkedHashSet<>(delegate.findConversationIds());
+        synchronized (cache) {
+            ids.addAll(cache.keySet());
+            ids.removeAll(deleted);
+        }
+        ids.removeIf(TokenBudgetChatMemory::isSummary);
+        return List.copyOf(ids);
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        Assert.hasText(conversationId, "conversationId cannot be null or empty");
+        synchronized (cache) {
+            if (deleted.contains(conversationId)) {
+                return List.of();
+            }
+            var cached = cache.get(conversationId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        var loaded = List.copyOf(delegate.findByConversationId(conversationId));
+        synchronized (cache) {
+            if (deleted.contains(conversationId)) {
+                return List.of();
+            }
+            // A write that arrived while loading is newer than what was loaded
+            var messages = cache.putIfAbsent(conversationId, loaded);
+            evict();
+            return messages != null ? messages : loaded;
+        }
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        Assert.hasText(conversationId, "conversationId cannot be null or empty");
+        Assert.notNull(messages, "messages cannot be null");
+        if (durability == Durability.SYNC) {
+            delegate.saveAll(conversationId, messages);
+        }
+        synchronized (cache) {
+            cache.put(conversationId, List.copyOf(messages));
+            deleted.remove(conversationId);
+            if (durability != Durability.SYNC) {
+                dirty.add(conversationId);
+            }
+            evict();
+        }
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        Assert.hasText(conversationId, "conversationId cannot be null or empty");
+        synchronized (cache) {
+            cache.remove(conversationId);
+            dirty.remove(conversationId);
+            if (durability != Durability.SYNC) {
+                deleted.add(conversationId);
+            }
+        }
+        if (durability == Durability.SYNC) {
+            delegate.deleteByConversationId(conversationId);
+        }
+    }
+
+    /**
+     * Drops the least recently used conversations that have nothing left to write until
+     * the cache is back within its bound. Must be called holding the cache's monitor.
+     */
+    private void evict() {
+        for (var ids = cache.keySet().iterator(); cache.size() > maxConversations && ids.hasNext();) {
+            if (!dirty.contains(ids.next())) {
+                ids.remove();
+            }
+        }
+    }
+
+    /**
+     * Writes all pending changes to the delegate repository.
+     */
+    public synchronized void flush() {
+        if (dirty.isEmpty() && deleted.isEmpty()) {
+            return;
+        }
+        flushTimer.record(() -> {
+            for (var conversationId : List.copyOf(deleted)) {
+                deleted.remove(conversationId);
+                delegate.deleteByConversationId(conversationId);
+            }
+            for (var conversationId : List.copyOf(dirty)) {
+                List<Message> messages;
+                synchronized (cache) {
+                    messages = cache.get(conversationId);
+                }
+                if (messages == null) {
+                    continue;
+                }
+                // Still dirty while it is written, so it cannot be evicted and read back stale
+                delegate.saveAll(conversationId, messages);
+                flushedConversations.increment();
+                synchronized (cache) {
+                    // A newer write stays dirty for the next flush
+                    if (cache.get(conversationId) == messages) {
+                        dirty.remove(conversationId);
+                        evict();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the number of conversations with changes not yet written to the delegate
+     */
+    public int pendingCount() {
+        return dirty.size() + deleted.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to flush chat memory", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flush();
+    }
+}
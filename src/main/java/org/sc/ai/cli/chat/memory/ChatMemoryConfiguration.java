@@ -0,0 +1,63 @@
+package org.sc.ai.cli.chat.memory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.sc.ai.cli.chat.memory.CachingChatMemoryRepository.Durability;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepository;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Chat memory wiring. Replaces the message-window memory from Spring AI with a
+ * {@link TokenBudgetChatMemory} backed by the configured {@link ChatMemoryRepository}, which
+ * is fronted by a write-behind {@link CachingChatMemoryRepository}.
+ *
+ * <p>The backing store is JDBC unless {@code chat-memory.file.directory} is set, in which
+ * case the {@link LogStructuredChatMemoryRepository} is used instead.
+ *
+ * @author Julius Krah
+ */
+@Configuration(proxyBeanMethods = false)
+public class ChatMemoryConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(ChatMemoryEnvironmentPostProcessor.FILE_DIRECTORY_PROPERTY)
+    LogStructuredChatMemoryRepository logStructuredChatMemoryRepository(
+            @Value("${" + ChatMemoryEnvironmentPostProcessor.FILE_DIRECTORY_PROPERTY + "}") Path directory,
+            @Value("${sc.chat.memory.file.compaction-interval:10m}") Duration compactionInterval) {
+        return new LogStructuredChatMemoryRepository(directory, compactionInterval);
+    }
+
+    @Bean
+    @Primary
+    CachingChatMemoryRepository cachingChatMemoryRepository(
+            ObjectProvider<LogStructuredChatMemoryRepository> logStructuredChatMemoryRepository,
+            ObjectProvider<JdbcChatMemoryRepository> jdbcChatMemoryRepository,
+            @Value("${sc.chat.memory.durability:interval}") Durability durability,
+            @Value("${sc.chat.memory.flush-interval:5s}") Duration flushInterval,
+            @Value("${sc.chat.memory.cache.max-conversations:64}") int maxConversations,
+            MeterRegistry meterRegistry) {
+        ChatMemoryRepository delegate = logStructuredChatMemoryRepository
+                .getIfAvailable(jdbcChatMemoryRepository::getObject);
+        return new CachingChatMemoryRepository(delegate, durability, flushInterval, maxConversations, meterRegistry);
+    }
+
+    @Bean
+    ChatMemory chatMemory(ChatMemoryRepository chatMemoryRepository, ChatModel chatModel,
+            @Value("${sc.chat.memory.token-budget:2048}") int tokenBudget,
+            @Value("${sc.chat.memory.layout:stable-prefix}") TokenBudgetChatMemory.Layout layout) {
+        return new TokenBudgetChatMemory(chatMemoryRepository, chatModel, tokenBudget, BaseAdvisor.DEFAULT_SCHEDULER,
+                layout);
+    }
+}
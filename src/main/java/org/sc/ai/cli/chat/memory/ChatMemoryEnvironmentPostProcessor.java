@@ -0,0 +1,52 @@
+package org.sc.ai.cli.chat.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * Keeps the JDBC datasource out of the context when {@code chat-memory.file} is
+ * configured, so that {@code sc chat} does not pay for HikariCP, opening
+ * {@code store.db} and schema initialisation it will never use.
+ *
+ * <p>Runs after the config file has been imported.
+ *
+ * @author Julius Krah
+ */
+public class ChatMemoryEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+    static final String FILE_DIRECTORY_PROPERTY = "chat-memory.file.directory";
+    private static final String EXCLUDE_PROPERTY = "spring.autoconfigure.exclude";
+    private static final List<String> JDBC_AUTO_CONFIGURATIONS = List.of(
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration",
+            "org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration",
+            "org.springframework.boot.autoconfigure.sql.init.SqlInitializationAutoConfiguration",
+            "org.springframework.ai.model.chat.memory.repository.jdbc.autoconfigure.JdbcChatMemoryRepositoryAutoConfiguration");
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.containsProperty(FILE_DIRECTORY_PROPERTY)) {
+            return;
+        }
+        var exclusions = new ArrayList<>(Binder.get(environment)
+                .bind(EXCLUDE_PROPERTY, Bindable.listOf(String.class))
+                .orElse(List.of()));
+        JDBC_AUTO_CONFIGURATIONS.stream().filter(name -> !exclusions.contains(name)).forEach(exclusions::add);
+        environment.getPropertySources().addFirst(new MapPropertySource("scChatMemoryStore",
+                Map.of(EXCLUDE_PROPERTY, String.join(",", exclusions))));
+    }
+
+    @Override
+    public int getOrder() {
+        return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+    }
+}
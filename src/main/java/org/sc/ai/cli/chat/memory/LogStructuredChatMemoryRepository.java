@@ -0,0 +1,300 @@
+package org.sc.ai.cli.chat.memory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * An embedded, append-only {@link ChatMemoryRepository}. Every conversation is stored
+ * in its own segment file of newline-delimited JSON records, so opening the store
+ * costs a directory listing rather than a database bootstrap.
+ *
+ * <p>Saving a conversation that extends what is already stored appends only the new
+ * messages. Any other change appends a {@code reset} record followed by the full
+ * conversation. Segments whose dead records outnumber the live messages are rewritten
+ * by a periodic compaction and on close.
+ *
+ * @author Julius Krah
+ */
+public class LogStructuredChatMemoryRepository implements ChatMemoryRepository, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LogStructuredChatMemoryRepository.class);
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String OP_APPEND = "append";
+    private static final String OP_RESET = "reset";
+    private static final TypeReference<Map<String, String>> RECORD_TYPE = new TypeReference<>() {
+    };
+
+    private final Path directory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Segment> index = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService compactor;
+
+    /**
+     * In-memory view of a segment: the live messages and the number of records on disk.
+     */
+    private static final class Segment {
+        private final Path path;
+        private List<Message> messages;
+        private int records;
+
+        private Segment(Path path, List<Message> messages, int records) {
+            this.path = path;
+            this.messages = messages;
+            this.records = records;
+        }
+    }
+
+    public LogStructuredChatMemoryRepository(Path directory, Duration compactionInterval) {
+        Assert.notNull(directory, "directory must not be null");
+        Assert.isTrue(compactionInterval != null && !compactionInterval.isNegative() && !compactionInterval.isZero(),
+                "compactionInterval must be positive");
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create chat memory directory " + directory, e);
+        }
+        this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chat-memory-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        this.compactor.scheduleWithFixedDelay(this::compactQuietly, compactionInterval.toMillis(),
+                compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> decode(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list chat memory directory " + directory, e);
+        }
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        Assert.hasText(conversationId, "conversationId cannot be null or empty");
+        var segment = segment(conversationId);
+        synchronized (segment) {
+            return List.copyOf(segment.messages);
+        }
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        Assert.hasText(conversationId, "conversationId cannot be null or empty");
+        Assert.notNull(messages, "messages cannot be null");
+        var segment = segment(conversationId);
+        synchronized (segment) {
+            var stored = segment.messages;
+            var records = new ArrayList<Map<String, String>>();
+            int from;
+            if (isPrefix(stored, messages)) {
+                from = stored.size();
+            } else {
+                records.add(Map.of("op", OP_RESET));
+                from = 0;
+            }
+            for (var message : messages.subList(from, messages.size())) {
+                records.add(toRecord(message));
+            }
+            if (records.isEmpty()) {
+                return;
+            }
+            append(segment.path, records);
+            segment.records += records.size();
+            segment.messages = List.copyOf(messages);
+        }
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        Assert.hasText(conversationId, "conversationId cannot be null or empty");
+        var segment = segment(conversationId);
+        synchronized (segment) {
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete chat memory segment " + segment.path, e);
+            }
+            segment.messages = List.of();
+            segment.records = 0;
+        }
+    }
+
+    /**
+     * Rewrites every loaded segment whose dead records outnumber its live messages.
+     */
+    public void compact() {
+        for (var segment : index.values()) {
+            synchronized (segment) {
+                if (segment.records > 2 * segment.messages.size() && Files.exists(segment.path)) {
+                    rewrite(segment);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+        compact();
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to compact chat memory", e);
+        }
+    }
+
+    private Segment segment(String conversationId) {
+        return index.computeIfAbsent(conversationId, this::load);
+    }
+
+    private Segment load(String conversationId) {
+        var path = directory.resolve(encode(conversationId) + SEGMENT_SUFFIX);
+        var messages = new ArrayList<Message>();
+        int records = 0;
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    Map<String, String> entry;
+                    try {
+                        entry = objectMapper.readValue(line, RECORD_TYPE);
+                    } catch (JsonProcessingException e) {
+                        // A torn write can only be the last record; everything before it is intact
+                        logger.warn("Ignoring unreadable record in {}", path, e);
+                        break;
+                    }
+                    records++;
+                    if (OP_RESET.equals(entry.get("op"))) {
+                        messages.clear();
+                    } else {
+                        messages.add(toMessage(entry));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read chat memory segment " + path, e);
+            }
+        }
+        return new Segment(path, List.copyOf(messages), records);
+    }
+
+    private void append(Path path, List<Map<String, String>> records) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(serialize(records)));
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to chat memory segment " + path, e);
+        }
+    }
+
+    private void rewrite(Segment segment) {
+        var records = segment.messages.stream().map(this::toRecord).toList();
+        var temp = segment.path.resolveSibling(segment.path.getFileName() + ".tmp");
+        try {
+            Files.write(temp, serialize(records));
+            Files.move(temp, segment.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Compacted {} from {} to {} record(s)", segment.path, segment.records, records.size());
+            segment.records = records.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact chat memory segment " + segment.path, e);
+        }
+    }
+
+    private byte[] serialize(List<Map<String, String>> records) throws JsonProcessingException {
+        var builder = new StringBuilder();
+        for (var entry : records) {
+            builder.append(objectMapper.writeValueAsString(entry)).append('\n');
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Map<String, String> toRecord(Message message) {
+        var type = message.getMessageType();
+        if (type == MessageType.TOOL) {
+            throw new IllegalArgumentException("Unsupported message type: " + type);
+        }
+        var entry = new LinkedHashMap<String, String>();
+        entry.put("op", OP_APPEND);
+        entry.put("type", type.name());
+        entry.put("text", message.getText() != null ? message.getText() : "");
+        return entry;
+    }
+
+    private Message toMessage(Map<String, String> entry) {
+        var text = entry.getOrDefault("text", "");
+        return switch (MessageType.valueOf(entry.get("type"))) {
+            case USER -> new UserMessage(text);
+            case ASSISTANT -> new AssistantMessage(text);
+            case SYSTEM -> new SystemMessage(text);
+            case TOOL -> throw new IllegalStateException("Unsupported message type: TOOL");
+        };
+    }
+
+    private static boolean isPrefix(List<Message> prefix, List<Message> messages) {
+        if (prefix.size() > messages.size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            var a = prefix.get(i);
+            var b = messages.get(i);
+            if (a.getMessageType() != b.getMessageType() || !Objects.equals(a.getText(), b.getText())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String encode(String conversationId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(conversationId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String fileName) {
+        return new String(Base64.getUrlDecoder().decode(fileName), StandardCharsets.UTF_8);
+    }
+}
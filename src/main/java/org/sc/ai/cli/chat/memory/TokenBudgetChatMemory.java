@@ -0,0 +1,239 @@
+package org.sc.ai.cli.chat.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * A {@link ChatMemory} that replays recent turns verbatim up to a token budget and
+ * folds everything older into a running summary.
+ *
+ * <p>The summary is computed off the response path: once an assistant reply is
+ * stored, the turns that no longer fit the budget are summarised on the supplied
+ * {@link Scheduler} and removed from the repository. The summary itself is kept in
+ * the same {@link ChatMemoryRepository} under {@code <conversationId>:summary}.
+ *
+ * <p>With the {@link Layout#STABLE_PREFIX} layout, turns are folded only once they overflow
+ * the budget, and then down to half of it. Between folds each prompt starts with exactly
+ * the messages of the previous one, so a local server can reuse its KV cache for them
+ * instead of evaluating the whole conversation again.
+ *
+ * @author Julius Krah
+ */
+public class TokenBudgetChatMemory implements ChatMemory {
+    private static final Logger logger = LoggerFactory.getLogger(TokenBudgetChatMemory.class);
+    static final String SUMMARY_SUFFIX = ":summary";
+    private static final String SUMMARY_PROMPT = """
+            You maintain a running summary of a conversation between a user and an assistant.
+            Merge the previous summary with the new messages into a single concise summary.
+            Keep facts, names, decisions and open questions. Do not add commentary.""";
+
+    private final ChatMemoryRepository repository;
+    private final ChatModel chatModel;
+    private final int tokenBudget;
+    private final Scheduler scheduler;
+    private final Layout layout;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final Set<String> summarising = ConcurrentHashMap.newKeySet();
+
+    /**
+     * How the replayed turns move as a conversation grows.
+     */
+    public enum Layout {
+        /**
+         * Turns are folded into the summary as soon as they no longer fit, so the oldest
+         * replayed turn changes every turn once the budget is reached.
+         */
+        SLIDING,
+        /**
+         * Turns are folded in batches, down to half the budget, so the replayed turns stay
+         * the same between folds and only grow at the end.
+         */
+        STABLE_PREFIX
+    }
+
+    public TokenBudgetChatMemory(ChatMemoryRepository repository, ChatModel chatModel, int tokenBudget,
+            Scheduler scheduler) {
+        this(repository, chatModel, tokenBudget, scheduler, Layout.STABLE_PREFIX);
+    }
+
+    public TokenBudgetChatMemory(ChatMemoryRepository repository, ChatModel chatModel, int tokenBudget,
+            Scheduler scheduler, Layout layout) {
+        Assert.notNull(repository, "repository must not be null");
+        Assert.notNull(chatModel, "chatModel must not be null");
+        Assert.isTrue(tokenBudget > 0, "tokenBudget must be greater than 0");
+        Assert.notNull(scheduler, "scheduler must not be null");
+        Assert.notNull(layout, "layout must not be null");
+        this.repository = repository;
+        this.chatModel = chatModel;
+        this.tokenBudget = tokenBudget;
+        this.scheduler = scheduler;
+        this.layout = layout;
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        Assert.hasText(conversationId, "conversationId cannot be null or empty");
+        Assert.notNull(messages, "messages cannot be null");
+        synchronized (lockFor(conversationId)) {
+            var all = new ArrayList<>(repository.findByConversationId(conversationId));
+            all.addAll(messages);
+            repository.saveAll(conversationId, all);
+        }
+        if (messages.stream().anyMatch(message -> message.getMessageType() == MessageType.ASSISTANT)) {
+            scheduleSummary(conversationId);
+        }
+    }
+
+    /**
+     * Returns the running summary (if any) followed by the most recent messages that
+     * fit the token budget. Turns that are waiting to be summarised are left out so
+     * the prompt stays bounded even when the summary lags behind.
+     */
+    @Override
+    public List<Message> get(String conversationId) {
+        Assert.hasText(conversationId, "conversationId cannot be null or empty");
+        var messages = repository.findByConversationId(conversationId);
+        var summary = repository.findByConversationId(conversationId + SUMMARY_SUFFIX);
+        var result = new ArrayList<Message>(summary);
+        result.addAll(messages.subList(messages.size() - recentCount(messages), messages.size()));
+        return result;
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        Assert.hasText(conversationId, "conversationId cannot be null or empty");
+        synchronized (lockFor(conversationId)) {
+            repository.deleteByConversationId(conversationId);
+            repository.deleteByConversationId(conversationId + SUMMARY_SUFFIX);
+        }
+    }
+
+    /**
+     * @return whether {@code conversationId} is the key of a running summary rather than of a
+     *         conversation
+     */
+    static boolean isSummary(String conversationId) {
+        return conversationId.endsWith(SUMMARY_SUFFIX);
+    }
+
+    /**
+     * Counts how many messages, starting from the newest, fit within the token
+     * budget. The newest message is always kept.
+     */
+    int recentCount(List<Message> messages) {
+        return recentCount(messages, tokenBudget);
+    }
+
+    private int recentCount(List<Message> messages, int budget) {
+        int used = 0;
+        int count = 0;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            used += estimate(messages.get(i));
+            if (used > budget && count > 0) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private int estimate(Message message) {
+        return StringUtils.hasText(message.getText()) ? tokenCountEstimator.estimate(message.getText()) : 0;
+    }
+
+    private void scheduleSummary(String conversationId) {
+        if (!summarising.add(conversationId)) {
+            // A summary is already in flight; the next turn picks up whatever it missed
+            return;
+        }
+        Mono.fromRunnable(() -> summarise(conversationId))
+                .subscribeOn(scheduler)
+                .doFinally(_ -> summarising.remove(conversationId))
+                .subscribe(null, error -> logger.warn("Failed to summarise conversation {}", conversationId, error));
+    }
+
+    void summarise(String conversationId) {
+        var messages = repository.findByConversationId(conversationId);
+        int folded = messages.size() - recentCount(messages);
+        if (folded <= 0) {
+            return;
+        }
+        if (layout == Layout.STABLE_PREFIX) {
+            // Fold a batch now so the next few turns replay the same messages
+            folded = messages.size() - recentCount(messages, tokenBudget / 2);
+        }
+        var toFold = List.copyOf(messages.subList(0, folded));
+        var previous = repository.findByConversationId(conversationId + SUMMARY_SUFFIX).stream()
+                .map(Message::getText)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(System.lineSeparator()));
+        var transcript = toFold.stream()
+                .map(message -> message.getMessageType().getValue() + ": " + message.getText())
+                .collect(Collectors.joining(System.lineSeparator()));
+        var userText = StringUtils.hasText(previous)
+                ? "Previous summary:\n" + previous + "\n\nNew messages:\n" + transcript
+                : "New messages:\n" + transcript;
+
+        ChatResponse response = chatModel.call(new Prompt(List.of(new SystemMessage(SUMMARY_PROMPT), new UserMessage(userText))));
+        if (response == null || response.getResult() == null
+                || !StringUtils.hasText(response.getResult().getOutput().getText())) {
+            logger.debug("Empty summary returned for conversation {}", conversationId);
+            return;
+        }
+        var summary = response.getResult().getOutput().getText();
+
+        synchronized (lockFor(conversationId)) {
+            var current = repository.findByConversationId(conversationId);
+            if (!startsWith(current, toFold)) {
+                logger.debug("Conversation {} changed while summarising, skipping", conversationId);
+                return;
+            }
+            repository.saveAll(conversationId + SUMMARY_SUFFIX, List.of(new SystemMessage(summary)));
+            repository.saveAll(conversationId, new ArrayList<>(current.subList(toFold.size(), current.size())));
+        }
+        logger.debug("Folded {} message(s) of conversation {} into the summary", toFold.size(), conversationId);
+    }
+
+    private boolean startsWith(List<Message> messages, List<Message> prefix) {
+        if (messages.size() < prefix.size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            var a = messages.get(i);
+            var b = prefix.get(i);
+            if (a.getMessageType() != b.getMessageType() || !Objects.equals(a.getText(), b.getText())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object lockFor(String conversationId) {
+        return locks.computeIfAbsent(conversationId, _ -> new Object());
+    }
+}
@@ -0,0 +1,32 @@
+package org.sc.ai.cli.chat.multimodal;
+
+import java.util.Map;
+
+import org.jline.reader.CompletingParsedLine;
+import org.jline.reader.LineReader;
+import org.jline.reader.impl.CompletionMatcherImpl;
+
+/**
+ * Matches {@code @} attachments fuzzily, after JLine's own matchers found nothing, so that
+ * {@code @rdme} completes to {@code @docs/README.md}.
+ *
+ * @author Julius Krah
+ */
+public class AttachmentCompletionMatcher extends CompletionMatcherImpl {
+
+    @Override
+    public void compile(Map<LineReader.Option, Boolean> options, boolean prefix, CompletingParsedLine line,
+            boolean caseInsensitive, int errors, String originalGroupName) {
+        super.compile(options, prefix, line, caseInsensitive, errors, originalGroupName);
+        var word = line.word().substring(0, line.wordCursor());
+        if (word.startsWith("@")) {
+            var query = unquote(word.substring(1));
+            matchers.add(simpleMatcher(value -> value.startsWith("@")
+                    && PathIndex.fuzzyScore(query, unquote(value.substring(1))) >= 0));
+        }
+    }
+
+    private static String unquote(String path) {
+        return path.replace("\"", "").replace("'", "");
+    }
+}
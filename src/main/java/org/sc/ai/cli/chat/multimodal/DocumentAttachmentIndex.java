@@ -0,0 +1,241 @@
+package org.sc.ai.cli.chat.multimodal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentReader;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.reader.TextReader;
+import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
+import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
+import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.core.io.PathResource;
+import org.springframework.util.StringUtils;
+
+/**
+ * Keeps documents attached with {@code @} out of the prompt except for the parts relevant
+ * to what is asked.
+ *
+ * <p>Attached files are split into chunks and embedded into a small in-memory index of
+ * their conversation, and each turn gets the {@code topK} chunks closest to its text. A
+ * conversation's index is dropped after it has not been used for {@code ttl}. Chunks and
+ * their embeddings are cached by the SHA-256 of the file, so attaching the same file again,
+ * in this or another conversation, costs one hash.
+ *
+ * @author Julius Krah
+ */
+public class DocumentAttachmentIndex {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentAttachmentIndex.class);
+    private static final List<String> SUPPORTED_EXTENSIONS = List.of(".pdf", ".md", ".markdown", ".txt", ".json",
+            ".html", ".htm", ".csv", ".xml", ".yaml", ".yml");
+    private final EmbeddingModel embeddingModel;
+    private final int topK;
+    private final int chunkSize;
+    private final Duration ttl;
+    private final Map<String, List<Chunk>> cache;
+    private final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+
+    /**
+     * @param text the chunk text
+     * @param source the file name the chunk was read from
+     * @param embedding the embedding of {@code text}
+     */
+    record Chunk(String text, String source, float[] embedding) {
+    }
+
+    /**
+     * The files attached to one conversation, by hash, and when it was last used.
+     */
+    private static final class Conversation {
+        private final Map<String, String> files = new LinkedHashMap<>();
+        private long lastUsedNanos = System.nanoTime();
+    }
+
+    /**
+     * @param embeddingModel embeds chunks and prompts
+     * @param topK the most chunks added to a prompt
+     * @param chunkSize the target size of a chunk, in tokens
+     * @param ttl how long a conversation's attachments are kept after its last turn
+     * @param cacheSize how many files' chunks and embeddings are kept
+     */
+    public DocumentAttachmentIndex(EmbeddingModel embeddingModel, int topK, int chunkSize, Duration ttl,
+            int cacheSize) {
+        this.embeddingModel = embeddingModel;
+        this.topK = topK;
+        this.chunkSize = chunkSize;
+        this.ttl = ttl;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Chunk>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @return whether {@code path} has an extension this index can read
+     */
+    public static boolean isSupported(Path path) {
+        var fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return SUPPORTED_EXTENSIONS.stream().anyMatch(fileName::endsWith);
+    }
+
+    /**
+     * Adds {@code documents} to the conversation's index and returns the chunks of all its
+     * attachments that are closest to {@code text}.
+     *
+     * @param conversationId the conversation the documents belong to
+     * @param text the user's prompt, without the attachments
+     * @param documents the files attached to this turn
+     * @return the relevant excerpts under a heading, or an empty string when the
+     *         conversation has no attachments
+     */
+    public String excerpts(String conversationId, String text, List<Path> documents) {
+        evictExpired();
+        var conversation = documents.isEmpty() ? conversations.get(conversationId)
+                : conversations.computeIfAbsent(conversationId, _ -> new Conversation());
+        if (conversation == null) {
+            return "";
+        }
+        synchronized (conversation) {
+            conversation.lastUsedNanos = System.nanoTime();
+            for (var document : documents) {
+                try {
+                    var hash = hash(document);
+                    index(hash, document);
+                    conversation.files.put(hash, document.getFileName().toString());
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Failed to index attachment {}", document, e);
+                }
+            }
+            var chunks = search(conversation, text);
+            if (chunks.isEmpty()) {
+                return "";
+            }
+            var excerpts = new StringBuilder("Excerpts from the attached files:");
+            for (var chunk : chunks) {
+                excerpts.append("\n\n--- ").append(chunk.source()).append('\n').append(chunk.text());
+            }
+            return excerpts.toString();
+        }
+    }
+
+    /**
+     * @return the number of conversations with attachments still kept
+     */
+    int conversations() {
+        return conversations.size();
+    }
+
+    private List<Chunk> search(Conversation conversation, String text) {
+        var candidates = new ArrayList<Chunk>();
+        for (var hash : conversation.files.keySet()) {
+            List<Chunk> chunks;
+            synchronized (cache) {
+                chunks = cache.get(hash);
+            }
+            if (chunks == null) {
+                // Evicted since it was attached; the file may have changed, so it is not read again
+                logger.debug("Chunks of {} are no longer cached, attach it again", conversation.files.get(hash));
+                continue;
+            }
+            candidates.addAll(chunks);
+        }
+        if (candidates.size() <= topK || !StringUtils.hasText(text)) {
+            return candidates.stream().limit(topK).toList();
+        }
+        var query = embeddingModel.embed(text);
+        return candidates.stream()
+                .sorted(Comparator.comparingDouble((Chunk chunk) -> cosineSimilarity(query, chunk.embedding()))
+                        .reversed())
+                .limit(topK)
+                .toList();
+    }
+
+    private void index(String hash, Path document) {
+        synchronized (cache) {
+            if (cache.get(hash) != null) {
+                logger.debug("Using cached embeddings for {}", document);
+                return;
+            }
+        }
+        var source = document.getFileName().toString();
+        var splitter = new TokenTextSplitter(chunkSize, 350, 5, 10000, true);
+        var texts = splitter.apply(reader(document).read()).stream()
+                .map(Document::getText)
+                .filter(StringUtils::hasText)
+                .toList();
+        var embeddings = texts.isEmpty() ? List.<float[]>of() : embeddingModel.embed(texts);
+        var chunks = new ArrayList<Chunk>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            chunks.add(new Chunk(texts.get(i), source, embeddings.get(i)));
+        }
+        logger.debug("Indexed {} as {} chunk(s)", document, chunks.size());
+        synchronized (cache) {
+            cache.put(hash, List.copyOf(chunks));
+        }
+    }
+
+    private static DocumentReader reader(Path document) {
+        var resource = new PathResource(document);
+        var fileName = document.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (fileName.endsWith(".pdf")) {
+            return new PagePdfDocumentReader(resource);
+        } else if (fileName.endsWith(".md") || fileName.endsWith(".markdown")) {
+            return new MarkdownDocumentReader(resource, MarkdownDocumentReaderConfig.defaultConfig());
+        }
+        return new TextReader(resource);
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        conversations.values().removeIf(conversation -> {
+            synchronized (conversation) {
+                return now - conversation.lastUsedNanos >= ttl.toNanos();
+            }
+        });
+    }
+
+    private static String hash(Path document) throws IOException {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            try (var in = Files.newInputStream(document)) {
+                var buffer = new byte[8192];
+                for (int read; (read = in.read(buffer)) != -1;) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double cosineSimilarity(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
+    }
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -13,18 +14,34 @@ import org.jline.reader.LineReader;
 import org.jline.reader.ParsedLine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 /**
  * A completer that provides file path completion when the '@' symbol is typed.
- * Only suggests image files (jpg, jpeg, png, gif, webp, bmp).
+ * Only suggests images (jpg, jpeg, png, gif, webp, bmp), documents that can be attached,
+ * and directories.
+ * 
+ * <p>Paths under the working directory are looked up in a {@link PathIndex}, so a key
+ * press does not wait for a directory listing. Other paths, and the working directory
+ * while it is first indexed, are listed only until {@code budget} is spent.
  * 
  * @author Julius Krah
  */
+@Lazy
 @Component
 public class FilePathCompleter implements Completer {
     
     private static final Logger logger = LoggerFactory.getLogger(FilePathCompleter.class);
+    private static final int MAX_CANDIDATES = 200;
+    private final PathIndex pathIndex;
+    private final Duration budget;
+    
+    public FilePathCompleter(PathIndex pathIndex, @Value("${sc.chat.completion.budget:50ms}") Duration budget) {
+        this.pathIndex = pathIndex;
+        this.budget = budget;
+    }
     
     @Override
     public void complete(LineReader reader, ParsedLine line, List<Candidate> candidates) {
@@ -87,6 +104,17 @@ public class FilePathCompleter implements Completer {
      */
     private void addPathCandidates(String partialPath, List<Candidate> candidates, 
                                   boolean isQuoted, char quoteChar) throws IOException {
+        long deadline = System.nanoTime() + budget.toNanos();
+        if (isIndexed(partialPath)) {
+            for (String entry : pathIndex.complete(partialPath, MAX_CANDIDATES, budget)) {
+                boolean directory = entry.endsWith("/");
+                if (directory || isAttachable(entry)) {
+                    candidates.add(candidate(entry, directory, isQuoted, quoteChar));
+                }
+            }
+            return;
+        }
+        
         Path basePath = determineBasePath(partialPath);
         String prefix = determinePrefix(partialPath);
         
@@ -94,12 +122,33 @@ public class FilePathCompleter implements Completer {
             return;
         }
         
+        // The directory may be large or on a slow mount; stop listing once the budget is spent
+        String parent = partialPath.substring(0, partialPath.length() - prefix.length());
         try (Stream<Path> files = Files.list(basePath)) {
-            files.filter(path -> shouldIncludePath(path, prefix))
-                 .forEach(path -> addCandidate(candidates, path, basePath, isQuoted, quoteChar));
+            files.takeWhile(_ -> System.nanoTime() - deadline < 0)
+                 .filter(path -> shouldIncludePath(path, prefix))
+                 .limit(MAX_CANDIDATES)
+                 .forEach(path -> addCandidate(candidates, path, parent, isQuoted, quoteChar));
         }
     }
     
+    /**
+     * Checks whether a partial path can be looked up in the index rather than listed.
+     * 
+     * @param partialPath the partial path
+     * @return true if the path is relative to the indexed working directory
+     */
+    private boolean isIndexed(String partialPath) {
+        if (!pathIndex.isReady() || !pathIndex.root().equals(Paths.get(System.getProperty("user.dir")).toAbsolutePath().normalize())) {
+            return false;
+        }
+        if (partialPath.startsWith("~") || partialPath.startsWith("./")) {
+            return false;
+        }
+        Path path = Paths.get(partialPath);
+        return !path.isAbsolute() && !partialPath.contains("..");
+    }
+    
     /**
      * Determines the base directory path for completion.
      * 
@@ -112,6 +161,10 @@ public class FilePathCompleter implements Completer {
         }
         
         Path path = Paths.get(partialPath);
+        if (partialPath.endsWith("/")) {
+            // A directory was typed; complete its entries
+            return path.isAbsolute() ? path : Paths.get(System.getProperty("user.dir")).resolve(path);
+        }
         if (path.isAbsolute()) {
             return path.getParent() != null ? path.getParent() : path;
         } else {
@@ -128,7 +181,7 @@ public class FilePathCompleter implements Completer {
      * @return the filename prefix
      */
     private String determinePrefix(String partialPath) {
-        if (partialPath.isEmpty()) {
+        if (partialPath.isEmpty() || partialPath.endsWith("/")) {
             return "";
         }
         
@@ -155,24 +208,25 @@ public class FilePathCompleter implements Completer {
             return true;
         }
         
-        // Include only image files
-        return isImageFile(fileName);
+        // Include only images and documents
+        return isAttachable(fileName);
     }
     
     /**
-     * Checks if a filename represents an image file.
+     * Checks if a filename represents an image file or a document that can be attached.
      * 
      * @param fileName the filename to check
-     * @return true if it's an image file
+     * @return true if it can be attached
      */
-    private boolean isImageFile(String fileName) {
+    private boolean isAttachable(String fileName) {
         String lower = fileName.toLowerCase();
         return lower.endsWith(".jpg") || 
                lower.endsWith(".jpeg") || 
                lower.endsWith(".png") || 
                lower.endsWith(".gif") || 
                lower.endsWith(".webp") || 
-               lower.endsWith(".bmp");
+               lower.endsWith(".bmp") ||
+               DocumentAttachmentIndex.isSupported(Paths.get(fileName));
     }
     
     /**
@@ -180,40 +234,49 @@ public class FilePathCompleter implements Completer {
      * 
      * @param candidates the list to add to
      * @param path the path to add
-     * @param basePath the base directory path
+     * @param parent the directory part of the partial path, as typed
      * @param isQuoted whether the path is quoted
      * @param quoteChar the quote character used
      */
-    private void addCandidate(List<Candidate> candidates, Path path, Path basePath, 
+    private void addCandidate(List<Candidate> candidates, Path path, String parent, 
                              boolean isQuoted, char quoteChar) {
-        String relativePath = basePath.relativize(path).toString();
-        
-        // Add trailing slash for directories
-        if (Files.isDirectory(path)) {
-            relativePath += "/";
-        }
-        
+        boolean directory = Files.isDirectory(path);
+        String typedPath = parent + path.getFileName() + (directory ? "/" : "");
+        candidates.add(candidate(typedPath, directory, isQuoted, quoteChar));
+    }
+    
+    /**
+     * Creates a candidate that replaces the whole {@code @} word being completed.
+     * 
+     * @param path the path as it should be typed
+     * @param directory whether the path is a directory
+     * @param isQuoted whether the path is quoted
+     * @param quoteChar the quote character used
+     * @return the candidate
+     */
+    private Candidate candidate(String path, boolean directory, boolean isQuoted, char quoteChar) {
         // Handle quoting
-        String value = relativePath;
+        String value = path;
         if (isQuoted) {
-            value = quoteChar + relativePath;
-            if (!Files.isDirectory(path)) {
+            value = quoteChar + path;
+            if (!directory) {
                 value += quoteChar; // Close quote for files
             }
-        } else if (relativePath.contains(" ")) {
-            value = "\"" + relativePath + "\""; // Auto-quote paths with spaces
+        } else if (path.contains(" ")) {
+            value = "\"" + path + "\""; // Auto-quote paths with spaces
         }
         
-        String description = Files.isDirectory(path) ? "directory" : "image file";
+        String description = directory ? "directory" : "attachment";
         
-        candidates.add(new Candidate(
-            value,
-            relativePath,
+        // Directories are not complete, so the next Tab continues inside them
+        return new Candidate(
+            "@" + value,
+            path,
             null,
             description,
             null,
             null,
-            true
-        ));
+            !directory
+        );
     }
 }
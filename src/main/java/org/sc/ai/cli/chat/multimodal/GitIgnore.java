@@ -0,0 +1,130 @@
+package org.sc.ai.cli.chat.multimodal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code .gitignore} rules in effect for one directory: its own and those of its
+ * parents. Supports negation, directory-only and anchored patterns, and {@code *},
+ * {@code ?}, {@code [...]} and {@code **} globs.
+ *
+ * @author Julius Krah
+ */
+final class GitIgnore {
+    static final GitIgnore EMPTY = new GitIgnore(List.of());
+    private final List<Rule> rules;
+
+    /**
+     * @param base the directory of the {@code .gitignore}, relative to the root, ending
+     *        with {@code /} unless it is the root
+     * @param pattern matches paths relative to {@code base}
+     * @param negated whether a match includes the path again
+     * @param directoryOnly whether only directories match
+     */
+    private record Rule(String base, Pattern pattern, boolean negated, boolean directoryOnly) {
+    }
+
+    private GitIgnore(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @param directory the directory, relative to the root, with {@code /} separators and
+     *        empty for the root
+     * @param file its {@code .gitignore}, which need not exist
+     * @return these rules followed by those of {@code file}
+     */
+    GitIgnore with(String directory, Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return this;
+        }
+        var base = directory.isEmpty() ? "" : directory + "/";
+        var combined = new ArrayList<>(rules);
+        for (var line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            var rule = parse(base, line);
+            if (rule != null) {
+                combined.add(rule);
+            }
+        }
+        return combined.size() == rules.size() ? this : new GitIgnore(List.copyOf(combined));
+    }
+
+    /**
+     * @param path relative to the root, with {@code /} separators
+     * @return whether the last rule matching {@code path} ignores it
+     */
+    boolean isIgnored(String path, boolean directory) {
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            var rule = rules.get(i);
+            if ((rule.directoryOnly() && !directory) || !path.startsWith(rule.base())) {
+                continue;
+            }
+            if (rule.pattern().matcher(path.substring(rule.base().length())).matches()) {
+                return !rule.negated();
+            }
+        }
+        return false;
+    }
+
+    private static Rule parse(String base, String line) {
+        var pattern = line.stripTrailing();
+        if (pattern.isEmpty() || pattern.startsWith("#")) {
+            return null;
+        }
+        boolean negated = pattern.startsWith("!");
+        if (negated) {
+            pattern = pattern.substring(1);
+        } else if (pattern.startsWith("\\")) {
+            pattern = pattern.substring(1);
+        }
+        boolean directoryOnly = pattern.endsWith("/");
+        if (directoryOnly) {
+            pattern = pattern.substring(0, pattern.length() - 1);
+        }
+        // A slash anywhere but at the end ties the pattern to this directory
+        boolean anchored = pattern.contains("/");
+        if (pattern.startsWith("/")) {
+            pattern = pattern.substring(1);
+        }
+        if (pattern.isEmpty()) {
+            return null;
+        }
+        var regex = (anchored ? "" : "(?:.*/)?") + toRegex(pattern);
+        return new Rule(base, Pattern.compile(regex), negated, directoryOnly);
+    }
+
+    private static String toRegex(String glob) {
+        var regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                boolean slashAfter = i + 2 < glob.length() && glob.charAt(i + 2) == '/';
+                regex.append(slashAfter ? "(?:.*/)?" : ".*");
+                i += slashAfter ? 2 : 1;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '[') {
+                int end = glob.indexOf(']', i + 1);
+                if (end < 0) {
+                    regex.append("\\[");
+                } else {
+                    var set = glob.substring(i + 1, end);
+                    regex.append('[').append(set.startsWith("!") ? "^" + set.substring(1) : set).append(']');
+                    i = end;
+                }
+            } else if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,333 @@
+package org.sc.ai.cli.chat.multimodal;
+
+import java.awt.AlphaComposite;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.content.Media;
+import org.springframework.core.io.PathResource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Shrinks image attachments to the resolution the vision model works at before they are
+ * base64-encoded into the request.
+ *
+ * <p>An image is decoded with subsampling where it is several times larger than needed,
+ * scaled so its longer side fits the model's native resolution, and re-encoded as JPEG,
+ * or PNG when it has transparency. Re-encoding drops EXIF and other metadata, so the EXIF
+ * orientation that phone cameras use instead of rotating the pixels is applied first. Results are
+ * cached on disk by the SHA-256 of the original bytes and the target size, so attaching the
+ * same image again costs one hash. Images that cannot be decoded, such as WebP without an
+ * ImageIO plugin, are sent as they are.
+ *
+ * @author Julius Krah
+ */
+public class ImagePreprocessor {
+    private static final Logger logger = LoggerFactory.getLogger(ImagePreprocessor.class);
+    private static final int ORIENTATION_TAG = 0x0112;
+    // Part of the cache key, so images cached before orientation was applied are not reused
+    private static final int CACHE_VERSION = 2;
+    private final Path cacheDirectory;
+    private final Map<String, Integer> nativeResolutions;
+    private final int defaultResolution;
+    private final float quality;
+
+    /**
+     * @param cacheDirectory where processed images are kept
+     * @param nativeResolutions the longest side, in pixels, each model family works at,
+     *        keyed by the model name without its tag, e.g. {@code llava}
+     * @param defaultResolution the longest side for models not in
+     *        {@code nativeResolutions}
+     * @param quality JPEG quality between 0 and 1
+     */
+    public ImagePreprocessor(Path cacheDirectory, Map<String, Integer> nativeResolutions, int defaultResolution,
+            float quality) {
+        this.cacheDirectory = cacheDirectory;
+        this.nativeResolutions = Map.copyOf(nativeResolutions);
+        this.defaultResolution = defaultResolution;
+        this.quality = quality;
+    }
+
+    /**
+     * Prepares all attachments in parallel.
+     *
+     * @param paths the image files, in prompt order
+     * @param model the vision model the images are sent to
+     * @return one media per path, in the same order; an image that fails to process is
+     *         sent as it is
+     */
+    public List<Media> prepare(List<Path> paths, @Nullable String model) {
+        int resolution = resolution(model);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<Media>>(paths.size());
+            for (var path : paths) {
+                futures.add(executor.submit(() -> prepare(path, resolution)));
+            }
+            var media = new ArrayList<Media>(paths.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    media.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    logger.warn("Failed to prepare image {}, sending it unchanged", paths.get(i), e.getCause());
+                    media.add(new Media(originalMimeType(paths.get(i)), new PathResource(paths.get(i))));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while preparing images", e);
+                }
+            }
+            return media;
+        }
+    }
+
+    /**
+     * @return the longest side, in pixels, to scale images for {@code model} to
+     */
+    int resolution(@Nullable String model) {
+        if (model == null) {
+            return defaultResolution;
+        }
+        int tag = model.indexOf(':');
+        var family = (tag < 0 ? model : model.substring(0, tag)).toLowerCase(Locale.ROOT);
+        return nativeResolutions.getOrDefault(family, defaultResolution);
+    }
+
+    Media prepare(Path path, int resolution) throws IOException {
+        var original = Files.readAllBytes(path);
+        var key = key(original, resolution);
+        for (var format : List.of("jpg", "png")) {
+            var cached = cacheDirectory.resolve(key + "." + format);
+            if (Files.exists(cached)) {
+                logger.debug("Using cached image {} for {}", cached, path);
+                return new Media(mimeType(format), new PathResource(cached));
+            }
+        }
+        BufferedImage image;
+        try {
+            image = decode(path, resolution);
+        } catch (IOException e) {
+            logger.debug("Failed to decode {}", path, e);
+            image = null;
+        }
+        if (image == null) {
+            logger.debug("Cannot decode {}, sending it unchanged", path);
+            return new Media(originalMimeType(path), new PathResource(path));
+        }
+        var scaled = scale(orient(image, orientation(original)), resolution);
+        var format = scaled.getColorModel().hasAlpha() ? "png" : "jpg";
+        Files.createDirectories(cacheDirectory);
+        var target = cacheDirectory.resolve(key + "." + format);
+        var temp = Files.createTempFile(cacheDirectory, key, "." + format + ".tmp");
+        try {
+            write(scaled, format, temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.debug("Prepared {} ({}x{}, {} bytes) as {}x{}, {} bytes", path, image.getWidth(), image.getHeight(),
+                original.length, scaled.getWidth(), scaled.getHeight(), Files.size(target));
+        return new Media(mimeType(format), new PathResource(target));
+    }
+
+    /**
+     * Decodes only every n-th pixel of images at least twice as large as needed.
+     */
+    @Nullable
+    private static BufferedImage decode(Path path, int resolution) throws IOException {
+        try (var in = ImageIO.createImageInputStream(path.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            var readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                var param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, longest / resolution);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reads the EXIF Orientation tag of a JPEG.
+     *
+     * @return the orientation from 1 to 8, or 1 if {@code image} is not a JPEG or has none
+     */
+    static int orientation(byte[] image) {
+        var data = ByteBuffer.wrap(image);
+        if (image.length < 4 || data.getShort(0) != (short) 0xFFD8) {
+            return 1;
+        }
+        int offset = 2;
+        while (offset + 4 <= image.length && (image[offset] & 0xff) == 0xff) {
+            int marker = image[offset + 1] & 0xff;
+            if (marker == 0xff) {
+                // Fill byte
+                offset++;
+                continue;
+            }
+            if (marker == 0xda) {
+                // Start of scan; the metadata segments all come before it
+                break;
+            }
+            int length = data.getShort(offset + 2) & 0xffff;
+            if (marker == 0xe1 && length >= 16 && offset + 2 + length <= image.length
+                    && data.getInt(offset + 4) == 0x45786966 && data.getShort(offset + 8) == 0) {
+                return exifOrientation(data.slice(offset + 10, length - 8));
+            }
+            offset += 2 + length;
+        }
+        return 1;
+    }
+
+    /**
+     * @param tiff the TIFF structure that follows the {@code Exif} header of the APP1 segment
+     */
+    private static int exifOrientation(ByteBuffer tiff) {
+        tiff.order(tiff.getShort(0) == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd + 2 > tiff.limit()) {
+            return 1;
+        }
+        int count = tiff.getShort(ifd) & 0xffff;
+        for (int i = 0; i < count; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                break;
+            }
+            if ((tiff.getShort(entry) & 0xffff) == ORIENTATION_TAG) {
+                int orientation = tiff.getShort(entry + 8) & 0xffff;
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Rotates and flips {@code image} the way an EXIF {@code orientation} asks viewers to.
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        var transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+        boolean swap = orientation >= 5;
+        var oriented = new BufferedImage(swap ? h : w, swap ? w : h,
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        var graphics = oriented.createGraphics();
+        try {
+            graphics.setComposite(AlphaComposite.Src);
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    private static BufferedImage scale(BufferedImage image, int resolution) {
+        int longest = Math.max(image.getWidth(), image.getHeight());
+        double factor = Math.min(1.0, (double) resolution / longest);
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        boolean alpha = image.getColorModel().hasAlpha();
+        var scaled = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        var graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setComposite(AlphaComposite.Src);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        var writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (var out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            var param = writer.getDefaultWriteParam();
+            if ("jpg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private String key(byte[] original, int resolution) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(original);
+            digest.update(ByteBuffer.allocate(12).putInt(resolution).putFloat(quality).putInt(CACHE_VERSION).array());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MimeType mimeType(String format) {
+        return "png".equals(format) ? MimeTypeUtils.IMAGE_PNG : MimeTypeUtils.IMAGE_JPEG;
+    }
+
+    private static MimeType originalMimeType(Path path) {
+        var name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".png")) {
+            return MimeTypeUtils.IMAGE_PNG;
+        } else if (name.endsWith(".gif")) {
+            return MimeTypeUtils.IMAGE_GIF;
+        } else if (name.endsWith(".webp")) {
+            return MimeType.valueOf("image/webp");
+        } else if (name.endsWith(".bmp")) {
+            return MimeType.valueOf("image/bmp");
+        }
+        return MimeTypeUtils.IMAGE_JPEG;
+    }
+}
@@ -0,0 +1,53 @@
+package org.sc.ai.cli.chat.multimodal;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+
+/**
+ * @author Julius Krah
+ */
+@Configuration(proxyBeanMethods = false)
+public class MultimodalConfiguration {
+
+    @Bean
+    ImagePreprocessor imagePreprocessor(Environment environment,
+            @Value("${sc.chat.image.cache.directory}") Path cacheDirectory,
+            @Value("${sc.chat.image.max-resolution:1024}") int defaultResolution,
+            @Value("${sc.chat.image.quality:0.85}") float quality) {
+        var nativeResolutions = Binder.get(environment)
+                .bind("sc.chat.image.native-resolution", Bindable.mapOf(String.class, Integer.class))
+                .orElse(Map.of());
+        return new ImagePreprocessor(cacheDirectory, nativeResolutions, defaultResolution, quality);
+    }
+
+    @Bean
+    DocumentAttachmentIndex documentAttachmentIndex(EmbeddingModel embeddingModel,
+            @Value("${sc.chat.document.top-k:4}") int topK,
+            @Value("${sc.chat.document.chunk-size:400}") int chunkSize,
+            @Value("${sc.chat.document.ttl:30m}") Duration ttl,
+            @Value("${sc.chat.document.cache-size:32}") int cacheSize) {
+        return new DocumentAttachmentIndex(embeddingModel, topK, chunkSize, ttl, cacheSize);
+    }
+
+    /**
+     * Starts indexing the working directory when the REPL's line reader is first created.
+     */
+    @Bean(destroyMethod = "close")
+    @Lazy
+    PathIndex pathIndex(@Value("${sc.chat.completion.max-entries:200000}") int maxEntries) {
+        var pathIndex = new PathIndex(Paths.get(System.getProperty("user.dir")), maxEntries);
+        pathIndex.start();
+        return pathIndex;
+    }
+}
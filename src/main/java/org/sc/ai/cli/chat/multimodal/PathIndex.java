@@ -0,0 +1,401 @@
+package org.sc.ai.cli.chat.multimodal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+/**
+ * The files and directories under a root, kept in memory so that completing an {@code @}
+ * attachment never lists a directory while the user types.
+ *
+ * <p>The index is built on a background thread and kept current by a {@link WatchService}.
+ * Paths ignored by {@code .gitignore} files, and {@code .git} itself, are left out, and
+ * indexing stops at {@code maxEntries}. Entries are paths relative to the root with
+ * {@code /} separators; directories end with {@code /}.
+ *
+ * <p>{@link #complete(String, int, Duration)} first looks up the entries of the typed
+ * directory that start with the typed name, then fills up with fuzzy matches anywhere in the
+ * tree until its time budget is spent.
+ *
+ * @author Julius Krah
+ */
+public class PathIndex implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(PathIndex.class);
+    private static final char LAST = '\uffff';
+    // Checking the clock on every entry would cost more than matching it
+    private static final int ENTRIES_PER_CLOCK_CHECK = 256;
+    private final Path root;
+    private final int maxEntries;
+    private final NavigableSet<String> entries = new ConcurrentSkipListSet<>(
+            Comparator.comparing((String entry) -> entry, String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(Comparator.naturalOrder()));
+    // ConcurrentSkipListSet.size() walks the whole set
+    private final AtomicInteger size = new AtomicInteger();
+    private final Map<String, GitIgnore> ignores = new ConcurrentHashMap<>();
+    private final Map<WatchKey, String> watched = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile boolean closed;
+    @Nullable
+    private volatile WatchService watchService;
+    @Nullable
+    private Thread worker;
+
+    /**
+     * @param root the directory to index
+     * @param maxEntries the most files and directories kept
+     */
+    public PathIndex(Path root, int maxEntries) {
+        this.root = root.toAbsolutePath().normalize();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Builds the index and then watches for changes on a background thread.
+     */
+    public synchronized void start() {
+        if (worker == null) {
+            worker = Thread.ofVirtual().name("path-index").start(this::run);
+        }
+    }
+
+    /**
+     * @return the indexed directory
+     */
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * @return whether the first build has finished; until then lookups see a partial tree
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @param query a path relative to the root, as typed so far
+     * @param limit the most entries returned
+     * @param budget the time after which fuzzy matching stops
+     * @return entries in the directory of {@code query} starting with its last segment,
+     *         followed by the best fuzzy matches found within {@code budget}
+     */
+    public List<String> complete(String query, int limit, Duration budget) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        var results = new ArrayList<String>(prefixMatches(query, limit));
+        if (results.size() < limit && !query.isEmpty() && !query.endsWith("/")) {
+            for (var match : fuzzyMatches(query, limit, deadline)) {
+                if (results.size() >= limit) {
+                    break;
+                }
+                if (!results.contains(match)) {
+                    results.add(match);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return the entries of the directory of {@code query} that start with its last
+     *         segment, ignoring case, without descending into subdirectories
+     */
+    List<String> prefixMatches(String query, int limit) {
+        int segment = query.lastIndexOf('/') + 1;
+        var results = new ArrayList<String>();
+        var next = entries.ceiling(query);
+        while (next != null && results.size() < limit && next.regionMatches(true, 0, query, 0, query.length())) {
+            int slash = next.indexOf('/', segment);
+            if (slash >= 0 && slash < next.length() - 1) {
+                // Inside a subdirectory already listed; jump past its subtree
+                next = entries.higher(next.substring(0, slash + 1) + LAST);
+                continue;
+            }
+            if (next.length() > query.length()) {
+                // The typed directory itself is not a completion of it
+                results.add(next);
+            }
+            next = entries.higher(next);
+        }
+        return results;
+    }
+
+    private List<String> fuzzyMatches(String query, int limit, long deadline) {
+        record Match(String entry, int score) {
+        }
+        var matches = new ArrayList<Match>();
+        int scanned = 0;
+        for (var entry : entries) {
+            if (++scanned % ENTRIES_PER_CLOCK_CHECK == 0 && System.nanoTime() - deadline > 0) {
+                logger.debug("Fuzzy completion of '{}' stopped after {} entries", query, scanned);
+                break;
+            }
+            int score = fuzzyScore(query, entry);
+            if (score >= 0) {
+                matches.add(new Match(entry, score));
+            }
+        }
+        return matches.stream()
+                .sorted(Comparator.comparingInt(Match::score).reversed().thenComparing(Match::entry))
+                .limit(limit)
+                .map(Match::entry)
+                .toList();
+    }
+
+    /**
+     * Scores how well {@code query} matches {@code path} as a subsequence, ignoring case.
+     * Consecutive characters, characters at the start of a segment and matches within the
+     * file name score higher; long paths score lower.
+     *
+     * @return the score, or {@code -1} if not every character of {@code query} occurs in
+     *         order in {@code path}
+     */
+    static int fuzzyScore(String query, String path) {
+        int name = path.lastIndexOf('/', path.length() - 2) + 1;
+        int score = 0;
+        int run = 0;
+        int p = 0;
+        for (int q = 0; q < query.length(); q++) {
+            char c = Character.toLowerCase(query.charAt(q));
+            while (p < path.length() && Character.toLowerCase(path.charAt(p)) != c) {
+                p++;
+                run = 0;
+            }
+            if (p == path.length()) {
+                return -1;
+            }
+            run++;
+            score += run;
+            if (p == 0 || "/._- ".indexOf(path.charAt(p - 1)) >= 0) {
+                score += 3;
+            }
+            if (p >= name) {
+                score += 2;
+            }
+            p++;
+        }
+        return Math.max(0, score * 4 - path.length() / 8);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        var service = watchService;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close the watch service", e);
+            }
+        }
+        var thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            watchService = root.getFileSystem().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Cannot watch {}; the path index will not see changes", root, e);
+        }
+        long start = System.nanoTime();
+        index(root);
+        ready = true;
+        logger.debug("Indexed {} paths under {} in {} ms", size.get(), root,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+        if (watchService != null) {
+            watch(watchService);
+        }
+    }
+
+    private void watch(WatchService service) {
+        while (!closed) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException _) {
+                return;
+            }
+            var directory = watched.get(key);
+            if (directory != null) {
+                for (var event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        logger.debug("Missed changes under {}, re-indexing", root);
+                        reindex("");
+                    } else if (event.context() instanceof Path name) {
+                        changed(directory, name.toString(), event.kind());
+                    }
+                }
+            }
+            if (!key.reset()) {
+                watched.remove(key);
+            }
+        }
+    }
+
+    private void changed(String directory, String name, WatchEvent.Kind<?> kind) {
+        var path = directory + name;
+        if (".gitignore".equals(name)) {
+            // The rules changed for the whole subtree
+            reindex(directory);
+            return;
+        }
+        if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+            return;
+        }
+        remove(path);
+        removeSubtree(path + "/");
+        if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            return;
+        }
+        var file = root.resolve(path);
+        if (Files.isDirectory(file)) {
+            index(file);
+        } else if (!ignoreOf(directory).isIgnored(path, false)) {
+            add(path);
+        }
+    }
+
+    private void reindex(String directory) {
+        if (directory.isEmpty()) {
+            entries.clear();
+            size.set(0);
+            ignores.clear();
+        } else {
+            removeSubtree(directory);
+        }
+        index(root.resolve(directory));
+    }
+
+    private void removeSubtree(String directory) {
+        // The range ignores case, so it may hold other directories that differ only in case
+        for (var entry : entries.subSet(directory, true, directory + LAST, true)) {
+            if (entry.startsWith(directory)) {
+                remove(entry);
+            }
+        }
+        ignores.keySet().removeIf(key -> key.startsWith(directory));
+    }
+
+    private GitIgnore ignoreOf(String directory) {
+        var ignore = ignores.get(directory);
+        if (ignore != null || directory.isEmpty()) {
+            return ignore != null ? ignore : GitIgnore.EMPTY;
+        }
+        return ignoreOf(parent(directory));
+    }
+
+    /**
+     * Adds {@code start} and everything under it that is not ignored.
+     */
+    private void index(Path start) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (closed) {
+                        return FileVisitResult.TERMINATE;
+                    }
+                    var relative = relativize(dir);
+                    var directory = relative.isEmpty() ? "" : relative + "/";
+                    if (!relative.isEmpty()) {
+                        var parent = ignoreOf(parent(directory));
+                        if (".git".equals(dir.getFileName().toString()) || parent.isIgnored(relative, true)) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        if (!add(directory)) {
+                            return FileVisitResult.TERMINATE;
+                        }
+                    }
+                    ignores.put(directory, ignoreOf(parent(directory)).with(relative, dir.resolve(".gitignore")));
+                    register(dir, directory);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    var relative = relativize(file);
+                    if (!ignoreOf(parent(relative)).isIgnored(relative, false) && !add(relative)) {
+                        return FileVisitResult.TERMINATE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    logger.debug("Cannot index {}", file, e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            logger.debug("Failed to index {}", start, e);
+        }
+    }
+
+    private boolean add(String entry) {
+        if (size.get() >= maxEntries) {
+            logger.debug("Stopped indexing {} at {} paths", root, maxEntries);
+            return false;
+        }
+        if (entries.add(entry)) {
+            size.incrementAndGet();
+        }
+        return true;
+    }
+
+    private void remove(String entry) {
+        if (entries.remove(entry)) {
+            size.decrementAndGet();
+        }
+    }
+
+    private void register(Path dir, String directory) {
+        var service = watchService;
+        if (service == null) {
+            return;
+        }
+        try {
+            watched.put(dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), directory);
+        } catch (IOException | ClosedWatchServiceException e) {
+            // Most likely out of inotify watches; the index still serves what it has
+            logger.debug("Cannot watch {}", dir, e);
+        }
+    }
+
+    private String relativize(Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * @return the directory containing {@code path}, ending with {@code /}, or empty for
+     *         the root
+     */
+    private static String parent(String path) {
+        int end = path.endsWith("/") ? path.length() - 1 : path.length();
+        return path.substring(0, path.lastIndexOf('/', end - 1) + 1);
+    }
+}
@@ -87,11 +87,11 @@ public class PromptParser {
     private String processFilePath(String filePath, List<Path> filePaths, String textContent, String matchedText) {
         try {
             Path resolvedPath = resolvePath(filePath);
-            if (isValidImageFile(resolvedPath)) {
+            if (isSupportedFile(resolvedPath)) {
                 filePaths.add(resolvedPath);
-                logger.debug("Found image file: {}", resolvedPath);
+                logger.debug("Found attachment: {}", resolvedPath);
             } else {
-                logger.warn("File does not exist or is not a supported image: {}", resolvedPath);
+                logger.warn("File does not exist or is not a supported image or document: {}", resolvedPath);
             }
         } catch (Exception e) {
             logger.warn("Invalid file path: {}", filePath, e);
@@ -119,18 +119,19 @@ public class PromptParser {
     }
     
     /**
-     * Checks if a path points to a valid image file.
+     * Checks if a path points to an image or a document that can be attached.
      * 
      * @param path the path to check
-     * @return true if the path is a valid image file, false otherwise
+     * @return true if the path is a supported file, false otherwise
      */
-    private boolean isValidImageFile(Path path) {
+    private boolean isSupportedFile(Path path) {
         if (!Files.exists(path) || !Files.isRegularFile(path)) {
             return false;
         }
         
         String fileName = path.getFileName().toString().toLowerCase();
-        return fileName.endsWith(".jpg") || 
+        return DocumentAttachmentIndex.isSupported(path) ||
+               fileName.endsWith(".jpg") || 
                fileName.endsWith(".jpeg") || 
                fileName.endsWith(".png") || 
                fileName.endsWith(".gif") || 
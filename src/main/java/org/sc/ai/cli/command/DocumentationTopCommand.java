@@ -28,6 +28,7 @@ import picocli.CommandLine.Parameters;
 }, mixinStandardHelpOptions = true, subcommands = {
         DocumentationChatCommand.class,
         DocumentationConfigCommand.class,
+        DocumentationDaemonCommand.class,
         CommandLine.HelpCommand.class,
         DocumentationRagCommand.class,
 })
@@ -173,6 +174,66 @@ class DocumentationConfigInitCommand implements Runnable {
     }
 }
 
+@Command(name = "daemon", description = {
+        "Manage the background daemon.",
+        "",
+        "The daemon keeps the application context, connection pools and vector store",
+        "resident, so that one-shot chats skip JVM and Spring startup. While it runs,",
+        "`sc chat \"...\"` and piped `sc chat` are forwarded to it over a Unix domain",
+        "socket in the configuration directory. Interactive chat and prompts with",
+        "@file attachments still run locally.",
+        "",
+        "The daemon stops after `sc.daemon.idle-timeout` (default 30m) without requests.",
+        "",
+        "Examples:",
+        "  sc daemon start",
+        "  sc chat \"Hello\"",
+        "  sc daemon status",
+        "  sc daemon stop"
+}, mixinStandardHelpOptions = true, subcommands = {
+        DocumentationDaemonStartCommand.class,
+        DocumentationDaemonStopCommand.class,
+        DocumentationDaemonStatusCommand.class,
+})
+class DocumentationDaemonCommand implements Runnable {
+    @Override
+    public void run() {
+        // Documentation only
+    }
+}
+
+@Command(name = "start", description = {
+        "Start the daemon in the background.",
+        "Output is written to daemon.log in the configuration directory."
+}, mixinStandardHelpOptions = true)
+class DocumentationDaemonStartCommand implements Runnable {
+    @Option(names = { "--foreground" }, description = {
+            "Run the daemon in this process instead of in the background."
+    })
+    private boolean foreground;
+
+    @Override
+    public void run() {
+        // Documentation only
+    }
+}
+
+@Command(name = "stop", description = "Stop the daemon.", mixinStandardHelpOptions = true)
+class DocumentationDaemonStopCommand implements Runnable {
+    @Override
+    public void run() {
+        // Documentation only
+    }
+}
+
+@Command(name = "status", description = "Show whether the daemon is running.", mixinStandardHelpOptions = true)
+class DocumentationDaemonStatusCommand implements Runnable {
+    @Override
+    public void run() {
+        // Documentation only
+    }
+}
+
 @Command(name = "rag", description = {
         "Interact with the RAG (Retrieval-Augmented Generation) system.",
         """
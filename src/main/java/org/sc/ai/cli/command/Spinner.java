@@ -1,15 +1,18 @@
 package org.sc.ai.cli.command;
 
 import java.io.PrintWriter;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * A simple terminal spinner for indicating background processing.
  * The spinner only starts after a delay to avoid flashing for quick operations.
+ * The message may be a supplier, which is asked again on every frame, so the spinner can
+ * render live progress. All spinners are animated by one shared daemon thread.
  * 
  * @author Julius Krah
  */
@@ -21,15 +24,34 @@ public class Spinner {
     private final PrintWriter writer;
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
     private final AtomicBoolean shouldStart = new AtomicBoolean(false);
-    private ScheduledExecutorService scheduler;
     private ScheduledFuture<?> spinnerTask;
     private ScheduledFuture<?> startTask;
-    private final String message;
+    private final Supplier<String> message;
     private volatile boolean hasStarted = false;
+    private int lastWidth;
+
+    /**
+     * Created on first use, so commands that never spin do not start the thread.
+     */
+    private static final class Scheduler {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "spinner-thread");
+            t.setDaemon(true);
+            return t;
+        });
+    }
     
     public Spinner(PrintWriter writer, String message) {
+        this(writer, () -> message != null ? message : "Processing");
+    }
+
+    /**
+     * @param writer where the spinner is drawn
+     * @param message supplies the text next to the spinner on each frame
+     */
+    public Spinner(PrintWriter writer, Supplier<String> message) {
         this.writer = writer;
-        this.message = message != null ? message : "Processing";
+        this.message = message;
     }
     
     /**
@@ -37,30 +59,28 @@ public class Spinner {
      */
     public void start() {
         if (shouldStart.compareAndSet(false, true)) {
-            scheduler = new ScheduledThreadPoolExecutor(1, r -> {
-                Thread t = new Thread(r, "spinner-thread");
-                t.setDaemon(true);
-                return t;
-            });
-            
             // Schedule the spinner to start after a delay
-            startTask = scheduler.schedule(() -> {
-                if (shouldStart.get() && isRunning.compareAndSet(false, true)) {
-                    hasStarted = true;
-                    startSpinnerAnimation();
-                }
-            }, START_DELAY, TimeUnit.MILLISECONDS);
+            startTask = Scheduler.INSTANCE.schedule(this::startSpinnerAnimation, START_DELAY, TimeUnit.MILLISECONDS);
         }
     }
     
-    private void startSpinnerAnimation() {
-        spinnerTask = scheduler.scheduleAtFixedRate(() -> {
-            if (isRunning.get()) {
-                String spinnerChar = SPINNER_CHARS[(int) (System.currentTimeMillis() / SPINNER_DELAY) % SPINNER_CHARS.length];
-                writer.print("\r" + spinnerChar + " " + message);
-                writer.flush();
-            }
-        }, 0, SPINNER_DELAY, TimeUnit.MILLISECONDS);
+    private synchronized void startSpinnerAnimation() {
+        if (shouldStart.get() && isRunning.compareAndSet(false, true)) {
+            hasStarted = true;
+            spinnerTask = Scheduler.INSTANCE.scheduleAtFixedRate(this::render, 0, SPINNER_DELAY,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void render() {
+        if (isRunning.get()) {
+            String spinnerChar = SPINNER_CHARS[(int) (System.currentTimeMillis() / SPINNER_DELAY) % SPINNER_CHARS.length];
+            String line = spinnerChar + " " + message.get();
+            // Pad over the previous frame in case this one is shorter
+            writer.print("\r" + line + " ".repeat(Math.max(0, lastWidth - line.length())));
+            writer.flush();
+            lastWidth = line.length();
+        }
     }
     
     /**
@@ -70,28 +90,18 @@ public class Spinner {
         shouldStart.set(false);
         
         if (startTask != null) {
-            startTask.cancel(true);
-        }
-        
-        if (isRunning.compareAndSet(true, false)) {
-            if (spinnerTask != null) {
-                spinnerTask.cancel(true);
-            }
-            
-            if (hasStarted) {
-                clearLine();
-            }
+            startTask.cancel(false);
         }
         
-        if (scheduler != null) {
-            scheduler.shutdown();
-            try {
-                if (!scheduler.awaitTermination(100, TimeUnit.MILLISECONDS)) {
-                    scheduler.shutdownNow();
+        synchronized (this) {
+            if (isRunning.compareAndSet(true, false)) {
+                if (spinnerTask != null) {
+                    spinnerTask.cancel(false);
+                }
+
+                if (hasStarted) {
+                    clearLine();
                 }
-            } catch (InterruptedException _) {
-                scheduler.shutdownNow();
-                Thread.currentThread().interrupt();
             }
         }
     }
@@ -100,7 +110,7 @@ public class Spinner {
         // Move cursor to beginning of line and clear it
         writer.print("\r");
         // Write spaces to overwrite the spinner text
-        writer.print(" ".repeat(message.length() + 10)); // Extra spaces to ensure clearing
+        writer.print(" ".repeat(lastWidth));
         // Move cursor back to beginning
         writer.print("\r");
         writer.flush();
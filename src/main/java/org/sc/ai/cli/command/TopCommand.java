@@ -2,8 +2,11 @@ package org.sc.ai.cli.command;
 
 import org.sc.ai.cli.chat.ChatCommand;
 import org.sc.ai.cli.config.ConfigCommand;
+import org.sc.ai.cli.daemon.DaemonCommand;
 import org.sc.ai.cli.rag.RagCommand;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import picocli.CommandLine;
@@ -12,6 +15,8 @@ import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Spec;
 
 @Component
+// The provider mixin set by --base-url must not outlive one daemon request
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Command(
     name = "sc",
     description = "A runtime for AI chatbots",
@@ -20,6 +25,7 @@ import picocli.CommandLine.Spec;
     subcommands = {
         ChatCommand.class,
         ConfigCommand.class,
+        DaemonCommand.class,
         CommandLine.HelpCommand.class,
         RagCommand.class,
     }
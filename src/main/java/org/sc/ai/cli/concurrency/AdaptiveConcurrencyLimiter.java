@@ -0,0 +1,210 @@
+package org.sc.ai.cli.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.util.Assert;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limits the number of calls in flight to a model server, adjusting the limit with
+ * additive-increase/multiplicative-decrease (AIMD).
+ *
+ * <p>Each call that completes without error and without exceeding {@code tolerance} times
+ * the baseline latency grows the limit by {@code 1 / limit}, so a full window of
+ * successful calls adds one. A failed or slow call multiplies the limit by
+ * {@code backoff}. The baseline is a slowly moving average of observed latencies, so the
+ * limit settles where queueing on the server starts to show up as latency. Callers over
+ * the limit wait in {@link #acquire()}.
+ *
+ * @author Julius Krah
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double BASELINE_SMOOTHING = 0.05;
+    private final Settings settings;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double baselineNanos;
+
+    /**
+     * @param initialLimit the limit before any latency is observed
+     * @param minLimit the limit never drops below this
+     * @param maxLimit the limit never grows beyond this
+     * @param backoff the factor applied to the limit on a failed or slow call
+     * @param tolerance how many times the baseline latency a call may take before it
+     *        counts as slow
+     */
+    public record Settings(int initialLimit, int minLimit, int maxLimit, double backoff, double tolerance) {
+        public Settings {
+            Assert.isTrue(minLimit >= 1, "minLimit must be at least 1");
+            Assert.isTrue(minLimit <= initialLimit && initialLimit <= maxLimit,
+                    "initialLimit must be between minLimit and maxLimit");
+            Assert.isTrue(backoff > 0 && backoff < 1, "backoff must be between 0 and 1");
+            Assert.isTrue(tolerance >= 1, "tolerance must be at least 1");
+        }
+    }
+
+    /**
+     * A granted slot. Exactly one of the completion methods releases it.
+     */
+    public final class Permit {
+        private final long start = System.nanoTime();
+        private boolean released;
+
+        private Permit() {
+        }
+
+        /**
+         * The call succeeded; its latency is measured from {@link #acquire()}.
+         */
+        public void success() {
+            success(Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        /**
+         * The call succeeded with the given latency, such as the time to first token of a
+         * stream.
+         *
+         * @param latency the observed latency
+         */
+        public void success(Duration latency) {
+            release(this, Outcome.SUCCESS, latency.toNanos());
+        }
+
+        /**
+         * The call failed in a way that suggests the server is overloaded.
+         */
+        public void dropped() {
+            release(this, Outcome.DROPPED, 0);
+        }
+
+        /**
+         * The call ended without telling anything about the server, such as a cancelled
+         * stream.
+         */
+        public void ignore() {
+            release(this, Outcome.IGNORED, 0);
+        }
+    }
+
+    private enum Outcome {
+        SUCCESS, DROPPED, IGNORED
+    }
+
+    /**
+     * @param name tags the meters, e.g. {@code chat} or {@code embedding}
+     * @param settings the limit bounds and AIMD parameters
+     * @param meterRegistry registry for the limit, in-flight and queue-depth gauges
+     */
+    public AdaptiveConcurrencyLimiter(String name, Settings settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.limit = settings.initialLimit();
+        Gauge.builder("sc.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("sc.limiter.in-flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("sc.limiter.queue", this, AdaptiveConcurrencyLimiter::getWaiting)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waits until a call may start.
+     *
+     * @return the permit to complete once the call ends
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Permit acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            waiting++;
+            try {
+                while (inFlight >= (int) limit) {
+                    available.await();
+                }
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Permit permit, Outcome outcome, long latencyNanos) {
+        lock.lock();
+        try {
+            if (permit.released) {
+                return;
+            }
+            permit.released = true;
+            int previous = (int) limit;
+            switch (outcome) {
+                case SUCCESS -> onSuccess(latencyNanos);
+                case DROPPED -> limit = Math.max(settings.minLimit(), limit * settings.backoff());
+                case IGNORED -> {
+                    // Leave the limit alone
+                }
+            }
+            inFlight--;
+            if ((int) limit > previous) {
+                available.signalAll();
+            } else {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSuccess(long latencyNanos) {
+        if (baselineNanos == 0) {
+            baselineNanos = latencyNanos;
+            return;
+        }
+        boolean slow = latencyNanos > baselineNanos * settings.tolerance();
+        baselineNanos += BASELINE_SMOOTHING * (latencyNanos - baselineNanos);
+        if (slow) {
+            limit = Math.max(settings.minLimit(), limit * settings.backoff());
+        } else if (inFlight >= (int) limit / 2) {
+            // Only grow while the limit is actually being used
+            limit = Math.min(settings.maxLimit(), limit + 1 / limit);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.sc.ai.cli.concurrency;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Puts an {@link AdaptiveConcurrencyLimiter} in front of the chat model and another in
+ * front of the embedding model, whichever provider backs them. The two are limited
+ * separately because an embedding batch and a chat completion load the server very
+ * differently.
+ *
+ * @author Julius Krah
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "sc.limiter.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfiguration {
+
+    /**
+     * Static, and resolving its dependencies lazily, so that registering it does not
+     * initialise other beans early.
+     */
+    @Bean
+    static BeanPostProcessor concurrencyLimitingBeanPostProcessor(Environment environment,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                return switch (bean) {
+                    case ConcurrencyLimitedChatModel _, ConcurrencyLimitedEmbeddingModel _ -> bean;
+                    case ChatModel chatModel -> new ConcurrencyLimitedChatModel(chatModel,
+                            limiter("chat", environment, meterRegistry.getObject()));
+                    case EmbeddingModel embeddingModel -> new ConcurrencyLimitedEmbeddingModel(embeddingModel,
+                            limiter("embedding", environment, meterRegistry.getObject()));
+                    default -> bean;
+                };
+            }
+        };
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(String name, Environment environment,
+            MeterRegistry meterRegistry) {
+        var prefix = "sc.limiter." + name + ".";
+        var settings = new AdaptiveConcurrencyLimiter.Settings(
+                environment.getProperty(prefix + "initial-limit", Integer.class, 4),
+                environment.getProperty(prefix + "min-limit", Integer.class, 1),
+                environment.getProperty(prefix + "max-limit", Integer.class, 32),
+                environment.getProperty("sc.limiter.backoff", Double.class, 0.9),
+                environment.getProperty("sc.limiter.tolerance", Double.class, 2.0));
+        return new AdaptiveConcurrencyLimiter(name, settings, meterRegistry);
+    }
+}
@@ -0,0 +1,63 @@
+package org.sc.ai.cli.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.lang.NonNull;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A {@link ChatModel} that waits for an {@link AdaptiveConcurrencyLimiter} permit before
+ * each call. A stream holds its permit until it ends, and its latency is the time to the
+ * first chunk, since generation time depends on the length of the answer.
+ *
+ * @author Julius Krah
+ */
+public class ConcurrencyLimitedChatModel implements ChatModel {
+    private final ChatModel delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitedChatModel(ChatModel delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    @NonNull
+    public ChatResponse call(@NonNull Prompt prompt) {
+        var permit = Permits.acquire(limiter);
+        try {
+            var response = delegate.call(prompt);
+            permit.success();
+            return response;
+        } catch (RuntimeException e) {
+            permit.dropped();
+            throw e;
+        }
+    }
+
+    @Override
+    @NonNull
+    public Flux<ChatResponse> stream(@NonNull Prompt prompt) {
+        // Waiting for a permit blocks, so it must not happen on an event loop thread
+        return Flux.using(limiter::acquire, permit -> {
+            long start = System.nanoTime();
+            var firstChunk = new AtomicLong();
+            return delegate.stream(prompt)
+                    .doOnNext(_ -> firstChunk.compareAndSet(0, System.nanoTime() - start))
+                    .doOnComplete(() -> permit.success(Duration.ofNanos(firstChunk.get())))
+                    .doOnError(_ -> permit.dropped());
+        }, AdaptiveConcurrencyLimiter.Permit::ignore).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+}
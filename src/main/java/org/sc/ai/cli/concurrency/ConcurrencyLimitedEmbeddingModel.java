@@ -0,0 +1,57 @@
+package org.sc.ai.cli.concurrency;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.lang.NonNull;
+
+/**
+ * An {@link EmbeddingModel} that waits for an {@link AdaptiveConcurrencyLimiter} permit
+ * before each call. Batched embedding goes through {@link #call(EmbeddingRequest)}, so each
+ * batch takes one permit.
+ *
+ * @author Julius Krah
+ */
+public class ConcurrencyLimitedEmbeddingModel implements EmbeddingModel {
+    private final EmbeddingModel delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitedEmbeddingModel(EmbeddingModel delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    @NonNull
+    public EmbeddingResponse call(@NonNull EmbeddingRequest request) {
+        var permit = Permits.acquire(limiter);
+        try {
+            var response = delegate.call(request);
+            permit.success();
+            return response;
+        } catch (RuntimeException e) {
+            permit.dropped();
+            throw e;
+        }
+    }
+
+    @Override
+    @NonNull
+    public float[] embed(@NonNull Document document) {
+        var permit = Permits.acquire(limiter);
+        try {
+            var embedding = delegate.embed(document);
+            permit.success();
+            return embedding;
+        } catch (RuntimeException e) {
+            permit.dropped();
+            throw e;
+        }
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
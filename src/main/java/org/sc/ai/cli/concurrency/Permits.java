@@ -0,0 +1,22 @@
+package org.sc.ai.cli.concurrency;
+
+/**
+ * @author Julius Krah
+ */
+final class Permits {
+
+    private Permits() {
+    }
+
+    /**
+     * Acquires a permit for a blocking model call, which cannot throw checked exceptions.
+     */
+    static AdaptiveConcurrencyLimiter.Permit acquire(AdaptiveConcurrencyLimiter limiter) {
+        try {
+            return limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to call the model", e);
+        }
+    }
+}
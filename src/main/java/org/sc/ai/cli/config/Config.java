@@ -1,6 +1,7 @@
 package org.sc.ai.cli.config;
 
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -47,32 +48,53 @@ public record Config(
     public record CassandraMemorySettings(List<URI> contactPoints, String keyspace) implements ChatMemory {
     }
 
-    public sealed interface ChatMemory permits JdbcMemorySettings, CassandraMemorySettings {
+    /**
+     * Embedded append-only store with one segment file per conversation.
+     */
+    public record FileMemorySettings(Path directory) implements ChatMemory {
+    }
+
+    public sealed interface ChatMemory permits JdbcMemorySettings, CassandraMemorySettings, FileMemorySettings {
     }
 
     // ChatMemory wrapper
-    public record ChatMemorySettings(JdbcMemorySettings jdbc, CassandraMemorySettings cassandra) {
+    public record ChatMemorySettings(JdbcMemorySettings jdbc, CassandraMemorySettings cassandra,
+            FileMemorySettings file) {
         /**
          * Resolves the chat memory configuration.
          * 
          * @return the configured ChatMemory instance, or null if no memory is
          *         configured.
-         * @throws IllegalStateException if both jdbc and cassandra are set.
+         * @throws IllegalStateException if more than one of jdbc, cassandra and file is set.
          */
         public ChatMemory resolve() {
             if (jdbc != null && cassandra != null) {
                 throw new IllegalStateException("Only one of 'jdbc' or 'cassandra' must be set.");
             }
+            if (file != null && (jdbc != null || cassandra != null)) {
+                throw new IllegalStateException("Only one of 'jdbc', 'cassandra' or 'file' must be set.");
+            }
             if (jdbc != null)
                 return jdbc;
             if (cassandra != null)
                 return cassandra;
+            if (file != null)
+                return file;
             return null; // No chat memory configured
         }
     }
 
+    /**
+     * @param baseUrl the provider endpoint
+     * @param endpoints further endpoints serving the same models; requests are balanced
+     *        across these and {@code baseUrl}
+     * @param model the default model
+     * @param options provider-specific options, such as {@code keep-alive} for Ollama: how
+     *        long a model stays loaded after its last request
+     */
     public record ProviderSettings(
             URI baseUrl,
+            List<URI> endpoints,
             String model,
             Map<String, String> options) {
     }
@@ -4,13 +4,21 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
 import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.HashMap;
 
@@ -29,6 +37,14 @@ import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.TypeDescription;
 
 /**
+ * Reads and writes the YAML configuration file.
+ *
+ * <p>The parsed file is cached and reused for as long as its modification time, size and
+ * file key are unchanged, so repeated reads in the REPL or in scripts only cost a
+ * {@code stat}. Writes are validated in memory, written to a temporary file and renamed
+ * over the configuration atomically, while holding a lock on {@code config.lock} so that
+ * concurrent {@code sc} processes do not lose each other's updates.
+ *
  * @author Julius Krah
  */
 @Service
@@ -37,14 +53,27 @@ public class ConfigService {
     @Value("${sc.config.dir:}")
     private PathResource configDirectory;
     private static final String CONFIG_FILE_NAME = "config";
+    private static final String LOCK_FILE_NAME = "config.lock";
+    // File locks are held per process, so threads in this one also take this lock
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    /**
+     * The flattened configuration as of a version of the file.
+     */
+    private record Snapshot(Path file, FileTime lastModified, long size, Object fileKey, Map<String, String> values) {
+
+        boolean matches(Path file, BasicFileAttributes attributes) {
+            return this.file.equals(file) && lastModified.equals(attributes.lastModifiedTime())
+                    && size == attributes.size() && Objects.equals(fileKey, attributes.fileKey());
+        }
+    }
 
     private Config loadYamlAsBean() {
-        Yaml yaml = getYaml(construct());
-        yaml.setBeanAccess(org.yaml.snakeyaml.introspector.BeanAccess.FIELD);
         String filePath = getFilePath();
         if (filePath != null) {
             try (InputStream in = Files.newInputStream(Path.of(filePath))) {
-                return yaml.load(in);
+                return beanYaml().load(in);
             } catch (IOException e) {
                 logger.warn("Could not load config file", e);
             }
@@ -52,6 +81,12 @@ public class ConfigService {
         return null;
     }
 
+    private Yaml beanYaml() {
+        Yaml yaml = getYaml(construct());
+        yaml.setBeanAccess(org.yaml.snakeyaml.introspector.BeanAccess.FIELD);
+        return yaml;
+    }
+
     private Config.ProviderType getProviderType(String provider) {
         return switch (provider.toLowerCase()) {
             case "ollama" -> Config.ProviderType.OLLAMA;
@@ -72,11 +107,14 @@ public class ConfigService {
                 Map<String, Object> settings = (Map<String, Object>) value;
                 Config.ProviderType providerType = getProviderType(key);
                 URI baseUrl = null;
+                List<URI> endpoints = List.of();
                 String model = null;
                 Map<String, String> options = new java.util.HashMap<>();
                 for (var element : settings.entrySet()) {
                     if ("base-url".equals(element.getKey())) {
                         baseUrl = URI.create(element.getValue().toString());
+                    } else if ("endpoints".equals(element.getKey()) && element.getValue() instanceof List<?> list) {
+                        endpoints = list.stream().map(endpoint -> URI.create(endpoint.toString())).toList();
                     } else if ("model".equals(element.getKey())) {
                         model = element.getValue().toString();
                     } else if ("options".equals(element.getKey()) && element.getValue() instanceof Map<?, ?> optMap) {
@@ -89,7 +127,7 @@ public class ConfigService {
                         }
                     }
                 }
-                providerSettingsMap.put(providerType, new Config.ProviderSettings(baseUrl, model, options));
+                providerSettingsMap.put(providerType, new Config.ProviderSettings(baseUrl, endpoints, model, options));
             }
         }
         return providerSettingsMap;
@@ -98,6 +136,7 @@ public class ConfigService {
     private Config.ChatMemorySettings getChatMemorySettings(Map<String, Object> map) {
         Config.JdbcMemorySettings jdbcMemorySettings = null;
         Config.CassandraMemorySettings cassandraMemorySettings = null;
+        Config.FileMemorySettings fileMemorySettings = null;
 
         if (map.containsKey("jdbc")) {
             @SuppressWarnings("unchecked")
@@ -118,7 +157,13 @@ public class ConfigService {
             }
             cassandraMemorySettings = new Config.CassandraMemorySettings(contactPoints, keyspace);
         }
-        return new Config.ChatMemorySettings(jdbcMemorySettings, cassandraMemorySettings);
+        if (map.containsKey("file")) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> fileMap = (Map<String, Object>) map.get("file");
+            var directory = fileMap.containsKey("directory") ? Path.of(fileMap.get("directory").toString()) : null;
+            fileMemorySettings = new Config.FileMemorySettings(directory);
+        }
+        return new Config.ChatMemorySettings(jdbcMemorySettings, cassandraMemorySettings, fileMemorySettings);
     }
 
     private Yaml getYaml(Constructor constructor) {
@@ -175,25 +220,113 @@ public class ConfigService {
         return new java.util.HashMap<>();
     }
 
-    private void saveToYaml(Map<String, Object> props) {
+    private String dumpYaml(Map<String, Object> props) {
         DumperOptions options = new DumperOptions();
         options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
         options.setPrettyFlow(true);
+        return new Yaml(options).dump(props);
+    }
+
+    /**
+     * Replaces the configuration file with {@code content} in one rename, so readers see
+     * either the old or the new file, never a partial one. A symlinked configuration file
+     * keeps its link: the file it points to is replaced, with the permissions it had.
+     */
+    private void saveToYaml(Path configFile, String content) throws IOException {
+        Path target = Files.exists(configFile) ? configFile.toRealPath() : configFile;
+        Path tempFile = Files.createTempFile(target.getParent(), CONFIG_FILE_NAME, ".tmp");
+        try {
+            if (Files.exists(target) && Files.getFileStore(target).supportsFileAttributeView("posix")) {
+                Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(target));
+            }
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writer.write(content);
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException _) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
 
-        Yaml yaml = new Yaml(options);
+    /**
+     * @return the flattened configuration, parsed again only when the file has changed
+     */
+    private Map<String, String> loadFlattened() {
+        String filePath = getFilePath();
+        if (filePath == null) {
+            return Map.of();
+        }
+        Path file = Path.of(filePath);
+        try {
+            var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            var cached = snapshot;
+            if (cached != null && cached.matches(file, attributes)) {
+                return cached.values();
+            }
+            var values = Map.copyOf(flattenMap(loadYamlAsMap()));
+            snapshot = new Snapshot(file, attributes.lastModifiedTime(), attributes.size(), attributes.fileKey(),
+                    values);
+            return values;
+        } catch (NoSuchFileException _) {
+            return Map.of();
+        } catch (IOException e) {
+            logger.warn("Could not read config file attributes", e);
+            return flattenMap(loadYamlAsMap());
+        }
+    }
 
+    /**
+     * Applies {@code change} to the flattened configuration and writes the result, holding
+     * the configuration lock throughout.
+     *
+     * @param change the modification to apply
+     * @param validate whether to check the result parses as a {@link Config} first
+     */
+    private void update(Consumer<Map<String, String>> change, boolean validate) {
+        writeLock.lock();
         try {
             Path configPath = getConfigPath();
             if (Files.notExists(configPath)) {
                 Files.createDirectories(configPath);
             }
-            Path configFile = configPath.resolve(CONFIG_FILE_NAME);
-            try (Writer writer = Files.newBufferedWriter(configFile, StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING)) {
-                yaml.dump(props, writer);
+            try (var lockChannel = FileChannel.open(configPath.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+                    var _ = lockChannel.lock()) {
+                Map<String, String> flattenedMap = new HashMap<>(loadFlattened());
+                change.accept(flattenedMap);
+                String content = dumpYaml(unflattenMap(flattenedMap));
+                if (validate) {
+                    validate(content);
+                }
+                saveToYaml(configPath.resolve(CONFIG_FILE_NAME), content);
             }
         } catch (IOException e) {
             logger.warn("Could not save config file", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void validate(String content) {
+        try {
+            Config config = beanYaml().load(content);
+            if (config != null && config.chatMemory() != null) {
+                config.chatMemory().resolve(); // Validate the chat memory configuration
+            }
+        } catch (IllegalStateException ex) {
+            if(logger.isErrorEnabled()) {
+                logger.error("Failed to update configuration", ex);
+            }
+            throw ex;
+        } catch (ConstructorException ex) {
+            if(logger.isErrorEnabled()) {
+                logger.error("Failed to update configuration", ex);
+            }
+            throw ex.getCause() instanceof IllegalArgumentException ia ? ia : new RuntimeException(ex);
         }
     }
 
@@ -312,65 +445,27 @@ public class ConfigService {
     }
 
     public Map<String, String> list() {
-        Map<String, Object> map = loadYamlAsMap();
-        return flattenMap(map);
+        return new HashMap<>(loadFlattened());
     }
 
     public String get(String key) {
-        Map<String, Object> map = loadYamlAsMap();
-        Map<String, String> flattenedMap = flattenMap(map);
-        return flattenedMap.get(key);
+        return loadFlattened().get(key);
     }
 
     /**
-     * Sets the configuration values.
+     * Sets the configuration values. The file is only written if the result is a valid
+     * configuration.
      *
      * @param values The map of configuration values to set
-     * @throws IllegalStateException    if the configuration file cannot be saved
+     * @throws IllegalStateException    if the resulting configuration is inconsistent
      * @throws IllegalArgumentException if the configuration key is invalid
      */
     public void set(Map<String, String> values) {
-        Map<String, Object> currentMap = loadYamlAsMap();
-        Map<String, String> flattenedMap = flattenMap(currentMap);
-
-        // Update the flattened map with the new values
-        flattenedMap.putAll(values);
-
-        // Convert back to nested structure and save
-        Map<String, Object> updatedMap = unflattenMap(flattenedMap);
-        saveToYaml(updatedMap);
-        try {
-            Config config = loadYamlAsBean();
-            if (config != null && config.chatMemory() != null) {
-                config.chatMemory().resolve(); // Validate the chat memory configuration
-            }
-        } catch (IllegalStateException ex) {
-            if(logger.isErrorEnabled()) {
-                logger.error("Failed to update configuration", ex);
-            }
-            // Rollback the changes if an error occurs
-            unset(values.keySet().stream().toList());
-            throw ex;
-        } catch (ConstructorException ex) {
-            if(logger.isErrorEnabled()) {
-                logger.error("Failed to update configuration", ex);
-            }
-            // Rollback the changes if an error occurs
-            unset(values.keySet().stream().toList());
-            throw ex.getCause() instanceof IllegalArgumentException ia ? ia : new RuntimeException(ex);
-        }
+        update(flattenedMap -> flattenedMap.putAll(values), true);
     }
 
     public void unset(List<String> keys) {
-        Map<String, Object> currentMap = loadYamlAsMap();
-        Map<String, String> flattenedMap = flattenMap(currentMap);
-
-        // Remove the specified keys
-        keys.forEach(flattenedMap::remove);
-
-        // Convert back to nested structure and save
-        Map<String, Object> updatedMap = unflattenMap(flattenedMap);
-        saveToYaml(updatedMap);
+        update(flattenedMap -> keys.forEach(flattenedMap::remove), false);
     }
 
     String getDir() {
@@ -0,0 +1,211 @@
+package org.sc.ai.cli.daemon;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.OptionalInt;
+import java.util.Set;
+
+/**
+ * Forwards a one-shot {@code sc} invocation to a running daemon, so it skips JVM warm-up,
+ * Spring boot and the vector store load. Runs before the application context exists.
+ *
+ * <p>Only {@code sc chat MESSAGE} and piped {@code sc chat} are forwarded. Interactive chat
+ * needs the local terminal, and prompts with {@code @file} attachments are resolved against
+ * the working directory, which the daemon does not share. A {@code --base-url} runs locally
+ * too, because the daemon's models are bound to the endpoint it was started with.
+ *
+ * @author Julius Krah
+ */
+public class DaemonClient {
+    private static final String BASE_URL_OPTION = "--base-url";
+    private static final Set<String> OPTIONS_WITH_VALUE = Set.of("-m", "--model", BASE_URL_OPTION);
+    private static final Set<String> LOCAL_ONLY = Set.of("-h", "--help", "-V", "--version", "help");
+    private static final int NOT_FORWARDABLE = -2;
+    private static final int NO_MESSAGE = -1;
+    private final Path socket;
+
+    public DaemonClient(Path socket) {
+        this.socket = socket;
+    }
+
+    /**
+     * Resolves the daemon socket the same way the application resolves
+     * {@code sc.config.dir}: system property, then {@code SC_CONFIG_DIR}, then
+     * {@code ~/.sc}.
+     *
+     * @return the socket path
+     */
+    public static Path defaultSocket() {
+        var configDir = System.getProperty("sc.config.dir");
+        if (configDir == null || configDir.isBlank()) {
+            configDir = System.getenv("SC_CONFIG_DIR");
+        }
+        if (configDir == null || configDir.isBlank()) {
+            configDir = Path.of(System.getProperty("user.home"), ".sc").toString();
+        }
+        return DaemonProtocol.socketPath(configDir);
+    }
+
+    /**
+     * Turns piped standard input into the message argument of {@code sc chat}, the same
+     * way {@code ChatCommand} reads it, so that it can be forwarded. Standard input is only
+     * consumed when a daemon socket exists; the returned arguments work locally too.
+     *
+     * @param args the command line arguments
+     * @param in standard input
+     * @return the arguments, with the piped message appended if there was one
+     * @throws IOException if standard input cannot be read
+     */
+    public String[] inlineStdin(String[] args, InputStream in) throws IOException {
+        if (!Files.exists(socket) || messageIndex(args) != NO_MESSAGE || in.available() == 0) {
+            return args;
+        }
+        var message = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        var inlined = Arrays.copyOf(args, args.length + 2);
+        inlined[args.length] = "--";
+        inlined[args.length + 1] = message;
+        return inlined;
+    }
+
+    /**
+     * Forwards {@code args} to the daemon and streams its output back.
+     *
+     * @param args the command line arguments, see {@link #inlineStdin(String[], InputStream)}
+     * @param out standard output
+     * @param err standard error
+     * @return the exit code of the forwarded command, or empty if the invocation is not
+     *         forwardable or no daemon is listening
+     */
+    public OptionalInt forward(String[] args, OutputStream out, OutputStream err) {
+        if (!isForwardable(args) || !Files.exists(socket)) {
+            return OptionalInt.empty();
+        }
+        return send(args, out, err);
+    }
+
+    /**
+     * Tells the invocations the daemon can run from the ones that must run in the calling
+     * process. The daemon checks forwarded invocations with this as well.
+     *
+     * @param args the command line arguments
+     * @return whether {@code args} are {@code chat} with a message, without {@code @file}
+     *         attachments and without {@code --base-url}
+     */
+    static boolean isForwardable(String[] args) {
+        int message = messageIndex(args);
+        if (message < 0 || args[message].isBlank() || args[message].contains("@")) {
+            return false;
+        }
+        for (var arg : args) {
+            if ("--".equals(arg)) {
+                break;
+            }
+            if (BASE_URL_OPTION.equals(arg) || arg.startsWith(BASE_URL_OPTION + "=")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sends {@code args} to the daemon without checking whether they are forwardable.
+     *
+     * @return the exit code, or empty if no daemon is listening
+     */
+    OptionalInt send(String[] args, OutputStream out, OutputStream err) {
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        } catch (IOException _) {
+            // No socket, or a stale one left by a daemon that is gone
+            return OptionalInt.empty();
+        }
+        // Closing the channel, including on Ctrl+C, cancels the command on the daemon
+        try (channel) {
+            var request = new DataOutputStream(new BufferedOutputStream(DaemonProtocol.outputStream(channel)));
+            DaemonProtocol.writeRequest(request, args);
+            return OptionalInt.of(relay(new DataInputStream(DaemonProtocol.inputStream(channel)), out, err));
+        } catch (IOException e) {
+            throw new IllegalStateException("Lost connection to the sc daemon on " + socket, e);
+        }
+    }
+
+    /**
+     * @return whether a daemon accepts connections on the socket
+     */
+    boolean isRunning() {
+        try (var _ = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            return true;
+        } catch (IOException _) {
+            return false;
+        }
+    }
+
+    /**
+     * Finds the message argument of a {@code chat} invocation.
+     *
+     * @return the index of the message, {@link #NO_MESSAGE} for chat without one, or
+     *         {@link #NOT_FORWARDABLE}
+     */
+    static int messageIndex(String[] args) {
+        boolean chat = false;
+        boolean endOfOptions = false;
+        int message = NO_MESSAGE;
+        for (int i = 0; i < args.length; i++) {
+            var arg = args[i];
+            if (!endOfOptions && LOCAL_ONLY.contains(arg)) {
+                return NOT_FORWARDABLE;
+            } else if (!endOfOptions && OPTIONS_WITH_VALUE.contains(arg)) {
+                i++;
+            } else if (!endOfOptions && "--".equals(arg)) {
+                endOfOptions = true;
+            } else if (endOfOptions || !arg.startsWith("-")) {
+                if (chat) {
+                    message = i;
+                } else if ("chat".equals(arg)) {
+                    chat = true;
+                } else {
+                    return NOT_FORWARDABLE;
+                }
+            }
+        }
+        return chat ? message : NOT_FORWARDABLE;
+    }
+
+    private static int relay(DataInputStream response, OutputStream out, OutputStream err) throws IOException {
+        var buffer = new byte[8192];
+        while (true) {
+            byte type;
+            try {
+                type = response.readByte();
+            } catch (EOFException e) {
+                throw new IOException("The daemon closed the connection before the command finished", e);
+            }
+            if (type == DaemonProtocol.EXIT) {
+                return response.readInt();
+            }
+            var target = type == DaemonProtocol.STDERR ? err : out;
+            int remaining = response.readInt();
+            while (remaining > 0) {
+                int read = response.read(buffer, 0, Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Truncated frame from the daemon");
+                }
+                target.write(buffer, 0, read);
+                remaining -= read;
+            }
+            target.flush();
+        }
+    }
+}
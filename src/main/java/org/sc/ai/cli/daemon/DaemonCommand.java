@@ -0,0 +1,228 @@
+package org.sc.ai.cli.daemon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.sc.ai.cli.ChatbotApplication;
+import org.sc.ai.cli.chat.ChatService;
+import org.sc.ai.cli.chat.StreamingContext;
+import org.sc.ai.cli.command.ChatbotVersionProvider;
+import org.sc.ai.cli.command.ProviderMixin;
+import org.sc.ai.cli.command.TopCommand;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.IFactory;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+import picocli.shell.jline3.PicocliCommands;
+
+/**
+ * Manages the resident {@code sc} daemon that serves one-shot chat invocations from a warm
+ * application context.
+ *
+ * @author Julius Krah
+ */
+@Component
+@Command(name = "daemon", description = "Manage the background daemon", mixinStandardHelpOptions = true, versionProvider = ChatbotVersionProvider.class, subcommands = CommandLine.HelpCommand.class)
+public class DaemonCommand implements Runnable {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+    private final IFactory factory;
+    private final StreamingContext streamingContext;
+    private final ObjectProvider<ChatService> chatService;
+    private final Path socket;
+    private final Path log;
+    private final Duration idleTimeout;
+    private volatile DaemonServer server;
+    @Spec
+    private CommandLine.Model.CommandSpec spec;
+    @Mixin
+    private ProviderMixin providerMixin;
+
+    public DaemonCommand(IFactory factory, StreamingContext streamingContext,
+            ObjectProvider<ChatService> chatService, @Value("${sc.config.dir}") String configDir,
+            @Value("${sc.daemon.idle-timeout:30m}") Duration idleTimeout) {
+        this.factory = factory;
+        this.streamingContext = streamingContext;
+        this.chatService = chatService;
+        this.socket = DaemonProtocol.socketPath(configDir);
+        this.log = Path.of(configDir, "daemon.log");
+        this.idleTimeout = idleTimeout;
+    }
+
+    @Override
+    public void run() {
+        spec.commandLine().usage(spec.commandLine().getOut());
+    }
+
+    @Command(name = "start", description = "Start the daemon in the background", mixinStandardHelpOptions = true, versionProvider = ChatbotVersionProvider.class, subcommands = CommandLine.HelpCommand.class)
+    public void start(@Mixin ProviderMixin providerMixin,
+            @Option(names = "--foreground", description = "Run the daemon in this process") boolean foreground)
+            throws IOException {
+        var out = spec.commandLine().getOut();
+        if (server != null || new DaemonClient(socket).isRunning()) {
+            out.println("Daemon is already running on " + socket);
+            return;
+        }
+        if (foreground) {
+            serve(out);
+        } else {
+            spawn(out);
+        }
+    }
+
+    @Command(name = "stop", description = "Stop the daemon", mixinStandardHelpOptions = true, versionProvider = ChatbotVersionProvider.class, subcommands = CommandLine.HelpCommand.class)
+    public void stop(@Mixin ProviderMixin providerMixin) {
+        control("stop");
+    }
+
+    @Command(name = "status", description = "Show whether the daemon is running", mixinStandardHelpOptions = true, versionProvider = ChatbotVersionProvider.class, subcommands = CommandLine.HelpCommand.class)
+    public void status(@Mixin ProviderMixin providerMixin) {
+        control("status");
+    }
+
+    private void serve(PrintWriter out) throws IOException {
+        // Build the chat client, chat memory and vector store before the first request arrives
+        chatService.getObject();
+        server = new DaemonServer(socket, idleTimeout, this::execute, streamingContext::cancel);
+        out.println("Daemon listening on " + socket);
+        out.flush();
+        try {
+            server.serve();
+        } finally {
+            server = null;
+        }
+    }
+
+    private void spawn(PrintWriter out) throws IOException {
+        var command = new ArrayList<>(launchCommand());
+        command.addAll(List.of("daemon", "start", "--foreground"));
+        var process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()))
+                .start();
+        var client = new DaemonClient(socket);
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (client.isRunning()) {
+                out.println("Daemon started on " + socket + " (pid " + process.pid() + ")");
+                return;
+            }
+            if (!process.isAlive()) {
+                break;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(100);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new CommandLine.ExecutionException(spec.commandLine(),
+                "Daemon did not start, see " + log + " for details");
+    }
+
+    private void control(String request) {
+        var out = new ByteArrayOutputStream();
+        var err = new ByteArrayOutputStream();
+        var exitCode = new DaemonClient(socket).send(new String[] { "daemon", request }, out, err);
+        if (exitCode.isEmpty()) {
+            spec.commandLine().getOut().println("Daemon is not running.");
+            return;
+        }
+        spec.commandLine().getOut().print(out.toString(StandardCharsets.UTF_8));
+        spec.commandLine().getErr().print(err.toString(StandardCharsets.UTF_8));
+        spec.commandLine().getOut().flush();
+    }
+
+    /**
+     * Runs a forwarded invocation through the same command tree as {@link org.sc.ai.cli.CliInitializer}.
+     * {@link TopCommand} and {@link org.sc.ai.cli.chat.ChatCommand} are prototypes, so every
+     * invocation is parsed into fresh instances and no message or option carries over from
+     * the previous client.
+     *
+     * <p>Only what {@link DaemonClient#isForwardable(String[])} accepts is run, whichever
+     * client sent it. Without a message {@code chat} would read the daemon's own standard input
+     * or start a session on its terminal; the client inlines piped input as the message before
+     * forwarding. {@code @file} attachments would be read with the daemon's working directory
+     * and permissions, and a {@code --base-url} would be ignored by models already bound to the
+     * daemon's endpoint.
+     */
+    private int execute(String[] args, PrintWriter out, PrintWriter err) {
+        if (args.length > 0 && "daemon".equals(args[0])) {
+            return handleControl(args, out, err);
+        }
+        if (!DaemonClient.isForwardable(args)) {
+            err.println("The daemon only runs 'sc chat MESSAGE' without @file attachments or --base-url, got: "
+                    + String.join(" ", args));
+            return CommandLine.ExitCode.USAGE;
+        }
+        TopCommand topCommand;
+        try {
+            topCommand = factory.create(TopCommand.class);
+        } catch (Exception e) {
+            err.println("Cannot create the sc command: " + e.getMessage());
+            return CommandLine.ExitCode.SOFTWARE;
+        }
+        var commandLine = new CommandLine(topCommand, new PicocliCommands.PicocliCommandsFactory(factory));
+        commandLine.setOut(out);
+        commandLine.setErr(err);
+        return commandLine.setExecutionStrategy(ProviderMixin::executionStrategy).execute(args);
+    }
+
+    private int handleControl(String[] args, PrintWriter out, PrintWriter err) {
+        var request = args.length == 2 ? args[1] : "";
+        switch (request) {
+            case "stop" -> {
+                out.println("Daemon stopped.");
+                server.close();
+                return 0;
+            }
+            case "status" -> {
+                out.println("Daemon running on " + socket + " (pid " + ProcessHandle.current().pid()
+                        + ", idle timeout " + idleTimeout + ")");
+                return 0;
+            }
+            default -> {
+                err.println("Unsupported daemon request: " + String.join(" ", args));
+                return CommandLine.ExitCode.USAGE;
+            }
+        }
+    }
+
+    /**
+     * The command line that started this process: the launcher itself for a native image or
+     * jpackage install, otherwise {@code java} with the same JVM options and class path.
+     */
+    static List<String> launchCommand() {
+        var executable = ProcessHandle.current().info().command()
+                .orElseThrow(() -> new IllegalStateException("Cannot determine the sc executable"));
+        var name = Path.of(executable).getFileName().toString();
+        if (!name.equals("java") && !name.equals("java.exe")) {
+            return List.of(executable);
+        }
+        var command = new ArrayList<String>();
+        command.add(executable);
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        var classPath = System.getProperty("java.class.path");
+        if (classPath.endsWith(".jar") && !classPath.contains(File.pathSeparator)) {
+            command.addAll(List.of("-jar", classPath));
+        } else {
+            command.addAll(List.of("-cp", classPath, ChatbotApplication.class.getName()));
+        }
+        return command;
+    }
+}
@@ -0,0 +1,150 @@
+package org.sc.ai.cli.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Wire format between a thin {@code sc} invocation and the daemon.
+ *
+ * <p>The client sends the argument count followed by each argument as a length-prefixed
+ * UTF-8 string. The daemon answers with a sequence of frames: a type byte, then either a
+ * length-prefixed payload ({@link #STDOUT}, {@link #STDERR}) or the exit code
+ * ({@link #EXIT}). Anything the client sends or closing its end after the request cancels
+ * the running command.
+ *
+ * @author Julius Krah
+ */
+final class DaemonProtocol {
+    static final String SOCKET_DIRECTORY = "daemon";
+    static final String SOCKET_FILE_NAME = "sc.sock";
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte EXIT = 3;
+    private static final int MAX_ARGUMENTS = 1024;
+    // Room for a large piped message, which the client sends as an argument
+    private static final int MAX_ARGUMENT_LENGTH = 16 * 1024 * 1024;
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * Resolves the daemon socket inside the configuration directory. The socket has a
+     * directory of its own, which {@link DaemonServer} restricts to the owner.
+     *
+     * @param configDir the value of {@code sc.config.dir}
+     * @return the socket path
+     */
+    static Path socketPath(String configDir) {
+        return Path.of(configDir, SOCKET_DIRECTORY, SOCKET_FILE_NAME);
+    }
+
+    /**
+     * Streams over the channel that, unlike {@link java.nio.channels.Channels#newInputStream},
+     * do not serialise reads and writes on the channel's blocking lock. The daemon reads
+     * cancellation on one thread while the command writes output on another.
+     */
+    static InputStream inputStream(SocketChannel channel) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                var b = new byte[1];
+                return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return len == 0 ? 0 : channel.read(ByteBuffer.wrap(b, off, len));
+            }
+        };
+    }
+
+    static OutputStream outputStream(SocketChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                var buffer = ByteBuffer.wrap(b, off, len);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        };
+    }
+
+    static void writeRequest(DataOutputStream out, String[] args) throws IOException {
+        out.writeInt(args.length);
+        for (var arg : args) {
+            var bytes = arg.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.flush();
+    }
+
+    static String[] readRequest(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            throw new IOException("Invalid argument count: " + count);
+        }
+        var args = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = in.readInt();
+            if (length < 0 || length > MAX_ARGUMENT_LENGTH) {
+                throw new IOException("Invalid argument length: " + length);
+            }
+            var bytes = new byte[length];
+            in.readFully(bytes);
+            args[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return args;
+    }
+
+    /**
+     * An output stream that wraps everything written to it in frames of the given type.
+     */
+    static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            // Frames from stdout and stderr writers must not interleave
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.sc.ai.cli.daemon;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Serves forwarded {@code sc} invocations over a Unix domain socket. Each connection is
+ * handled on a virtual thread, but commands run one at a time because the command beans
+ * and the {@link org.sc.ai.cli.chat.StreamingContext} hold per-invocation state.
+ *
+ * <p>The server stops when {@link #close()} is called or after it has been idle for the
+ * configured timeout. A client that disconnects while its command runs has the command
+ * cancelled.
+ *
+ * @author Julius Krah
+ */
+public class DaemonServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DaemonServer.class);
+    private final Path socket;
+    private final Duration idleTimeout;
+    private final CommandExecutor executor;
+    private final Runnable canceller;
+    private final ReentrantLock executionLock = new ReentrantLock();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final ScheduledExecutorService idleChecker;
+    private volatile long lastActivity = System.nanoTime();
+    private volatile ServerSocketChannel serverChannel;
+
+    /**
+     * Runs a forwarded command line.
+     */
+    @FunctionalInterface
+    public interface CommandExecutor {
+        /**
+         * @param args the forwarded arguments
+         * @param out standard output of the client
+         * @param err standard error of the client
+         * @return the exit code
+         */
+        int execute(String[] args, PrintWriter out, PrintWriter err);
+    }
+
+    /**
+     * @param socket the socket file to bind
+     * @param idleTimeout how long to wait without connections before stopping
+     * @param executor runs forwarded commands
+     * @param canceller cancels the running command when its client goes away
+     */
+    public DaemonServer(Path socket, Duration idleTimeout, CommandExecutor executor, Runnable canceller) {
+        Assert.notNull(socket, "socket must not be null");
+        Assert.isTrue(idleTimeout != null && !idleTimeout.isNegative() && !idleTimeout.isZero(),
+                "idleTimeout must be positive");
+        Assert.notNull(executor, "executor must not be null");
+        Assert.notNull(canceller, "canceller must not be null");
+        this.socket = socket;
+        this.idleTimeout = idleTimeout;
+        this.executor = executor;
+        this.canceller = canceller;
+        this.idleChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "daemon-idle-checker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Binds the socket and accepts connections until the server is closed or idle.
+     *
+     * @throws IOException if the socket cannot be bound
+     */
+    public void serve() throws IOException {
+        bind();
+        long checkInterval = Math.max(1, Math.min(idleTimeout.toMillis(), 1000));
+        idleChecker.scheduleWithFixedDelay(this::closeIfIdle, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+        try {
+            while (serverChannel.isOpen()) {
+                SocketChannel channel;
+                try {
+                    channel = serverChannel.accept();
+                } catch (AsynchronousCloseException _) {
+                    break;
+                }
+                lastActivity = System.nanoTime();
+                activeConnections.incrementAndGet();
+                Thread.ofVirtual().name("daemon-connection").start(() -> handle(channel));
+            }
+        } finally {
+            close();
+            awaitConnections();
+        }
+    }
+
+    /**
+     * Stops accepting connections and removes the socket file.
+     */
+    @Override
+    public void close() {
+        idleChecker.shutdownNow();
+        var channel = serverChannel;
+        if (channel != null) {
+            try {
+                channel.close();
+                Files.deleteIfExists(socket);
+            } catch (IOException e) {
+                logger.warn("Failed to close daemon socket {}", socket, e);
+            }
+        }
+    }
+
+    /**
+     * Binds the socket in a directory only the owner can enter, so no other user can connect
+     * even before permissions could be set on the socket file itself.
+     */
+    private void bind() throws IOException {
+        var directory = socket.getParent();
+        Files.createDirectories(directory);
+        if (Files.getFileStore(directory).supportsFileAttributeView("posix")) {
+            Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+        }
+        // A socket file nobody listens on is left over from a daemon that did not shut down cleanly
+        Files.deleteIfExists(socket);
+        var channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(socket));
+        serverChannel = channel;
+        logger.debug("Daemon listening on {}", socket);
+    }
+
+    /**
+     * Gives a connection that stopped the server, or is still writing its exit code,
+     * a moment to finish before the JVM exits.
+     */
+    private void awaitConnections() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (activeConnections.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void closeIfIdle() {
+        long idle = System.nanoTime() - lastActivity;
+        if (activeConnections.get() == 0 && idle >= idleTimeout.toNanos()) {
+            logger.debug("Daemon idle for {}, shutting down", idleTimeout);
+            close();
+        }
+    }
+
+    private void handle(SocketChannel channel) {
+        var started = new AtomicBoolean();
+        var finished = new AtomicBoolean();
+        var disconnected = new AtomicBoolean();
+        try (channel) {
+            var in = new DataInputStream(DaemonProtocol.inputStream(channel));
+            var out = new DataOutputStream(new BufferedOutputStream(DaemonProtocol.outputStream(channel)));
+            var args = DaemonProtocol.readRequest(in);
+            Thread.ofVirtual().name("daemon-cancel-watcher").start(() -> {
+                try {
+                    in.read();
+                } catch (IOException _) {
+                    // Closed either way
+                }
+                disconnected.set(true);
+                // While this connection waits for the lock, the running command is another client's
+                if (started.get() && !finished.get()) {
+                    canceller.run();
+                }
+            });
+            int exitCode;
+            executionLock.lock();
+            try {
+                started.set(true);
+                if (disconnected.get()) {
+                    return;
+                }
+                var stdout = writer(out, DaemonProtocol.STDOUT);
+                var stderr = writer(out, DaemonProtocol.STDERR);
+                try {
+                    exitCode = executor.execute(args, stdout, stderr);
+                } finally {
+                    finished.set(true);
+                    stdout.flush();
+                    stderr.flush();
+                }
+            } finally {
+                executionLock.unlock();
+            }
+            synchronized (out) {
+                out.writeByte(DaemonProtocol.EXIT);
+                out.writeInt(exitCode);
+                out.flush();
+            }
+        } catch (IOException e) {
+            logger.debug("Daemon connection failed", e);
+        } finally {
+            lastActivity = System.nanoTime();
+            activeConnections.decrementAndGet();
+        }
+    }
+
+    private static PrintWriter writer(DataOutputStream out, byte type) {
+        return new PrintWriter(new OutputStreamWriter(new DaemonProtocol.FrameOutputStream(out, type),
+                StandardCharsets.UTF_8), true);
+    }
+}
@@ -0,0 +1,170 @@
+package org.sc.ai.cli.github;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * The files of a GitHub repository, or of one directory in it, read from a single
+ * tarball download.
+ *
+ * <p>The tarball is decompressed and walked as it arrives, and each matching file is
+ * handed over as a stream over its bytes in the archive, so nothing is extracted to disk
+ * and at most one sniffing buffer per file is held in memory.
+ *
+ * @author Julius Krah
+ */
+public class GitHubArchive {
+    private static final Logger logger = LoggerFactory.getLogger(GitHubArchive.class);
+    /**
+     * Like git, a file whose first bytes contain a NUL is treated as binary.
+     */
+    private static final int SNIFF_LENGTH = 8000;
+    private final GitHubLocation location;
+    private final RestTemplate restTemplate;
+
+    /**
+     * A file of the archive. Its content can be read once, and only until the handler
+     * returns.
+     *
+     * @param location where the file lives, at the requested ref
+     * @param commit the commit the archive was built from, if GitHub recorded it
+     * @param binary whether the file looks binary
+     * @param content the bytes of the file
+     */
+    public record Entry(GitHubLocation location, @Nullable String commit, boolean binary, Resource content) {
+    }
+
+    @FunctionalInterface
+    public interface EntryHandler {
+        void handle(Entry entry) throws IOException;
+    }
+
+    /**
+     * @param location the repository root or a directory, such as
+     *        {@code github://owner/repo/contents/docs/}
+     * @param restTemplate sends the download request
+     */
+    public GitHubArchive(GitHubLocation location, RestTemplate restTemplate) {
+        this.location = location;
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Downloads the archive and passes every regular file below the location whose path
+     * from the repository root {@code filter} accepts to {@code handler}, in archive
+     * order.
+     *
+     * @return the number of files handled
+     * @throws IOException if the download fails, the archive is malformed or the handler
+     *         fails
+     */
+    public int read(Predicate<String> filter, EntryHandler handler) throws IOException {
+        var request = restTemplate.getRequestFactory().createRequest(tarballUrl(), HttpMethod.GET);
+        request.getHeaders().addAll(GitHubResource.createHeaders());
+        try (var response = request.execute()) {
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                throw new IOException("Failed to download archive of " + location + " (" + response.getStatusCode() + ")");
+            }
+            return read(response.getBody(), filter, handler);
+        }
+    }
+
+    /**
+     * Walks a gzip-compressed tarball as produced by GitHub, whose entries all sit in one
+     * top-level directory named after the repository and commit.
+     */
+    int read(InputStream tarball, Predicate<String> filter, EntryHandler handler) throws IOException {
+        int handled = 0;
+        try (var tar = new TarReader(new GZIPInputStream(tarball, 64 * 1024))) {
+            TarReader.Entry entry;
+            while ((entry = tar.next()) != null) {
+                int slash = entry.path().indexOf('/');
+                if (!entry.regularFile() || slash < 0) {
+                    continue;
+                }
+                var path = entry.path().substring(slash + 1);
+                if (!path.startsWith(location.getPath()) || !filter.test(path)) {
+                    logger.trace("Skipping {}", path);
+                    continue;
+                }
+                var file = GitHubLocation.of(location.getOwner(), location.getRepo(), path, location.getRef());
+                handler.handle(entry(file, tar.globalHeaders().get("comment"), tar.entryStream()));
+                handled++;
+            }
+        }
+        return handled;
+    }
+
+    /**
+     * Wraps a file read some other way, such as through {@link GitHubResource}, like a
+     * file of an archive.
+     *
+     * @param location where the file lives
+     * @param commit the commit it was read at, if known
+     * @param in the contents, looked at for binary data without being consumed
+     */
+    public static Entry entry(GitHubLocation location, @Nullable String commit, InputStream in) throws IOException {
+        var pushback = new PushbackInputStream(in, SNIFF_LENGTH);
+        var head = pushback.readNBytes(SNIFF_LENGTH);
+        pushback.unread(head);
+        return new Entry(location, commit, isBinary(head), new EntryResource(location, pushback));
+    }
+
+    @Override
+    public String toString() {
+        return location.toString();
+    }
+
+    private URI tarballUrl() {
+        var builder = UriComponentsBuilder.newInstance()
+                .scheme("https")
+                .host(GitHubResource.apiHost())
+                .pathSegment("repos", location.getOwner(), location.getRepo(), "tarball");
+        if (StringUtils.hasText(location.getRef())) {
+            builder.pathSegment(location.getRef());
+        }
+        return builder.build().toUri();
+    }
+
+    private static boolean isBinary(byte[] head) {
+        for (byte b : head) {
+            if (b == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Carries the file name, which document readers are chosen by.
+     */
+    private static final class EntryResource extends InputStreamResource {
+        private final GitHubLocation location;
+
+        private EntryResource(GitHubLocation location, InputStream in) {
+            super(in, location.toString());
+            this.location = location;
+        }
+
+        @Override
+        @NonNull
+        public String getFilename() {
+            return location.getFileName();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.sc.ai.cli.github;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * @author Julius Krah
+ */
+@Configuration(proxyBeanMethods = false)
+public class GitHubConfiguration {
+
+    /**
+     * Picked up as an interceptor by the {@code RestTemplate} behind {@code github://}
+     * resources. It comes first, so requests answered from the cache are not paced.
+     */
+    @Bean
+    @Order(0)
+    @ConditionalOnProperty(name = "sc.github.cache.enabled", havingValue = "true", matchIfMissing = true)
+    GitHubResponseCache gitHubResponseCache(@Value("${sc.github.cache.directory}") Path directory,
+            @Value("${sc.github.cache.max-size:64MB}") DataSize maxSize) {
+        return new GitHubResponseCache(directory, maxSize);
+    }
+
+    /**
+     * Runs inside the response cache, so it paces and retries every request that reaches
+     * GitHub, including revalidations.
+     */
+    @Bean
+    @Order(1)
+    @ConditionalOnProperty(name = "sc.github.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+    GitHubFetchScheduler gitHubFetchScheduler(MeterRegistry meterRegistry,
+            @Value("${sc.github.rate-limit.requests-per-second:10}") double requestsPerSecond,
+            @Value("${sc.github.rate-limit.burst:20}") int burst,
+            @Value("${sc.github.rate-limit.max-concurrency:8}") int maxConcurrency,
+            @Value("${sc.github.rate-limit.max-retries:3}") int maxRetries,
+            @Value("${sc.github.rate-limit.max-wait:2m}") Duration maxWait) {
+        return new GitHubFetchScheduler(
+                new GitHubFetchScheduler.Settings(requestsPerSecond, burst, maxConcurrency, maxRetries, maxWait),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,329 @@
+package org.sc.ai.cli.github;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Paces, bounds and retries requests to the GitHub API so that fetching many files keeps
+ * within GitHub's primary and secondary rate limits.
+ *
+ * <p>Requests share a token bucket per host and access token, refilled at
+ * {@code requestsPerSecond}. The bucket slows down to spread the
+ * {@code X-RateLimit-Remaining} requests over the time to {@code X-RateLimit-Reset}, and
+ * stops until the reset, or for {@code Retry-After}, when GitHub says so. At most
+ * {@code maxConcurrency} requests per bucket wait for their response headers at a time.
+ *
+ * <p>A request refused for its rate limit ({@code 429}, or {@code 403} with no remaining
+ * requests or a {@code Retry-After}) or failing with {@code 502}-{@code 504} is retried
+ * with backoff. Once the retries are spent, or the wait would be longer than
+ * {@code maxWait}, a {@link GitHubRateLimitException} tells the caller when to try again.
+ *
+ * <p>{@link #forEach(Collection, Task)} runs fetches of many files on virtual threads with
+ * the same concurrency bound.
+ *
+ * @author Julius Krah
+ */
+public class GitHubFetchScheduler implements ClientHttpRequestInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(GitHubFetchScheduler.class);
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+    private final Settings settings;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Counter rateLimited;
+    private final Counter retried;
+
+    /**
+     * @param requestsPerSecond the steady request rate per host and token
+     * @param burst requests that may be sent at once after an idle period
+     * @param maxConcurrency requests per host and token waiting for a response at a time
+     * @param maxRetries retries of a refused or failed request
+     * @param maxWait the longest a request waits for a rate limit to reset before failing
+     */
+    public record Settings(double requestsPerSecond, int burst, int maxConcurrency, int maxRetries,
+            Duration maxWait) {
+        public Settings {
+            Assert.isTrue(requestsPerSecond > 0, "requestsPerSecond must be positive");
+            Assert.isTrue(burst >= 1, "burst must be at least 1");
+            Assert.isTrue(maxConcurrency >= 1, "maxConcurrency must be at least 1");
+            Assert.isTrue(maxRetries >= 0, "maxRetries must not be negative");
+        }
+    }
+
+    @FunctionalInterface
+    public interface Task<T> {
+        void run(T item) throws IOException;
+    }
+
+    public GitHubFetchScheduler(Settings settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.rateLimited = Counter.builder("sc.github.rate-limited")
+                .description("GitHub requests refused for their rate limit")
+                .register(meterRegistry);
+        this.retried = Counter.builder("sc.github.retries")
+                .description("GitHub requests sent again after a rate limit or server error")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @NonNull
+    public ClientHttpResponse intercept(@NonNull HttpRequest request, @NonNull byte[] body,
+            @NonNull ClientHttpRequestExecution execution) throws IOException {
+        if (!GitHubResource.apiHost().equals(request.getURI().getHost())) {
+            return execution.execute(request, body);
+        }
+        var bucket = buckets.computeIfAbsent(bucketKey(request), _ -> new Bucket());
+        for (int attempt = 0;; attempt++) {
+            var response = bucket.execute(request, body, execution);
+            var status = response.getStatusCode();
+            boolean limited = isRateLimited(status, response.getHeaders());
+            if (!limited && !isRetryable(request.getMethod(), status)) {
+                return response;
+            }
+            var headers = response.getHeaders();
+            response.close();
+            var retryAt = limited ? bucket.blockedUntil() : null;
+            if (limited) {
+                rateLimited.increment();
+            }
+            var wait = retryAt != null ? Duration.between(Instant.now(), retryAt) : backoff(attempt);
+            if (attempt >= settings.maxRetries() || wait.compareTo(settings.maxWait()) > 0) {
+                if (limited) {
+                    throw new GitHubRateLimitException(request.getURI(), retryAt);
+                }
+                throw new IOException("GitHub request " + request.getURI() + " failed with " + status);
+            }
+            logger.debug("GitHub answered {} for {} ({}), retrying in {}", status, request.getURI(),
+                    headers.getFirst("X-RateLimit-Resource"), wait);
+            retried.increment();
+            if (retryAt == null) {
+                sleep(wait);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code task} for every item, at most {@code maxConcurrency} at a time, and
+     * waits for all of them. The first failure cancels the tasks still running and is
+     * rethrown.
+     *
+     * @throws IOException the first failure of a task
+     */
+    public <T> void forEach(Collection<? extends T> items, Task<T> task) throws IOException {
+        var permits = new Semaphore(settings.maxConcurrency());
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<?>>(items.size());
+            for (T item : items) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        task.run(item);
+                        return null;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (var future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    futures.forEach(f -> f.cancel(true));
+                    var cause = e.getCause();
+                    if (cause instanceof IOException io) {
+                        throw io;
+                    }
+                    if (cause instanceof UncheckedIOException io) {
+                        throw io.getCause();
+                    }
+                    if (cause instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    if (cause instanceof Error error) {
+                        throw error;
+                    }
+                    throw new IOException(cause);
+                } catch (InterruptedException e) {
+                    futures.forEach(f -> f.cancel(true));
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while fetching from GitHub");
+                }
+            }
+        }
+    }
+
+    private Duration backoff(int attempt) {
+        long millis = INITIAL_BACKOFF.toMillis() << Math.min(attempt, 10);
+        // Jitter keeps parallel fetches from retrying in lockstep
+        return Duration.ofMillis(millis + ThreadLocalRandom.current().nextLong(millis / 2 + 1));
+    }
+
+    private static boolean isRateLimited(HttpStatusCode status, HttpHeaders headers) {
+        if (status.isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+            return true;
+        }
+        return status.isSameCodeAs(HttpStatus.FORBIDDEN)
+                && ("0".equals(headers.getFirst("X-RateLimit-Remaining"))
+                        || headers.containsKey(HttpHeaders.RETRY_AFTER));
+    }
+
+    private static boolean isRetryable(HttpMethod method, HttpStatusCode status) {
+        return (method == HttpMethod.GET || method == HttpMethod.HEAD)
+                && (status.isSameCodeAs(HttpStatus.BAD_GATEWAY) || status.isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE)
+                        || status.isSameCodeAs(HttpStatus.GATEWAY_TIMEOUT));
+    }
+
+    /**
+     * Requests with different tokens have separate limits; the token itself is not kept.
+     */
+    private static String bucketKey(HttpRequest request) {
+        var authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return request.getURI().getHost() + "/" + (authorization == null ? "anonymous"
+                : DigestUtils.md5DigestAsHex(authorization.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void sleep(Duration duration) throws InterruptedIOException {
+        if (duration.isNegative() || duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the GitHub rate limit");
+        }
+    }
+
+    /**
+     * Token bucket, pause and concurrency bound of one host and token.
+     */
+    private final class Bucket {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Semaphore inFlight = new Semaphore(settings.maxConcurrency());
+        private double tokens = settings.burst();
+        private double rate = settings.requestsPerSecond();
+        private long refilledNanos = System.nanoTime();
+        @Nullable
+        private Instant blockedUntil;
+
+        ClientHttpResponse execute(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+                throws IOException {
+            sleep(reserve());
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to fetch from GitHub");
+            }
+            try {
+                var response = execution.execute(request, body);
+                observe(response.getHeaders());
+                return response;
+            } finally {
+                // Held until the headers arrive; streaming the body is not bounded
+                inFlight.release();
+            }
+        }
+
+        @Nullable
+        Instant blockedUntil() {
+            lock.lock();
+            try {
+                return blockedUntil;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Takes a token, going into debt when none is left, and returns how long to wait
+         * before sending.
+         */
+        private Duration reserve() {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                tokens = Math.min(settings.burst(), tokens + (now - refilledNanos) / 1e9 * rate);
+                refilledNanos = now;
+                tokens -= 1;
+                var wait = tokens >= 0 ? Duration.ZERO : Duration.ofNanos((long) (-tokens / rate * 1e9));
+                if (blockedUntil != null) {
+                    var blocked = Duration.between(Instant.now(), blockedUntil);
+                    if (blocked.compareTo(wait) > 0) {
+                        wait = blocked;
+                    }
+                }
+                return wait;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void observe(HttpHeaders headers) {
+            var remaining = parseLong(headers.getFirst("X-RateLimit-Remaining"));
+            var reset = parseLong(headers.getFirst("X-RateLimit-Reset"));
+            var retryAfter = parseLong(headers.getFirst(HttpHeaders.RETRY_AFTER));
+            lock.lock();
+            try {
+                var now = Instant.now();
+                if (retryAfter != null) {
+                    blockedUntil = now.plusSeconds(retryAfter);
+                } else if (remaining != null && remaining == 0 && reset != null) {
+                    blockedUntil = Instant.ofEpochSecond(reset);
+                } else if (blockedUntil != null && !blockedUntil.isAfter(now)) {
+                    blockedUntil = null;
+                }
+                if (remaining != null && reset != null && remaining > 0) {
+                    // Spread what is left of the primary limit over the time to its reset
+                    long seconds = Math.max(1, reset - now.getEpochSecond());
+                    rate = Math.min(settings.requestsPerSecond(), (double) remaining / seconds);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Nullable
+    private static Long parseLong(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException _) {
+            // Retry-After may also be an HTTP date, which GitHub does not send
+            return null;
+        }
+    }
+}
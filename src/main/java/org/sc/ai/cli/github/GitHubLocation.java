@@ -12,6 +12,9 @@ import org.springframework.util.StringUtils;
  * 
  * <p>Parses GitHub resource URLs of the form:
  * {@code github://{owner}/{repo}/contents/{path}?ref={ref}}
+ *
+ * <p>A path ending in {@code /}, an empty path or a location without {@code /contents}
+ * denotes a directory or the repository root, see {@link #isDirectory()}.
  * 
  * @author Julius Krah
  * @since 1.0
@@ -57,7 +60,12 @@ public class GitHubLocation {
         }
         
         // Parse owner/repo/contents/path
+        boolean directory = path.endsWith("/");
         String[] parts = path.split("/");
+        if (parts.length == 2) {
+            // Repository root
+            return new GitHubLocation(parts[0], parts[1], "", ref);
+        }
         if (parts.length < 3) {
             throw new IllegalArgumentException("Invalid GitHub location format. Expected: github://{owner}/{repo}/contents/{path}");
         }
@@ -85,6 +93,9 @@ public class GitHubLocation {
             throw new IllegalArgumentException("Invalid GitHub location format. Expected: github://{owner}/{repo}/contents/{path}");
         }
         
+        if (directory && !pathBuilder.isEmpty()) {
+            pathBuilder.append("/");
+        }
         return new GitHubLocation(owner, repo, pathBuilder.toString(), ref);
     }
 
@@ -99,7 +110,7 @@ public class GitHubLocation {
     private GitHubLocation(String owner, String repo, String path, @Nullable String ref) {
         Assert.hasText(owner, "Owner must not be empty");
         Assert.hasText(repo, "Repository must not be empty");
-        Assert.hasText(path, "Path must not be empty");
+        Assert.notNull(path, "Path must not be null");
         
         this.owner = owner;
         this.repo = repo;
@@ -127,6 +138,22 @@ public class GitHubLocation {
         return ref;
     }
 
+    /**
+     * @param ref a commit, branch or tag
+     * @return this location at {@code ref}
+     */
+    @NonNull
+    public GitHubLocation withRef(@Nullable String ref) {
+        return new GitHubLocation(owner, repo, path, ref);
+    }
+
+    /**
+     * @return {@code true} for the repository root and for paths ending in {@code /}
+     */
+    public boolean isDirectory() {
+        return path.isEmpty() || path.endsWith("/");
+    }
+
     @NonNull
     public String getFileName() {
         int lastSlash = path.lastIndexOf('/');
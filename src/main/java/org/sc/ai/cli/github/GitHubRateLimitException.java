@@ -0,0 +1,34 @@
+package org.sc.ai.cli.github;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * GitHub kept refusing a request because of its rate limits, after the retries and the
+ * longest wait allowed.
+ *
+ * @author Julius Krah
+ */
+public class GitHubRateLimitException extends IOException {
+    @Nullable
+    private final transient Instant retryAt;
+
+    /**
+     * @param uri the refused request
+     * @param retryAt when GitHub said the limit resets, if it did
+     */
+    public GitHubRateLimitException(URI uri, @Nullable Instant retryAt) {
+        super("GitHub rate limit exceeded for " + uri
+                + (retryAt != null ? "; retry after " + retryAt : "")
+                + ". Set GITHUB_PERSONAL_ACCESS_TOKEN for a higher limit");
+        this.retryAt = retryAt;
+    }
+
+    @Nullable
+    public Instant getRetryAt() {
+        return retryAt;
+    }
+}
@@ -1,12 +1,14 @@
 package org.sc.ai.cli.github;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
-import java.util.Base64;
+import java.time.Instant;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 
@@ -14,23 +16,35 @@ import org.springframework.core.io.AbstractResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * {@link org.springframework.core.io.Resource} implementation for GitHub files.
  *
  * <p>Resources of the form (GET) {@code github://{owner}/{repo}/contents/{path}} 
- * which fetches a file from the default branch.
+ * which fetches a file from the default branch. Directories, such as
+ * {@code github://{owner}/{repo}/contents/docs/}, and the repository root are read as a
+ * whole through {@link #archive()}.
  * 
  * <p>For GitHub enterprise, it will look for environment variable {@code GITHUB_HOST}. 
  * For Authentication, the following environment variable will be used: {@code GITHUB_PERSONAL_ACCESS_TOKEN}
  * 
+ * <p>Contents are streamed in the raw media type ({@code application/vnd.github.raw})
+ * rather than decoded from base64 JSON.
+ *
  * <p>Query parameters supported:
  * <ul>
  * <li>{@code ref}: string - The name of the commit/branch/tag. Default: the repository's default branch</li>
@@ -44,6 +58,10 @@ public class GitHubResource extends AbstractResource {
     private static final String DEFAULT_GITHUB_HOST = "api.github.com";
     private static final String GITHUB_HOST_ENV = "GITHUB_HOST";
     private static final String GITHUB_TOKEN_ENV = "GITHUB_PERSONAL_ACCESS_TOKEN";
+    private static final String RAW_MEDIA_TYPE = "application/vnd.github.raw";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    // GitHub's error bodies are a few hundred bytes
+    private static final int MAX_ERROR_BODY = 64 * 1024;
     
     protected final GitHubLocation location;
     protected final RestTemplate restTemplate;
@@ -78,13 +96,8 @@ public class GitHubResource extends AbstractResource {
     @Override
     @NonNull
     public URL getURL() throws IOException {
-        String githubHost = System.getenv(GITHUB_HOST_ENV);
-        if (githubHost == null) {
-            githubHost = DEFAULT_GITHUB_HOST;
-        }
-        
         String urlStr = String.format("https://%s/repos/%s/%s/contents/%s", 
-            githubHost, location.getOwner(), location.getRepo(), location.getPath());
+            apiHost(), location.getOwner(), location.getRepo(), location.getPath());
             
         if (StringUtils.hasText(location.getRef())) {
             urlStr = UriComponentsBuilder.fromUriString(urlStr)
@@ -107,44 +120,84 @@ public class GitHubResource extends AbstractResource {
         return new GitHubResource(location.relative(relativePath), this.restTemplate);
     }
 
+    /**
+     * Streams the file in the raw media type straight from the HTTP response, so it is
+     * never held in memory as a whole. Files the contents API refuses as too large are
+     * fetched as git blobs instead.
+     */
     @Override
     @NonNull
     public InputStream getInputStream() throws IOException {
-        fetchMetadataIfNeeded();
-        
-        GitHubContentMetadata metadata = contentMetadata;
-        if (metadata == null || metadata.content == null) {
-            throw new IOException("Failed to fetch content for: " + location);
+        var response = open(HttpMethod.GET, URI.create(buildApiUrl()));
+        if (isTooLarge(response)) {
+            response.close();
+            fetchMetadataIfNeeded();
+            GitHubContentMetadata metadata = contentMetadata;
+            if (metadata == null || metadata.sha == null) {
+                throw new IOException("Failed to fetch content for: " + location);
+            }
+            response = open(HttpMethod.GET, URI.create(buildBlobUrl(metadata.sha)));
         }
-        
-        // Clean and decode base64 content (GitHub API includes newlines in base64)
-        String cleanedContent = metadata.content.replaceAll("\\s", "");
-        byte[] decodedContent = Base64.getDecoder().decode(cleanedContent);
-        return new ByteArrayInputStream(decodedContent);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            var status = response.getStatusCode();
+            response.close();
+            throw new IOException("Failed to fetch GitHub resource: " + location + " (" + status + ")");
+        }
+        return new ResponseInputStream(response);
     }
 
     @Override
     public boolean exists() {
-        try {
-            fetchMetadataIfNeeded();
-            return contentMetadata != null;
+        try (var response = open(HttpMethod.HEAD, URI.create(buildApiUrl()))) {
+            return response.getStatusCode().is2xxSuccessful();
         } catch (Exception _) {
             return false;
         }
     }
 
+    /**
+     * Reads the length from the headers of a {@code HEAD} request. The contents metadata is
+     * only fetched when the response does not carry an uncompressed length.
+     */
     @Override
     public long contentLength() throws IOException {
+        try (var response = open(HttpMethod.HEAD, URI.create(buildApiUrl()))) {
+            long length = response.getHeaders().getContentLength();
+            if (response.getStatusCode().is2xxSuccessful() && length >= 0) {
+                return length;
+            }
+        }
         fetchMetadataIfNeeded();
         GitHubContentMetadata metadata = contentMetadata;
         return metadata != null ? metadata.size : 0;
     }
 
+    /**
+     * Reads the {@code Last-Modified} header of a {@code HEAD} request. Without one, the
+     * date of the last commit that touched the path at the ref is looked up instead.
+     *
+     * @throws FileNotFoundException if no commit touched the path
+     */
     @Override
     public long lastModified() throws IOException {
-        // GitHub API doesn't provide last modified in the contents endpoint
-        // This would require additional API calls to get commit information
-        return 0;
+        try (var response = open(HttpMethod.HEAD, URI.create(buildApiUrl()))) {
+            long lastModified = response.getHeaders().getLastModified();
+            if (response.getStatusCode().is2xxSuccessful() && lastModified >= 0) {
+                return lastModified;
+            }
+        }
+        JsonNode commits;
+        try {
+            commits = restTemplate.exchange(buildCommitsUrl(), HttpMethod.GET, new HttpEntity<>(createHeaders()),
+                    JsonNode.class).getBody();
+        } catch (RestClientException e) {
+            throw new IOException("Failed to fetch the last commit of: " + location, e);
+        }
+        var date = commits == null ? "" : commits.path(0).path("commit").path("committer").path("date").asText();
+        if (!StringUtils.hasText(date)) {
+            throw new FileNotFoundException("No commit found for: " + location);
+        }
+        return Instant.parse(date).toEpochMilli();
     }
 
     @Override
@@ -164,6 +217,32 @@ public class GitHubResource extends AbstractResource {
         return location;
     }
 
+    /**
+     * @return the commit the ref of this directory resolves to and the blob SHA of every
+     *         file below it
+     * @throws IOException if the git trees API cannot be reached
+     */
+    public GitHubTree tree() throws IOException {
+        return GitHubTree.fetch(location, restTemplate);
+    }
+
+    /**
+     * @param ref the commit, branch or tag to pin
+     * @return this resource at {@code ref}
+     */
+    public GitHubResource withRef(String ref) {
+        return new GitHubResource(location.withRef(ref), restTemplate);
+    }
+
+    /**
+     * @return the files below this resource, downloaded as one tarball
+     * @throws IllegalStateException if this resource is not a directory
+     */
+    public GitHubArchive archive() {
+        Assert.state(location.isDirectory(), () -> location + " is not a directory");
+        return new GitHubArchive(location, restTemplate);
+    }
+
     @Override
     public boolean equals(@Nullable Object obj) {
         if (this == obj) return true;
@@ -200,14 +279,17 @@ public class GitHubResource extends AbstractResource {
         }
     }
     
-    private String buildApiUrl() {
+    /**
+     * @return the GitHub API host, {@code GITHUB_HOST} for GitHub enterprise
+     */
+    static String apiHost() {
         String githubHost = System.getenv(GITHUB_HOST_ENV);
-        if (githubHost == null) {
-            githubHost = DEFAULT_GITHUB_HOST;
-        }
-        
+        return githubHost != null ? githubHost : DEFAULT_GITHUB_HOST;
+    }
+
+    private String buildApiUrl() {
         String baseUrl = String.format("https://%s/repos/%s/%s/contents/%s", 
-            githubHost, location.getOwner(), location.getRepo(), location.getPath());
+            apiHost(), location.getOwner(), location.getRepo(), location.getPath());
             
         if (StringUtils.hasText(location.getRef())) {
             return UriComponentsBuilder.fromUriString(baseUrl)
@@ -218,7 +300,71 @@ public class GitHubResource extends AbstractResource {
         return baseUrl;
     }
     
-    private HttpHeaders createHeaders() {
+    private URI buildCommitsUrl() {
+        var builder = UriComponentsBuilder.fromUriString(String.format("https://%s/repos/%s/%s/commits",
+                apiHost(), location.getOwner(), location.getRepo()))
+                .queryParam("path", location.getPath())
+                .queryParam("per_page", 1);
+        if (StringUtils.hasText(location.getRef())) {
+            builder.queryParam("sha", location.getRef());
+        }
+        return builder.build().toUri();
+    }
+
+    private String buildBlobUrl(String sha) {
+        return String.format("https://%s/repos/%s/%s/git/blobs/%s",
+            apiHost(), location.getOwner(), location.getRepo(), sha);
+    }
+
+    /**
+     * Sends a request for the raw file through the {@link RestTemplate}'s interceptors
+     * without letting it read and close the response.
+     */
+    private ClientHttpResponse open(HttpMethod method, URI uri) throws IOException {
+        var request = restTemplate.getRequestFactory().createRequest(uri, method);
+        request.getHeaders().addAll(createHeaders());
+        request.getHeaders().set(HttpHeaders.ACCEPT, RAW_MEDIA_TYPE);
+        return request.execute();
+    }
+
+    /**
+     * Tells a file the contents API refuses for its size from other refusals. Beyond its
+     * size limit the API answers {@code 403} with a {@code too_large} error code, while rate
+     * limits, SSO enforcement and missing permissions are {@code 403}s as well.
+     */
+    static boolean isTooLarge(ClientHttpResponse response) throws IOException {
+        var status = response.getStatusCode();
+        if (status.isSameCodeAs(HttpStatus.PAYLOAD_TOO_LARGE)) {
+            return true;
+        }
+        if (!status.isSameCodeAs(HttpStatus.FORBIDDEN)) {
+            return false;
+        }
+        JsonNode error;
+        try (var body = response.getBody()) {
+            error = OBJECT_MAPPER.readTree(body.readNBytes(MAX_ERROR_BODY));
+        } catch (JsonProcessingException _) {
+            return false;
+        }
+        if (error == null) {
+            return false;
+        }
+        for (var detail : error.path("errors")) {
+            if ("too_large".equals(detail.path("code").asText())) {
+                return true;
+            }
+        }
+        var headers = response.getHeaders();
+        boolean rateLimited = "0".equals(headers.getFirst("X-RateLimit-Remaining"))
+                || headers.containsKey(HttpHeaders.RETRY_AFTER);
+        return !rateLimited && error.path("message").asText().toLowerCase(Locale.ROOT).contains("too large");
+    }
+
+    /**
+     * @return the accept, user agent and, with {@code GITHUB_PERSONAL_ACCESS_TOKEN} set,
+     *         authorization headers of GitHub API requests
+     */
+    static HttpHeaders createHeaders() {
         HttpHeaders headers = new HttpHeaders();
         headers.set("Accept", "application/vnd.github.v3+json");
         headers.set("User-Agent", "sc-cli/1.0");
@@ -233,11 +379,32 @@ public class GitHubResource extends AbstractResource {
 
     private static class GitHubContentMetadata {
         private final long size;
-        private final String content;
+        private final String sha;
 
         GitHubContentMetadata(Map<String, Object> response) {
             this.size = response.get("size") != null ? ((Number) response.get("size")).longValue() : 0;
-            this.content = (String) response.get("content");
+            this.sha = (String) response.get("sha");
+        }
+    }
+
+    /**
+     * Closes the HTTP response along with the stream.
+     */
+    private static final class ResponseInputStream extends FilterInputStream {
+        private final ClientHttpResponse response;
+
+        private ResponseInputStream(ClientHttpResponse response) throws IOException {
+            super(response.getBody());
+            this.response = response;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                response.close();
+            }
         }
     }
 }
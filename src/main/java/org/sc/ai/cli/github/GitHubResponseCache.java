@@ -0,0 +1,271 @@
+package org.sc.ai.cli.github;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * On-disk cache of GitHub API responses, revalidated with conditional requests.
+ *
+ * <p>A {@code GET} to the GitHub API that returns an {@code ETag} or {@code Last-Modified}
+ * is stored under a key made of its URL, which carries the path and {@code ref}, and its
+ * {@code Accept} header. The next request for the same key sends {@code If-None-Match} and
+ * {@code If-Modified-Since}, and a {@code 304 Not Modified}, which GitHub does not count
+ * against the rate limit, is answered from the cache. Entries are evicted least recently
+ * used first once the cache grows beyond its maximum size.
+ *
+ * @author Julius Krah
+ */
+public class GitHubResponseCache implements ClientHttpRequestInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(GitHubResponseCache.class);
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+    private final Path directory;
+    private final long maxSize;
+    private volatile boolean refresh;
+
+    /**
+     * @param directory where entries are stored
+     * @param maxSize the total size of bodies kept before the least recently used are evicted
+     */
+    public GitHubResponseCache(Path directory, DataSize maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize.toBytes();
+    }
+
+    /**
+     * @param refresh {@code true} to skip revalidation and fetch every response again,
+     *        replacing what is cached
+     */
+    public void setRefresh(boolean refresh) {
+        this.refresh = refresh;
+    }
+
+    @Override
+    @NonNull
+    public ClientHttpResponse intercept(@NonNull HttpRequest request, @NonNull byte[] body,
+            @NonNull ClientHttpRequestExecution execution) throws IOException {
+        if (request.getMethod() != HttpMethod.GET || !GitHubResource.apiHost().equals(request.getURI().getHost())
+                || isArchive(request)) {
+            return execution.execute(request, body);
+        }
+        String key = key(request);
+        var cached = refresh ? null : read(key);
+        if (cached != null) {
+            if (cached.etag() != null) {
+                request.getHeaders().setIfNoneMatch(cached.etag());
+            }
+            if (cached.lastModified() != null) {
+                request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+            }
+        }
+        var response = execution.execute(request, body);
+        if (cached != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            response.close();
+            touch(key);
+            logger.debug("Serving {} from cache", request.getURI());
+            return new CachedResponse(cached.headers(), bodyFile(key));
+        }
+        var headers = response.getHeaders();
+        if (!response.getStatusCode().isSameCodeAs(HttpStatus.OK)
+                || (headers.getETag() == null && headers.getFirst(HttpHeaders.LAST_MODIFIED) == null)) {
+            return response;
+        }
+        return store(key, response);
+    }
+
+    /**
+     * Repository tarballs are streamed, not copied into the cache first.
+     */
+    private static boolean isArchive(HttpRequest request) {
+        return request.getURI().getPath().contains("/tarball");
+    }
+
+    private record Entry(@Nullable String etag, @Nullable String lastModified, HttpHeaders headers) {
+    }
+
+    @Nullable
+    private Entry read(String key) {
+        var meta = directory.resolve(key + META_SUFFIX);
+        if (Files.notExists(meta) || Files.notExists(bodyFile(key))) {
+            return null;
+        }
+        var properties = new Properties();
+        try (var in = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        } catch (IOException e) {
+            logger.debug("Ignoring unreadable cache entry {}", meta, e);
+            return null;
+        }
+        var headers = new HttpHeaders();
+        properties.stringPropertyNames().forEach(name -> headers.set(name, properties.getProperty(name)));
+        return new Entry(headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED), headers);
+    }
+
+    /**
+     * Copies the body to disk before handing it on, so the caller reads it from the cache.
+     */
+    private ClientHttpResponse store(String key, ClientHttpResponse response) throws IOException {
+        Files.createDirectories(directory);
+        var headers = new HttpHeaders();
+        for (var name : List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED)) {
+            var value = response.getHeaders().getFirst(name);
+            if (value != null) {
+                headers.set(name, value);
+            }
+        }
+        var tempBody = Files.createTempFile(directory, key, BODY_SUFFIX + ".tmp");
+        var tempMeta = Files.createTempFile(directory, key, META_SUFFIX + ".tmp");
+        try (response) {
+            try (InputStream in = response.getBody()) {
+                Files.copy(in, tempBody, StandardCopyOption.REPLACE_EXISTING);
+            }
+            var properties = new Properties();
+            headers.forEach((name, values) -> properties.setProperty(name, values.getFirst()));
+            try (var out = Files.newBufferedWriter(tempMeta, StandardCharsets.UTF_8)) {
+                properties.store(out, null);
+            }
+            Files.move(tempBody, bodyFile(key), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempMeta, directory.resolve(key + META_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempBody);
+            Files.deleteIfExists(tempMeta);
+        }
+        evict(bodyFile(key));
+        return new CachedResponse(headers, bodyFile(key));
+    }
+
+    private void touch(String key) {
+        try {
+            Files.setLastModifiedTime(bodyFile(key), FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            logger.debug("Could not mark cache entry {} as used", key, e);
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the bodies fit in the maximum size.
+     *
+     * @param keep the entry about to be read, which is never evicted
+     */
+    private void evict(Path keep) throws IOException {
+        record Body(Path path, long size, FileTime used) {
+        }
+        var bodies = new ArrayList<Body>();
+        try (var files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(BODY_SUFFIX)).forEach(path -> {
+                try {
+                    bodies.add(new Body(path, Files.size(path), Files.getLastModifiedTime(path)));
+                } catch (IOException _) {
+                    // Evicted by another process in the meantime
+                }
+            });
+        }
+        long total = bodies.stream().mapToLong(Body::size).sum();
+        bodies.sort(Comparator.comparing(Body::used));
+        for (var body : bodies) {
+            if (total <= maxSize) {
+                break;
+            }
+            if (body.path().equals(keep)) {
+                continue;
+            }
+            var name = body.path().getFileName().toString();
+            Files.deleteIfExists(directory.resolve(name.substring(0, name.length() - BODY_SUFFIX.length()) + META_SUFFIX));
+            Files.deleteIfExists(body.path());
+            total -= body.size();
+        }
+    }
+
+    private Path bodyFile(String key) {
+        return directory.resolve(key + BODY_SUFFIX);
+    }
+
+    private static String key(HttpRequest request) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getURI().toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(request.getHeaders().getFirst(HttpHeaders.ACCEPT))
+                    .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CachedResponse implements ClientHttpResponse {
+        private final HttpHeaders headers;
+        private final Path body;
+        private InputStream in;
+
+        private CachedResponse(HttpHeaders headers, Path body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        @NonNull
+        public HttpStatusCode getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        @NonNull
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+
+        @Override
+        @NonNull
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        @NonNull
+        public InputStream getBody() throws IOException {
+            if (in == null) {
+                in = Files.newInputStream(body);
+            }
+            return in;
+        }
+
+        @Override
+        public void close() {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException _) {
+                    // Nothing left to release
+                }
+            }
+        }
+    }
+}
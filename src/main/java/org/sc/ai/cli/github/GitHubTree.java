@@ -0,0 +1,72 @@
+package org.sc.ai.cli.github;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * The files of a repository at one commit, as listed by the git trees API, with the blob
+ * SHA of each. Two trees tell which files were added, changed or deleted without
+ * downloading any of them.
+ *
+ * @param commit the commit the ref resolved to
+ * @param blobs blob SHA by path from the repository root, for the files below the
+ *        requested directory
+ * @param truncated whether GitHub cut the listing short, in which case files are missing
+ * @author Julius Krah
+ */
+public record GitHubTree(String commit, Map<String, String> blobs, boolean truncated) {
+    private static final String SHA_MEDIA_TYPE = "application/vnd.github.sha";
+
+    /**
+     * Resolves the ref of {@code location}, or the default branch, to a commit and lists
+     * the files below it.
+     *
+     * @param location a directory or the repository root
+     * @param restTemplate sends the requests
+     * @throws IOException if either request fails
+     */
+    @SuppressWarnings("unchecked")
+    public static GitHubTree fetch(GitHubLocation location, RestTemplate restTemplate) throws IOException {
+        var repository = UriComponentsBuilder.newInstance()
+                .scheme("https")
+                .host(GitHubResource.apiHost())
+                .pathSegment("repos", location.getOwner(), location.getRepo());
+        try {
+            var headers = GitHubResource.createHeaders();
+            headers.set(HttpHeaders.ACCEPT, SHA_MEDIA_TYPE);
+            String ref = StringUtils.hasText(location.getRef()) ? location.getRef() : "HEAD";
+            var commit = restTemplate.exchange(repository.cloneBuilder().pathSegment("commits", ref).build().toUri(),
+                    HttpMethod.GET, new HttpEntity<>(headers), String.class).getBody();
+            if (!StringUtils.hasText(commit)) {
+                throw new IOException("Could not resolve " + ref + " of " + location);
+            }
+            commit = commit.trim();
+            var tree = restTemplate.exchange(repository.cloneBuilder().pathSegment("git", "trees", commit)
+                    .queryParam("recursive", 1).build().toUri(), HttpMethod.GET,
+                    new HttpEntity<>(GitHubResource.createHeaders()), Map.class).getBody();
+            if (tree == null) {
+                throw new IOException("Empty tree for " + location + " at " + commit);
+            }
+            var blobs = new LinkedHashMap<String, String>();
+            for (var entry : (List<Map<String, Object>>) tree.getOrDefault("tree", List.of())) {
+                var path = (String) entry.get("path");
+                if ("blob".equals(entry.get("type")) && path.startsWith(location.getPath())) {
+                    blobs.put(path, (String) entry.get("sha"));
+                }
+            }
+            return new GitHubTree(commit, blobs, Boolean.TRUE.equals(tree.get("truncated")));
+        } catch (RestClientException e) {
+            throw new IOException("Failed to list files of " + location, e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.sc.ai.cli.github;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * Selects files of a repository by Ant-style globs on their path from the repository
+ * root, such as {@code docs/**} or {@code **}{@code /*.md}.
+ *
+ * @param includes a file must match one of these, or any file when empty
+ * @param excludes a file matching one of these is left out, even if included
+ * @author Julius Krah
+ */
+public record PathFilter(List<String> includes, List<String> excludes) implements Predicate<String> {
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    public PathFilter {
+        includes = includes == null ? List.of() : List.copyOf(includes);
+        excludes = excludes == null ? List.of() : List.copyOf(excludes);
+    }
+
+    /**
+     * @return a filter that selects every file
+     */
+    public static PathFilter all() {
+        return new PathFilter(List.of(), List.of());
+    }
+
+    @Override
+    public boolean test(String path) {
+        if (!includes.isEmpty() && includes.stream().noneMatch(glob -> MATCHER.match(glob, path))) {
+            return false;
+        }
+        return excludes.stream().noneMatch(glob -> MATCHER.match(glob, path));
+    }
+}
@@ -0,0 +1,210 @@
+package org.sc.ai.cli.github;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Reads the entries of a tar stream one after the other, as written by
+ * {@code git archive}: ustar headers, pax extended headers for long paths and a pax
+ * global header carrying the commit id. Nothing is buffered beyond one header block.
+ *
+ * @author Julius Krah
+ */
+final class TarReader implements Closeable {
+    private static final int BLOCK = 512;
+    private final InputStream in;
+    private final Map<String, String> globalHeaders = new HashMap<>();
+    private long remaining;
+    private long padding;
+
+    /**
+     * @param path the path inside the archive
+     * @param regularFile {@code false} for directories, links and other special entries
+     * @param size the size of the entry in bytes
+     */
+    record Entry(String path, boolean regularFile, long size) {
+    }
+
+    TarReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Skips what is left of the current entry and reads the next header.
+     *
+     * @return the next entry, or {@code null} at the end of the archive
+     */
+    @Nullable
+    Entry next() throws IOException {
+        skipRemaining();
+        Map<String, String> extended = Map.of();
+        String longName = null;
+        while (true) {
+            byte[] header = in.readNBytes(BLOCK);
+            if (header.length < BLOCK || isZero(header)) {
+                return null;
+            }
+            String name = string(header, 0, 100);
+            if ("ustar".equals(string(header, 257, 5))) {
+                String prefix = string(header, 345, 155);
+                if (!prefix.isEmpty()) {
+                    name = prefix + "/" + name;
+                }
+            }
+            long size = number(header, 124, 12);
+            char type = (char) header[156];
+            remaining = size;
+            padding = (BLOCK - size % BLOCK) % BLOCK;
+            switch (type) {
+                case 'g' -> globalHeaders.putAll(pax(readEntry()));
+                case 'x' -> extended = pax(readEntry());
+                case 'L' -> longName = new String(readEntry(), StandardCharsets.UTF_8).replace("\0", "");
+                default -> {
+                    if (extended.containsKey("size")) {
+                        size = Long.parseLong(extended.get("size"));
+                        remaining = size;
+                        padding = (BLOCK - size % BLOCK) % BLOCK;
+                    }
+                    String path = extended.getOrDefault("path", longName != null ? longName : name);
+                    return new Entry(path, type == '0' || type == '\0', size);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the pax global headers read so far, such as {@code comment}, which
+     *         {@code git archive} sets to the commit id
+     */
+    Map<String, String> globalHeaders() {
+        return globalHeaders;
+    }
+
+    /**
+     * @return the contents of the current entry, valid until {@link #next()} is called;
+     *         closing it does not close the archive
+     */
+    InputStream entryStream() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int b = in.read();
+                if (b == -1) {
+                    throw new EOFException("Truncated tar entry");
+                }
+                remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+                if (read == -1) {
+                    throw new EOFException("Truncated tar entry");
+                }
+                remaining -= read;
+                return read;
+            }
+
+            @Override
+            public int available() throws IOException {
+                return (int) Math.min(in.available(), remaining);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private byte[] readEntry() throws IOException {
+        byte[] data = in.readNBytes((int) remaining);
+        if (data.length < remaining) {
+            throw new EOFException("Truncated tar header");
+        }
+        remaining = 0;
+        return data;
+    }
+
+    private void skipRemaining() throws IOException {
+        in.skipNBytes(remaining + padding);
+        remaining = 0;
+        padding = 0;
+    }
+
+    /**
+     * Parses pax records of the form {@code "<length> <key>=<value>\n"}.
+     */
+    private static Map<String, String> pax(byte[] data) {
+        var records = new HashMap<String, String>();
+        int position = 0;
+        while (position < data.length) {
+            int space = position;
+            while (space < data.length && data[space] != ' ') {
+                space++;
+            }
+            if (space == data.length) {
+                break;
+            }
+            int length = Integer.parseInt(new String(data, position, space - position, StandardCharsets.US_ASCII));
+            if (length <= 0 || position + length > data.length) {
+                break;
+            }
+            // The record ends with a newline that is not part of the value
+            var record = new String(data, space + 1, position + length - space - 2, StandardCharsets.UTF_8);
+            int equals = record.indexOf('=');
+            if (equals > 0) {
+                records.put(record.substring(0, equals), record.substring(equals + 1));
+            }
+            position += length;
+        }
+        return records;
+    }
+
+    private static String string(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses an octal field, or a big-endian binary one as GNU tar writes for large sizes.
+     */
+    private static long number(byte[] header, int offset, int length) {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xff);
+            }
+            return value;
+        }
+        var octal = string(header, offset, length).trim();
+        return octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+    }
+
+    private static boolean isZero(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
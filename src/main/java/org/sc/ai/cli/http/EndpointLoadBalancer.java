@@ -0,0 +1,307 @@
+package org.sc.ai.cli.http;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spreads requests addressed to a base URL over several equivalent endpoints, such as a
+ * group of Ollama boxes serving the same models.
+ *
+ * <p>Each request goes to the healthy endpoint with the fewest outstanding requests. A
+ * streaming request is hedged: if its response has not started within the configured
+ * percentile of recent time-to-first-token, the same request is sent to the next best
+ * endpoint and whichever answers first wins, the other is cancelled. Endpoints are probed
+ * in the background and taken out of rotation when they refuse connections.
+ *
+ * @author Julius Krah
+ */
+public class EndpointLoadBalancer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(EndpointLoadBalancer.class);
+    private static final int TTFT_WINDOW = 200;
+    private final URI baseUrl;
+    private final List<Endpoint> endpoints;
+    private final HedgePolicy hedgePolicy;
+    private final LatencyWindow ttft = new LatencyWindow(TTFT_WINDOW);
+    private final HttpClient httpClient;
+    private final String healthPath;
+    private final ScheduledExecutorService healthChecker;
+    private final Counter hedged;
+
+    /**
+     * When to send a second copy of a streaming request.
+     *
+     * @param percentile the percentile of recent time-to-first-token to wait for, or 0 to
+     *        never hedge
+     * @param minSamples samples needed before hedging starts
+     */
+    public record HedgePolicy(double percentile, int minSamples) {
+        public HedgePolicy {
+            Assert.isTrue(percentile >= 0 && percentile <= 1, "percentile must be between 0 and 1");
+        }
+    }
+
+    static final class Endpoint {
+        private final URI uri;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile boolean healthy = true;
+
+        private Endpoint(URI uri) {
+            this.uri = uri;
+        }
+
+        URI uri() {
+            return uri;
+        }
+
+        int outstanding() {
+            return outstanding.get();
+        }
+
+        boolean healthy() {
+            return healthy;
+        }
+    }
+
+    /**
+     * @param baseUrl requests addressed to this scheme, host and port are balanced
+     * @param endpoints the endpoints to balance over
+     * @param hedgePolicy when to hedge streaming requests
+     * @param httpClient used for health checks
+     * @param healthPath the path probed on each endpoint
+     * @param healthCheckInterval how often endpoints are probed
+     * @param meterRegistry registry for endpoint gauges and the hedge counter
+     */
+    public EndpointLoadBalancer(URI baseUrl, List<URI> endpoints, HedgePolicy hedgePolicy, HttpClient httpClient,
+            String healthPath, Duration healthCheckInterval, MeterRegistry meterRegistry) {
+        Assert.notNull(baseUrl, "baseUrl must not be null");
+        Assert.notEmpty(endpoints, "endpoints must not be empty");
+        this.baseUrl = baseUrl;
+        this.endpoints = endpoints.stream().distinct().map(Endpoint::new).toList();
+        this.hedgePolicy = hedgePolicy;
+        this.httpClient = httpClient;
+        this.healthPath = healthPath;
+        for (var endpoint : this.endpoints) {
+            Gauge.builder("sc.endpoint.outstanding", endpoint, Endpoint::outstanding)
+                    .tag("endpoint", endpoint.uri.toString())
+                    .register(meterRegistry);
+            Gauge.builder("sc.endpoint.healthy", endpoint, e -> e.healthy ? 1 : 0)
+                    .tag("endpoint", endpoint.uri.toString())
+                    .register(meterRegistry);
+        }
+        this.hedged = Counter.builder("sc.endpoint.hedged").register(meterRegistry);
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "endpoint-health-checker");
+            t.setDaemon(true);
+            return t;
+        });
+        if (this.endpoints.size() > 1) {
+            // Endpoints start out healthy; connection failures take them out sooner than a probe
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, healthCheckInterval.toMillis(),
+                    healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return an interceptor routing {@code RestClient} requests, failing over once when
+     *         an endpoint refuses the connection
+     */
+    public ClientHttpRequestInterceptor requestInterceptor() {
+        return (request, body, execution) -> {
+            if (!balanced(request.getURI())) {
+                return execution.execute(request, body);
+            }
+            var endpoint = choose(null);
+            try {
+                return execute(request, body, execution, endpoint);
+            } catch (ConnectException e) {
+                var fallback = choose(endpoint);
+                if (fallback == null) {
+                    throw e;
+                }
+                logger.debug("Endpoint {} refused the connection, retrying on {}", endpoint.uri, fallback.uri);
+                return execute(request, body, execution, fallback);
+            }
+        };
+    }
+
+    /**
+     * @return a filter routing and hedging {@code WebClient} requests
+     */
+    public ExchangeFilterFunction exchangeFilter() {
+        return (request, next) -> {
+            if (!balanced(request.url())) {
+                return next.exchange(request);
+            }
+            var primary = choose(null);
+            var response = exchange(request, next, primary);
+            var delay = hedgeDelay();
+            var secondary = delay != null ? choose(primary) : null;
+            if (secondary == null) {
+                return response;
+            }
+            var hedge = Mono.defer(() -> {
+                hedged.increment();
+                logger.debug("No response from {} after {}, hedging to {}", primary.uri, delay, secondary.uri);
+                return exchange(request, next, secondary);
+            }).delaySubscription(delay);
+            return Mono.firstWithValue(response, hedge);
+        };
+    }
+
+    /**
+     * Probes every endpoint once.
+     */
+    public void checkHealth() {
+        for (var endpoint : endpoints) {
+            var probe = java.net.http.HttpRequest.newBuilder(endpoint.uri.resolve(healthPath))
+                    .timeout(Duration.ofSeconds(2))
+                    .GET()
+                    .build();
+            try {
+                var status = httpClient.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode();
+                endpoint.healthy = status < 500;
+            } catch (IOException e) {
+                logger.debug("Health check of {} failed", endpoint.uri, e);
+                endpoint.healthy = false;
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    List<Endpoint> endpoints() {
+        return endpoints;
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+    }
+
+    /**
+     * Picks the healthy endpoint with the fewest outstanding requests. When every endpoint
+     * is unhealthy the first choice ignores health, since a probe may simply be stale.
+     *
+     * @param exclude an endpoint already in use for this request
+     * @return the endpoint, or {@code null} if only {@code exclude} is available
+     */
+    @Nullable
+    Endpoint choose(@Nullable Endpoint exclude) {
+        Endpoint best = null;
+        for (var endpoint : endpoints) {
+            if (endpoint != exclude && endpoint.healthy
+                    && (best == null || endpoint.outstanding() < best.outstanding())) {
+                best = endpoint;
+            }
+        }
+        if (best == null && exclude == null) {
+            for (var endpoint : endpoints) {
+                if (best == null || endpoint.outstanding() < best.outstanding()) {
+                    best = endpoint;
+                }
+            }
+        }
+        return best;
+    }
+
+    @Nullable
+    private Duration hedgeDelay() {
+        if (hedgePolicy.percentile() <= 0 || endpoints.size() < 2 || ttft.size() < hedgePolicy.minSamples()) {
+            return null;
+        }
+        return ttft.percentile(hedgePolicy.percentile());
+    }
+
+    private boolean balanced(URI uri) {
+        return Objects.equals(uri.getScheme(), baseUrl.getScheme())
+                && Objects.equals(uri.getHost(), baseUrl.getHost())
+                && uri.getPort() == baseUrl.getPort();
+    }
+
+    private static URI route(URI uri, Endpoint endpoint) {
+        return UriComponentsBuilder.fromUri(uri)
+                .scheme(endpoint.uri.getScheme())
+                .host(endpoint.uri.getHost())
+                .port(endpoint.uri.getPort())
+                .build(true)
+                .toUri();
+    }
+
+    private ClientHttpResponse execute(HttpRequest request, byte[] body, ClientHttpRequestExecution execution,
+            Endpoint endpoint) throws IOException {
+        var routed = route(request.getURI(), endpoint);
+        endpoint.outstanding.incrementAndGet();
+        try {
+            return execution.execute(new HttpRequestWrapper(request) {
+                @Override
+                @NonNull
+                public URI getURI() {
+                    return routed;
+                }
+            }, body);
+        } catch (ConnectException e) {
+            endpoint.healthy = false;
+            throw e;
+        } finally {
+            endpoint.outstanding.decrementAndGet();
+        }
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, Endpoint endpoint) {
+        return Mono.defer(() -> {
+            endpoint.outstanding.incrementAndGet();
+            var released = new AtomicBoolean();
+            Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    endpoint.outstanding.decrementAndGet();
+                }
+            };
+            long start = System.nanoTime();
+            var routed = ClientRequest.from(request).url(route(request.url(), endpoint)).build();
+            return next.exchange(routed)
+                    .doOnNext(_ -> ttft.record(Duration.ofNanos(System.nanoTime() - start)))
+                    // Outstanding until the streamed body is fully read or cancelled
+                    .map(response -> response.mutate().body(body -> body.doFinally(_ -> release.run())).build())
+                    .doOnError(e -> {
+                        if (e instanceof ConnectException || e.getCause() instanceof ConnectException) {
+                            endpoint.healthy = false;
+                        }
+                        release.run();
+                    })
+                    .doOnCancel(release);
+        });
+    }
+}
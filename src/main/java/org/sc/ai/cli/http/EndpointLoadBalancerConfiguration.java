@@ -0,0 +1,64 @@
+package org.sc.ai.cli.http;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Balances Ollama requests across {@code providers.ollama.endpoints} and the base URL.
+ * The customizers are ordered ahead of the shared client's so routing happens before
+ * requests are counted against a host. A {@code --base-url} given on the command line
+ * pins every request to that endpoint.
+ *
+ * @author Julius Krah
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "providers.ollama.endpoints[0]")
+public class EndpointLoadBalancerConfiguration {
+    private static final String HEALTH_PATH = "/api/version";
+
+    @Bean(destroyMethod = "close")
+    EndpointLoadBalancer ollamaEndpointLoadBalancer(Environment environment, HttpClient httpClient,
+            MeterRegistry meterRegistry, @Value("${spring.ai.ollama.base-url}") URI baseUrl,
+            @Value("${sc.ollama.hedge.percentile:0.95}") double hedgePercentile,
+            @Value("${sc.ollama.hedge.min-samples:20}") int hedgeMinSamples,
+            @Value("${sc.ollama.health-check.interval:30s}") Duration healthCheckInterval) {
+        var endpoints = new ArrayList<URI>();
+        endpoints.add(baseUrl);
+        if (!environment.containsProperty("base-url")) {
+            endpoints.addAll(Binder.get(environment)
+                    .bind("providers.ollama.endpoints", Bindable.listOf(URI.class))
+                    .orElse(List.of()));
+        }
+        return new EndpointLoadBalancer(baseUrl, endpoints,
+                new EndpointLoadBalancer.HedgePolicy(hedgePercentile, hedgeMinSamples),
+                httpClient, HEALTH_PATH, healthCheckInterval, meterRegistry);
+    }
+
+    @Bean
+    @Order(0)
+    RestClientCustomizer endpointLoadBalancerRestClientCustomizer(EndpointLoadBalancer loadBalancer) {
+        return builder -> builder.requestInterceptor(loadBalancer.requestInterceptor());
+    }
+
+    @Bean
+    @Order(0)
+    WebClientCustomizer endpointLoadBalancerWebClientCustomizer(EndpointLoadBalancer loadBalancer) {
+        return builder -> builder.filter(loadBalancer.exchangeFilter());
+    }
+}
@@ -0,0 +1,115 @@
+package org.sc.ai.cli.http;
+
+import java.net.http.HttpClient;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import javax.net.ssl.SSLContext;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * One JDK {@link HttpClient} shared by the Ollama {@code RestClient} and {@code WebClient}
+ * and by the {@link RestTemplate} behind {@code github://} resources, so that connections
+ * are pooled, kept alive and multiplexed over HTTP/2 where the server supports it.
+ *
+ * <p>The JDK client sizes its keep-alive pool from system properties, which are set here
+ * unless given on the command line. They are read once, when the first client is built.
+ *
+ * @author Julius Krah
+ */
+@Configuration(proxyBeanMethods = false)
+public class HttpClientConfiguration {
+    private static final String POOL_SIZE_PROPERTY = "jdk.httpclient.connectionPoolSize";
+    private static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+    private static final String KEEP_ALIVE_H2_PROPERTY = "jdk.httpclient.keepalive.timeout.h2";
+
+    @Bean
+    HttpClientMetrics httpClientMetrics(MeterRegistry meterRegistry) {
+        return new HttpClientMetrics(meterRegistry);
+    }
+
+    @Bean
+    HttpClient httpClient(HttpClientMetrics metrics,
+            @Value("${sc.http.client.connect-timeout:10s}") Duration connectTimeout,
+            @Value("${sc.http.client.pool-size:8}") int poolSize,
+            @Value("${sc.http.client.keep-alive:5m}") Duration keepAlive) throws NoSuchAlgorithmException {
+        var keepAliveSeconds = String.valueOf(keepAlive.toSeconds());
+        setIfAbsent(POOL_SIZE_PROPERTY, String.valueOf(poolSize));
+        setIfAbsent(KEEP_ALIVE_PROPERTY, keepAliveSeconds);
+        setIfAbsent(KEEP_ALIVE_H2_PROPERTY, keepAliveSeconds);
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .sslContext(metrics.sslContext(SSLContext.getDefault()))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @Bean
+    JdkClientHttpRequestFactory clientHttpRequestFactory(HttpClient httpClient,
+            @Value("${sc.http.client.read-timeout:5m}") Duration readTimeout) {
+        var requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        return requestFactory;
+    }
+
+    @Bean
+    RestClientCustomizer sharedHttpClientRestClientCustomizer(JdkClientHttpRequestFactory requestFactory,
+            HttpClientMetrics metrics, @Value("${sc.http.client.compression:true}") boolean compression) {
+        return builder -> {
+            builder.requestFactory(requestFactory).requestInterceptor(metrics.requestInterceptor());
+            if (compression) {
+                builder.requestInterceptor(new GzipResponseInterceptor());
+            }
+        };
+    }
+
+    /**
+     * Streaming responses are not compressed: decompression would buffer the chunks the
+     * chat output is waiting for.
+     */
+    @Bean
+    WebClientCustomizer sharedHttpClientWebClientCustomizer(HttpClient httpClient, HttpClientMetrics metrics,
+            @Value("${sc.http.client.read-timeout:5m}") Duration readTimeout) {
+        var connector = new JdkClientHttpConnector(httpClient);
+        connector.setReadTimeout(readTimeout);
+        return builder -> builder.clientConnector(connector).filter(metrics.exchangeFilter());
+    }
+
+    /**
+     * Interceptor beans, such as the {@code github://} response cache, run first so that
+     * they see decompressed responses.
+     */
+    @Bean
+    RestTemplate restTemplate(JdkClientHttpRequestFactory requestFactory, HttpClientMetrics metrics,
+            ObjectProvider<ClientHttpRequestInterceptor> interceptors,
+            @Value("${sc.http.client.compression:true}") boolean compression) {
+        var restTemplate = new RestTemplate(requestFactory);
+        interceptors.orderedStream().forEach(restTemplate.getInterceptors()::add);
+        restTemplate.getInterceptors().add(metrics.requestInterceptor());
+        if (compression) {
+            restTemplate.getInterceptors().add(new GzipResponseInterceptor());
+        }
+        return restTemplate;
+    }
+
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.sc.ai.cli.http;
+
+import java.net.URI;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-host request and connection counters for the shared HTTP client. Requests are
+ * counted by an interceptor on every client that uses it. New connections are counted
+ * when the JDK {@link java.net.http.HttpClient} asks its {@link SSLContext} for an
+ * engine, which it does once per TLS connection, so {@code requests - connections} is the
+ * number of requests that reused a pooled or multiplexed connection.
+ *
+ * <p>Cleartext connections, such as a local Ollama, are not observable through the JDK
+ * client and only show up as requests.
+ *
+ * @author Julius Krah
+ */
+public class HttpClientMetrics {
+    static final String REQUESTS = "sc.http.client.requests";
+    static final String CONNECTIONS = "sc.http.client.connections";
+    private final MeterRegistry meterRegistry;
+
+    public HttpClientMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return an interceptor counting requests per host for {@code RestClient} and
+     *         {@code RestTemplate}
+     */
+    public ClientHttpRequestInterceptor requestInterceptor() {
+        return (request, body, execution) -> {
+            countRequest(request.getURI());
+            return execution.execute(request, body);
+        };
+    }
+
+    /**
+     * @return a filter counting requests per host for {@code WebClient}
+     */
+    public ExchangeFilterFunction exchangeFilter() {
+        return (request, next) -> {
+            countRequest(request.url());
+            return next.exchange(request);
+        };
+    }
+
+    /**
+     * Wraps {@code delegate} so that every new TLS connection is counted against its host.
+     *
+     * @param delegate an initialised SSL context
+     * @return the counting SSL context
+     */
+    public SSLContext sslContext(SSLContext delegate) {
+        return new CountingSslContext(delegate, this);
+    }
+
+    private void countRequest(URI uri) {
+        counter(REQUESTS, uri.getHost()).increment();
+    }
+
+    private void countConnection(String host) {
+        counter(CONNECTIONS, host).increment();
+    }
+
+    private Counter counter(String name, String host) {
+        return Counter.builder(name)
+                .tag("host", host != null ? host : "unknown")
+                .register(meterRegistry);
+    }
+
+    private static final class CountingSslContext extends SSLContext {
+        private CountingSslContext(SSLContext delegate, HttpClientMetrics metrics) {
+            super(new CountingSslContextSpi(delegate, metrics), delegate.getProvider(), delegate.getProtocol());
+        }
+    }
+
+    private static final class CountingSslContextSpi extends SSLContextSpi {
+        private final SSLContext delegate;
+        private final HttpClientMetrics metrics;
+
+        private CountingSslContextSpi(SSLContext delegate, HttpClientMetrics metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        @Override
+        protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr) throws KeyManagementException {
+            delegate.init(km, tm, sr);
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return delegate.getSocketFactory();
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return delegate.getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            return delegate.createSSLEngine();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(String host, int port) {
+            metrics.countConnection(host);
+            return delegate.createSSLEngine(host, port);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return delegate.getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return delegate.getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return delegate.getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return delegate.getSupportedSSLParameters();
+        }
+    }
+}
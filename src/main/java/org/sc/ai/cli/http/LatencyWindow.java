@@ -0,0 +1,43 @@
+package org.sc.ai.cli.http;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * A fixed-size window of the most recent latency samples.
+ *
+ * @author Julius Krah
+ */
+class LatencyWindow {
+    private final long[] samples;
+    private int next;
+    private int size;
+
+    LatencyWindow(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    synchronized void record(Duration latency) {
+        samples[next] = latency.toNanos();
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return the latency at the given percentile, or {@link Duration#ZERO} without samples
+     */
+    synchronized Duration percentile(double percentile) {
+        if (size == 0) {
+            return Duration.ZERO;
+        }
+        var sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return Duration.ofNanos(sorted[Math.clamp(index, 0, size - 1)]);
+    }
+}
@@ -0,0 +1,143 @@
+package org.sc.ai.cli.rag;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the stages of a RAG ingest, updated by the pipeline and rendered as one
+ * status line, such as
+ * {@code read 42 pages ✓ · split 310 chunks ✓ · embed 120/310 embeddings 14.2/s ETA 13s}.
+ *
+ * <p>Stages that have not started are left out. A stage with a known total, such as
+ * embedding once the chunks are counted, shows the remaining time at its current rate.
+ *
+ * @author Julius Krah
+ */
+public class EtlProgress {
+    private final Map<Stage, StageCounter> stages = new EnumMap<>(Stage.class);
+
+    public enum Stage {
+        FETCH("fetch", "files"),
+        READ("read", "pages"),
+        SPLIT("split", "chunks"),
+        EMBED("embed", "embeddings"),
+        WRITE("write", null);
+
+        private final String label;
+        private final String unit;
+
+        Stage(String label, String unit) {
+            this.label = label;
+            this.unit = unit;
+        }
+    }
+
+    private static final class StageCounter {
+        private final LongAdder count = new LongAdder();
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private volatile long total = -1;
+    }
+
+    public EtlProgress() {
+        for (var stage : Stage.values()) {
+            stages.put(stage, new StageCounter());
+        }
+    }
+
+    /**
+     * Marks {@code stage} as started, unless it already is.
+     */
+    public void start(Stage stage) {
+        var counter = stages.get(stage);
+        if (counter.startNanos == 0) {
+            counter.startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * @param stage the stage making progress, started if it has not been
+     * @param amount items, or bytes for {@link Stage#WRITE}
+     */
+    public void add(Stage stage, long amount) {
+        start(stage);
+        stages.get(stage).count.add(amount);
+    }
+
+    /**
+     * @param stage the stage whose total is now known
+     * @param total the number of items it will process
+     */
+    public void expect(Stage stage, long total) {
+        stages.get(stage).total = total;
+    }
+
+    public void finish(Stage stage) {
+        start(stage);
+        stages.get(stage).endNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the current state of every started stage
+     */
+    public String render() {
+        long now = System.nanoTime();
+        var line = new StringJoiner(" · ");
+        for (var entry : stages.entrySet()) {
+            var counter = entry.getValue();
+            if (counter.startNanos != 0) {
+                line.add(render(entry.getKey(), counter, now));
+            }
+        }
+        return line.toString();
+    }
+
+    private static String render(Stage stage, StageCounter counter, long now) {
+        long count = counter.count.sum();
+        boolean finished = counter.endNanos != 0;
+        var text = new StringBuilder(stage.label).append(' ');
+        if (stage.unit == null) {
+            text.append(bytes(count));
+        } else {
+            text.append(count);
+            if (counter.total >= 0 && !finished) {
+                text.append('/').append(counter.total);
+            }
+            text.append(' ').append(stage.unit);
+        }
+        if (finished) {
+            return text.append(" ✓").toString();
+        }
+        double seconds = (now - counter.startNanos) / 1e9;
+        if (stage.unit != null && count > 0 && seconds >= 1) {
+            double rate = count / seconds;
+            text.append(String.format(Locale.ROOT, " %.1f/s", rate));
+            if (counter.total > count) {
+                text.append(" ETA ").append(duration(Duration.ofSeconds((long) ((counter.total - count) / rate))));
+            }
+        }
+        return text.toString();
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format(Locale.ROOT, "%.1f %sB", bytes / (double) (1L << (unit * 10)), " KMGTPE".charAt(unit));
+    }
+
+    private static String duration(Duration duration) {
+        if (duration.toHours() > 0) {
+            return String.format(Locale.ROOT, "%dh%02dm", duration.toHours(), duration.toMinutesPart());
+        }
+        if (duration.toMinutes() > 0) {
+            return String.format(Locale.ROOT, "%dm%02ds", duration.toMinutes(), duration.toSecondsPart());
+        }
+        return duration.toSeconds() + "s";
+    }
+}
@@ -0,0 +1,95 @@
+package org.sc.ai.cli.rag;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * What was indexed from a {@code github://} directory: the commit, and the blob SHA and
+ * vector ids of each file, so the next ingest only embeds what changed.
+ *
+ * @author Julius Krah
+ */
+final class GitHubIndexState {
+    private static final String COMMIT = "commit";
+    private static final String FILE_PREFIX = "file.";
+    @Nullable
+    private String commit;
+    private final Map<String, IndexedFile> files = new ConcurrentHashMap<>();
+
+    /**
+     * @param blob the blob SHA the file was read at
+     * @param chunkIds the ids of its chunks in the vector store
+     */
+    record IndexedFile(String blob, List<String> chunkIds) {
+    }
+
+    /**
+     * @return the state stored at {@code path}, or an empty one if there is none
+     */
+    static GitHubIndexState load(Path path) throws IOException {
+        var state = new GitHubIndexState();
+        if (Files.notExists(path)) {
+            return state;
+        }
+        var properties = new Properties();
+        try (var in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        state.commit = properties.getProperty(COMMIT);
+        for (var name : properties.stringPropertyNames()) {
+            if (name.startsWith(FILE_PREFIX)) {
+                // "<blob> <id>,<id>,..."; a file without chunks has no ids
+                var value = properties.getProperty(name).split(" ", 2);
+                var ids = value.length < 2 || value[1].isEmpty() ? List.<String>of() : Arrays.asList(value[1].split(","));
+                state.files.put(name.substring(FILE_PREFIX.length()), new IndexedFile(value[0], ids));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Replaces the file at {@code path} in one move, so an interrupted save leaves the
+     * previous state.
+     */
+    void save(Path path) throws IOException {
+        var properties = new Properties();
+        if (commit != null) {
+            properties.setProperty(COMMIT, commit);
+        }
+        files.forEach((file, indexed) -> properties.setProperty(FILE_PREFIX + file,
+                indexed.blob() + " " + String.join(",", indexed.chunkIds())));
+        Files.createDirectories(path.getParent());
+        var temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (var out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(out, null);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Nullable
+    String commit() {
+        return commit;
+    }
+
+    void commit(String commit) {
+        this.commit = commit;
+    }
+
+    Map<String, IndexedFile> files() {
+        return files;
+    }
+}
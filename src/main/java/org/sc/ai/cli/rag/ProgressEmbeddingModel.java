@@ -0,0 +1,45 @@
+package org.sc.ai.cli.rag;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.lang.NonNull;
+
+/**
+ * Counts embeddings into {@link EtlProgress} as each batch returns.
+ *
+ * @author Julius Krah
+ */
+class ProgressEmbeddingModel implements EmbeddingModel {
+    private final EmbeddingModel delegate;
+    private final EtlProgress progress;
+
+    ProgressEmbeddingModel(EmbeddingModel delegate, EtlProgress progress) {
+        this.delegate = delegate;
+        this.progress = progress;
+    }
+
+    @Override
+    @NonNull
+    public EmbeddingResponse call(@NonNull EmbeddingRequest request) {
+        progress.start(EtlProgress.Stage.EMBED);
+        var response = delegate.call(request);
+        progress.add(EtlProgress.Stage.EMBED, response.getResults().size());
+        return response;
+    }
+
+    @Override
+    @NonNull
+    public float[] embed(@NonNull Document document) {
+        progress.start(EtlProgress.Stage.EMBED);
+        var embedding = delegate.embed(document);
+        progress.add(EtlProgress.Stage.EMBED, 1);
+        return embedding;
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -2,13 +2,17 @@ package org.sc.ai.cli.rag;
 
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.function.Consumer;
+import java.util.List;
 
 import org.sc.ai.cli.command.ChatbotVersionProvider;
 import org.sc.ai.cli.command.ProviderMixin;
 import org.sc.ai.cli.command.Spinner;
+import org.sc.ai.cli.github.GitHubResponseCache;
+import org.sc.ai.cli.github.PathFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import picocli.CommandLine;
@@ -28,6 +32,7 @@ import picocli.CommandLine.Spec;
 public class RagCommand implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(RagCommand.class);
     private final RagService ragService;
+    private final ObjectProvider<GitHubResponseCache> gitHubResponseCache;
     
     @Spec
     private CommandLine.Model.CommandSpec spec;
@@ -44,21 +49,39 @@ public class RagCommand implements Runnable {
             The document to process. Supported protocols:
             - @|bg(cyan) file:///path/to/file|@ (Local file)
             - @|bg(cyan) https://<url>|@        (Remote file, HTTPS only)
-            - @|bg(cyan) s3://<bucket>/<key>|@  (S3 file)""")
+            - @|bg(cyan) s3://<bucket>/<key>|@  (S3 file)
+            - @|bg(cyan) github://<owner>/<repo>/contents/<path>|@ (GitHub file, or directory with a trailing /)""")
     private String document;
 
-    public RagCommand(RagService ragService) {
+    @Option(names = "--include", paramLabel = "GLOB", split = ",", description = "Only process files of a github:// directory whose path matches, e.g. '**/*.md'")
+    private List<String> includes = List.of();
+
+    @Option(names = "--exclude", paramLabel = "GLOB", split = ",", description = "Skip files of a github:// directory whose path matches, e.g. 'test/**'")
+    private List<String> excludes = List.of();
+
+    @Option(names = "--refresh", description = "Fetch github:// documents again instead of revalidating cached copies")
+    private boolean refresh;
+
+    /**
+     * The rag service is injected lazily so that picocli creating this subcommand does
+     * not build the embedding model for other commands.
+     */
+    public RagCommand(@Lazy RagService ragService, ObjectProvider<GitHubResponseCache> gitHubResponseCache) {
         this.ragService = ragService;
+        this.gitHubResponseCache = gitHubResponseCache;
     }
 
     @Override
     public void run() {
         validateParameters();
+        if (refresh) {
+            gitHubResponseCache.ifAvailable(cache -> cache.setRefresh(true));
+        }
         try {
             if (etlTarget == EtlTarget.FILE) {
-                processFileTarget(Spinner::stop);
+                processFileTarget();
             } else {
-                processVectorStoreTarget(Spinner::stop);
+                processVectorStoreTarget();
             }
         } catch (IOException e) {
             if(logger.isErrorEnabled()) {
@@ -79,22 +102,40 @@ public class RagCommand implements Runnable {
         }
     }
 
-    private void processFileTarget(Consumer<Spinner> callback) throws IOException {
-        var spinner = new Spinner(spec.commandLine().getOut(), "Processing...");
-        spinner.start();
-        Path result = ragService.processToFile(document, outputFile);
-        callback.accept(spinner);
+    private void processFileTarget() throws IOException {
+        var progress = new EtlProgress();
+        var spinner = progressSpinner(progress);
+        Path result;
+        try {
+            result = ragService.processToFile(document, outputFile, progress, new PathFilter(includes, excludes));
+        } finally {
+            spinner.stop();
+        }
+        spec.commandLine().getOut().println(progress.render());
         spec.commandLine().getOut().println("Processed document saved to: " + result);
     }
 
-    private void processVectorStoreTarget(Consumer<Spinner> callback) throws IOException {
-        var spinner = new Spinner(spec.commandLine().getOut(), "Processing...");
-        spinner.start();
-        ragService.processToVectorStore(document);
-        callback.accept(spinner);
+    private void processVectorStoreTarget() throws IOException {
+        var progress = new EtlProgress();
+        var spinner = progressSpinner(progress);
+        try {
+            ragService.processToVectorStore(document, progress, new PathFilter(includes, excludes));
+        } finally {
+            spinner.stop();
+        }
+        spec.commandLine().getOut().println(progress.render());
         spec.commandLine().getOut().println("Document processed and saved to vector store");
     }
 
+    private Spinner progressSpinner(EtlProgress progress) {
+        var spinner = new Spinner(spec.commandLine().getOut(), () -> {
+            var line = progress.render();
+            return line.isEmpty() ? "Processing..." : line;
+        });
+        spinner.start();
+        return spinner;
+    }
+
     enum EtlTarget {
         FILE("file"),
         VECTOR_STORE("vectorStore");
@@ -1,11 +1,25 @@
 package org.sc.ai.cli.rag;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Predicate;
 
+import org.sc.ai.cli.github.GitHubArchive;
+import org.sc.ai.cli.github.GitHubFetchScheduler;
+import org.sc.ai.cli.github.GitHubResource;
+import org.sc.ai.cli.github.PathFilter;
 import org.slf4j.Logger;
+import org.springframework.ai.document.Document;
 import org.springframework.ai.document.DocumentReader;
 import org.springframework.ai.document.DocumentTransformer;
 import org.springframework.ai.document.DocumentWriter;
@@ -20,6 +34,7 @@ import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.writer.FileDocumentWriter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.PathResource;
 import org.springframework.core.io.Resource;
@@ -32,17 +47,36 @@ import org.springframework.stereotype.Service;
 @Service
 public class RagService {
     private static final Logger logger = org.slf4j.LoggerFactory.getLogger(RagService.class);
+    /**
+     * Metadata key of the {@code github://} location a chunk was read from.
+     */
+    public static final String SOURCE_METADATA = "source";
+    /**
+     * Metadata key of the commit a {@code github://} chunk was read at.
+     */
+    public static final String COMMIT_METADATA = "commit_sha";
+    /**
+     * Metadata key of a chunk's position among the chunks of its source, counted across the
+     * documents the source was read into.
+     */
+    public static final String CHUNK_INDEX_METADATA = "chunk_index";
     private final ResourceLoader resourceLoader;
     private final EmbeddingModel embeddingModel;
-    private DocumentReader documentReader;
-    private DocumentTransformer documentTransformer;
-    private DocumentWriter documentWriter;
+    private final ObjectProvider<GitHubFetchScheduler> fetchScheduler;
+    // Holds no state between calls, so concurrent runs and parallel fetches can share it
+    private final DocumentTransformer documentTransformer = new TokenTextSplitter(true);
     @Value("${sc.vector.simple.store:}")
     private PathResource vectorStoreStorageDirectory;
+    @Value("${sc.github.index.directory:${sc.config.dir}/index/github}")
+    private Path gitHubIndexDirectory;
+    @Value("${sc.github.index.archive-threshold:50}")
+    private int archiveThreshold;
 
-    public RagService(ResourceLoader resourceLoader, EmbeddingModel embeddingModel) {
+    public RagService(ResourceLoader resourceLoader, EmbeddingModel embeddingModel,
+            ObjectProvider<GitHubFetchScheduler> fetchScheduler) {
         this.resourceLoader = resourceLoader;
         this.embeddingModel = embeddingModel;
+        this.fetchScheduler = fetchScheduler;
     }
 
     /**
@@ -54,8 +88,37 @@ public class RagService {
      * @throws IOException if there's an error processing the document
      */
     public Path processToFile(String documentUri, Path outputPath) throws IOException {
+        return processToFile(documentUri, outputPath, new EtlProgress());
+    }
+
+    /**
+     * Process a document and save to file, reporting each stage to {@code progress}.
+     *
+     * @param documentUri The URI of the document to process
+     * @param outputPath The path to save the processed output
+     * @param progress receives the pipeline counters
+     * @return The path where the output was saved
+     * @throws IOException if there's an error processing the document
+     */
+    public Path processToFile(String documentUri, Path outputPath, EtlProgress progress) throws IOException {
+        return processToFile(documentUri, outputPath, progress, PathFilter.all());
+    }
+
+    /**
+     * Process a document, or every file of a {@code github://} directory that
+     * {@code filter} selects, and save to file.
+     *
+     * @param documentUri The URI of the document or directory to process
+     * @param outputPath The path to save the processed output
+     * @param progress receives the pipeline counters
+     * @param filter selects the files of a {@code github://} directory
+     * @return The path where the output was saved
+     * @throws IOException if there's an error processing the document
+     */
+    public Path processToFile(String documentUri, Path outputPath, EtlProgress progress, PathFilter filter)
+            throws IOException {
         logger.info("Processing document {} to file {}", documentUri, outputPath);
-        return processLocalFile(documentUri, outputPath);
+        return processLocalFile(documentUri, outputPath, progress, filter);
     }
 
     /**
@@ -65,37 +128,89 @@ public class RagService {
      * @throws IOException if there's an error processing the document
      */
     public void processToVectorStore(String documentUri) throws IOException {
+        processToVectorStore(documentUri, new EtlProgress());
+    }
+
+    /**
+     * Process a document and save to vector store, reporting each stage to
+     * {@code progress}.
+     *
+     * @param documentUri The URI of the document to process
+     * @param progress receives the pipeline counters
+     * @throws IOException if there's an error processing the document
+     */
+    public void processToVectorStore(String documentUri, EtlProgress progress) throws IOException {
+        processToVectorStore(documentUri, progress, PathFilter.all());
+    }
+
+    /**
+     * Process a document, or every file of a {@code github://} directory that
+     * {@code filter} selects, and save to vector store.
+     *
+     * @param documentUri The URI of the document or directory to process
+     * @param progress receives the pipeline counters
+     * @param filter selects the files of a {@code github://} directory
+     * @throws IOException if there's an error processing the document
+     */
+    public void processToVectorStore(String documentUri, EtlProgress progress, PathFilter filter) throws IOException {
         logger.info("Processing document {} to vector store", documentUri);
-        processToSimpleVectorstore(documentUri);
+        processToSimpleVectorstore(documentUri, progress, filter);
     }
 
-    private Path processLocalFile(String location, Path outputFile) throws IOException {
+    private Path processLocalFile(String location, Path outputFile, EtlProgress progress, PathFilter filter)
+            throws IOException {
         var resource = resourceLoader.getResource(location);
-        documentReader = determineReader(resource);
-        documentTransformer = new TokenTextSplitter(true);
-        documentWriter = new FileDocumentWriter(outputFile.toString(), true, MetadataMode.ALL, false);
-        etl();
+        // Each file of a directory is written on its own, so start empty and append
+        Files.deleteIfExists(outputFile);
+        var documentWriter = new FileDocumentWriter(outputFile.toString(), true, MetadataMode.ALL, true);
+        if (isGitHubDirectory(resource)) {
+            etlArchive(((GitHubResource) resource).archive(), filter, documentWriter, progress);
+        } else {
+            etl(determineReader(resource), location, documentWriter, progress);
+        }
         if (Files.notExists(outputFile)) {
             throw new IOException("File not found: " + outputFile);
         }
+        progress.add(EtlProgress.Stage.WRITE, Files.size(outputFile));
+        progress.finish(EtlProgress.Stage.WRITE);
         return outputFile;
     }
 
-    private void processToSimpleVectorstore(String location) throws IOException {
+    private void processToSimpleVectorstore(String location, EtlProgress progress, PathFilter filter)
+            throws IOException {
         var resource = resourceLoader.getResource(location);
-        documentReader = determineReader(resource);
-        documentTransformer = new TokenTextSplitter(true);
-        var vectorStore = SimpleVectorStore.builder(embeddingModel)
+        var vectorStore = SimpleVectorStore.builder(new ProgressEmbeddingModel(embeddingModel, progress))
                 .build();
         var vectorDir = Path.of(vectorStoreStorageDirectory.getURI());
         if (Files.notExists(vectorDir)) {
             Files.createDirectories(vectorDir);
         }
-        var fileName = Instant.now().toEpochMilli() + ".json";
-        Path vectorStorePath = vectorDir.resolve(fileName);
-        documentWriter = vectorStore;
-        etl();
-        vectorStore.save(vectorStorePath.toFile());
+        Path vectorStorePath;
+        if (isGitHubDirectory(resource)) {
+            var directory = (GitHubResource) resource;
+            var key = indexKey(directory);
+            vectorStorePath = vectorDir.resolve(key + ".json");
+            var stateFile = gitHubIndexDirectory.resolve(key + ".properties");
+            var state = GitHubIndexState.load(stateFile);
+            if (Files.exists(vectorStorePath)) {
+                vectorStore.load(vectorStorePath.toFile());
+            } else {
+                state = new GitHubIndexState();
+            }
+            reindex(directory, filter, vectorStore, state, progress);
+            progress.finish(EtlProgress.Stage.EMBED);
+            progress.start(EtlProgress.Stage.WRITE);
+            vectorStore.save(vectorStorePath.toFile());
+            state.save(stateFile);
+        } else {
+            vectorStorePath = vectorDir.resolve(Instant.now().toEpochMilli() + ".json");
+            etl(determineReader(resource), location, vectorStore, progress);
+            progress.finish(EtlProgress.Stage.EMBED);
+            progress.start(EtlProgress.Stage.WRITE);
+            vectorStore.save(vectorStorePath.toFile());
+        }
+        progress.add(EtlProgress.Stage.WRITE, Files.size(vectorStorePath));
+        progress.finish(EtlProgress.Stage.WRITE);
     }
 
     DocumentReader determineReader(Resource resource) {
@@ -137,7 +252,168 @@ public class RagService {
         return lastDotIndex == -1 ? "" : filename.substring(lastDotIndex + 1);
     }
 
-    private void etl() {
-        documentWriter.write(documentTransformer.transform(documentReader.read()));
+    private void etl(DocumentReader documentReader, String location, DocumentWriter documentWriter,
+            EtlProgress progress) {
+        progress.start(EtlProgress.Stage.READ);
+        var documents = documentReader.read();
+        // Not every reader records where a document came from
+        documents.forEach(document -> document.getMetadata().putIfAbsent(SOURCE_METADATA, location));
+        progress.add(EtlProgress.Stage.READ, documents.size());
+        progress.finish(EtlProgress.Stage.READ);
+        progress.start(EtlProgress.Stage.SPLIT);
+        var chunks = split(documents);
+        progress.add(EtlProgress.Stage.SPLIT, chunks.size());
+        progress.finish(EtlProgress.Stage.SPLIT);
+        progress.expect(EtlProgress.Stage.EMBED, chunks.size());
+        documentWriter.write(chunks);
+    }
+
+    /**
+     * Splits the documents read from one source, numbering the chunks in reading order so
+     * retrieval can tell which chunks follow each other.
+     */
+    private List<Document> split(List<Document> documents) {
+        var chunks = new ArrayList<Document>();
+        for (var document : documents) {
+            for (var chunk : documentTransformer.transform(List.of(document))) {
+                chunk.getMetadata().put(CHUNK_INDEX_METADATA, chunks.size());
+                chunks.add(chunk);
+            }
+        }
+        return chunks;
+    }
+
+    private static boolean isGitHubDirectory(Resource resource) {
+        return resource instanceof GitHubResource github && github.getLocation().isDirectory();
+    }
+
+    /**
+     * Runs each file of the archive through the pipeline as it is downloaded, so only the
+     * chunks of one file are held at a time.
+     */
+    private void etlArchive(GitHubArchive archive, PathFilter filter, DocumentWriter documentWriter,
+            EtlProgress progress) throws IOException {
+        progress.start(EtlProgress.Stage.FETCH);
+        int files = archive.read(filter, entry -> ingest(entry, documentWriter, progress));
+        if (files == 0) {
+            throw new IOException("No files matched in " + archive);
+        }
+        finishFetch(progress);
+    }
+
+    /**
+     * Brings the vector store of a {@code github://} directory up to date with its ref.
+     *
+     * <p>The git trees API lists the blob SHA of every file at the current commit, which is
+     * compared with the SHAs recorded at the last ingest. Only added and changed files are
+     * fetched and embedded, and the vectors of changed and deleted files are removed.
+     * Small changes are fetched file by file, in parallel through the
+     * {@link GitHubFetchScheduler}, larger ones from one tarball; both are pinned to the
+     * listed commit so a branch moving meanwhile cannot mix two versions.
+     */
+    private void reindex(GitHubResource directory, PathFilter filter, SimpleVectorStore vectorStore,
+            GitHubIndexState state, EtlProgress progress) throws IOException {
+        progress.start(EtlProgress.Stage.FETCH);
+        var tree = directory.tree();
+        var current = new LinkedHashMap<String, String>();
+        tree.blobs().forEach((path, blob) -> {
+            if (filter.test(path)) {
+                current.put(path, blob);
+            }
+        });
+        var changed = new LinkedHashSet<String>();
+        current.forEach((path, blob) -> {
+            var indexed = state.files().get(path);
+            if (tree.truncated() || indexed == null || !indexed.blob().equals(blob)) {
+                changed.add(path);
+            }
+        });
+        var stale = new ArrayList<String>();
+        for (var files = state.files().entrySet().iterator(); files.hasNext();) {
+            var file = files.next();
+            // A truncated listing cannot tell deleted files from unlisted ones, so start over
+            if (tree.truncated() || !current.containsKey(file.getKey()) || changed.contains(file.getKey())) {
+                stale.addAll(file.getValue().chunkIds());
+                files.remove();
+            }
+        }
+        if (!stale.isEmpty()) {
+            vectorStore.delete(stale);
+        }
+        logger.info("{} at {}: {} of {} files to index, {} stale chunks removed", directory.getDescription(),
+                tree.commit(), changed.size(), current.size(), stale.size());
+        var pinned = directory.withRef(tree.commit());
+        if (tree.truncated() || changed.size() > archiveThreshold) {
+            Predicate<String> selected = tree.truncated() ? filter : changed::contains;
+            pinned.archive().read(selected, entry -> state.files().put(entry.location().getPath(),
+                    new GitHubIndexState.IndexedFile(current.getOrDefault(entry.location().getPath(), ""),
+                            ingest(entry, vectorStore, progress))));
+        } else {
+            GitHubFetchScheduler.Task<String> fetch = path -> {
+                var file = pinned.createRelative("/" + path);
+                try (var in = file.getInputStream()) {
+                    var entry = GitHubArchive.entry(file.getLocation(), tree.commit(), in);
+                    state.files().put(path, new GitHubIndexState.IndexedFile(current.get(path),
+                            ingest(entry, vectorStore, progress)));
+                }
+            };
+            var scheduler = fetchScheduler.getIfAvailable();
+            if (scheduler != null) {
+                scheduler.forEach(changed, fetch);
+            } else {
+                for (var path : changed) {
+                    fetch.run(path);
+                }
+            }
+        }
+        state.commit(tree.commit());
+        finishFetch(progress);
+    }
+
+    /**
+     * Reads, tags and splits one file of a {@code github://} directory and writes its
+     * chunks. Chunks are tagged with the file's location and the commit it was read at.
+     *
+     * @return the ids of the chunks written, none for a skipped binary file
+     */
+    private List<String> ingest(GitHubArchive.Entry entry, DocumentWriter documentWriter, EtlProgress progress) {
+        if (entry.binary() && !"pdf".equals(getFileExtension(entry.location().getFileName().toLowerCase()))) {
+            logger.debug("Skipping binary file {}", entry.location());
+            return List.of();
+        }
+        progress.add(EtlProgress.Stage.FETCH, 1);
+        var documents = determineReader(entry.content()).read();
+        for (var document : documents) {
+            document.getMetadata().put(SOURCE_METADATA, entry.location().toString());
+            if (entry.commit() != null) {
+                document.getMetadata().put(COMMIT_METADATA, entry.commit());
+            }
+        }
+        progress.add(EtlProgress.Stage.READ, documents.size());
+        var chunks = split(documents);
+        progress.add(EtlProgress.Stage.SPLIT, chunks.size());
+        documentWriter.write(chunks);
+        return chunks.stream().map(Document::getId).toList();
+    }
+
+    private static void finishFetch(EtlProgress progress) {
+        progress.finish(EtlProgress.Stage.FETCH);
+        progress.finish(EtlProgress.Stage.READ);
+        progress.finish(EtlProgress.Stage.SPLIT);
+    }
+
+    /**
+     * @return a file name unique to the owner, repository, directory and ref
+     */
+    private static String indexKey(GitHubResource directory) {
+        var location = directory.getLocation();
+        try {
+            var digest = MessageDigest.getInstance("SHA-256")
+                    .digest(location.toString().getBytes(StandardCharsets.UTF_8));
+            return "github-%s-%s-%s".formatted(location.getOwner(), location.getRepo(),
+                    HexFormat.of().formatHex(digest, 0, 6));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
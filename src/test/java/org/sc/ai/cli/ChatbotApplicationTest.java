@@ -0,0 +1,60 @@
+package org.sc.ai.cli;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Unit tests for the subcommand profile selection in {@link ChatbotApplication}.
+ *
+ * @author Julius Krah
+ */
+class ChatbotApplicationTest {
+
+    @Test
+    void commandProfiles_shouldBootFullContext_forChat() {
+        assertThat(ChatbotApplication.commandProfiles("chat", "Hello")).isEmpty();
+    }
+
+    @Test
+    void commandProfiles_shouldSkipBaseUrlValue() {
+        assertThat(ChatbotApplication.commandProfiles("--base-url", "http://localhost:11434", "chat")).isEmpty();
+        assertThat(ChatbotApplication.commandProfiles("--base-url", "http://localhost:11434", "rag", "file:///a.txt"))
+                .containsExactly("cli-rag");
+    }
+
+    @Test
+    void commandProfiles_shouldUseMinimalProfile_forConfigAndHelp() {
+        assertThat(ChatbotApplication.commandProfiles("config", "--get", "provider")).containsExactly("cli-minimal");
+        assertThat(ChatbotApplication.commandProfiles("--help")).containsExactly("cli-minimal");
+        assertThat(ChatbotApplication.commandProfiles()).containsExactly("cli-minimal");
+    }
+
+    @Test
+    void commandProfiles_shouldBootFullContext_forForegroundDaemon() {
+        assertThat(ChatbotApplication.commandProfiles("daemon", "start", "--foreground")).isEmpty();
+        assertThat(ChatbotApplication.commandProfiles("daemon", "stop")).containsExactly("cli-minimal");
+    }
+
+    @Test
+    void cliRagProfile_shouldUseTheConfiguredOllamaBaseUrl() throws IOException {
+        var environment = new StandardEnvironment();
+        var loader = new PropertiesPropertySourceLoader();
+        var sources = environment.getPropertySources();
+        sources.addFirst(loader.load("application", new ClassPathResource("application.properties")).getFirst());
+        sources.addFirst(loader.load("application-cli-rag", new ClassPathResource("application-cli-rag.properties"))
+                .getFirst());
+        // What the config file contributes through spring.config.import
+        sources.addFirst(new MapPropertySource("config", Map.of("providers.ollama.base-url", "http://gpu-box:11434")));
+
+        assertThat(environment.getProperty("spring.ai.model.chat")).isEqualTo("none");
+        assertThat(environment.getProperty("spring.ai.ollama.base-url")).isEqualTo("http://gpu-box:11434");
+    }
+}
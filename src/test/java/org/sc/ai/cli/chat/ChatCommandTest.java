@@ -8,6 +8,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.atMostOnce;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.spy;
@@ -38,8 +39,11 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.sc.ai.cli.CliConfiguration;
+import org.sc.ai.cli.chat.memory.CachingChatMemoryRepository;
 import org.sc.ai.cli.chat.multimodal.ParsedPrompt;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import picocli.CommandLine;
 import picocli.shell.jline3.PicocliCommands;
 import reactor.core.publisher.Flux;
@@ -49,6 +53,8 @@ class ChatCommandTest {
 
     @Mock
     private ChatService chatService;
+    @Mock
+    private ObjectProvider<CachingChatMemoryRepository> chatMemoryRepository;
     Terminal terminal;
     LineReader lineReader;
 
@@ -57,7 +63,7 @@ class ChatCommandTest {
     private StreamingContext streamingContext;
 
     private CommandRegistry picocliCommands(Terminal terminal) {
-        var chatSubCommand = new ChatSubCommand(terminal);
+        var chatSubCommand = new ChatSubCommand(terminal, new SimpleMeterRegistry(), mock(ModelResidency.class));
         var commandLine = new CommandLine(chatSubCommand);
         commandLine.addSubcommand("/exit", new ChatSubCommand.ExitCommand());
         return new PicocliCommands(commandLine);
@@ -76,7 +82,8 @@ class ChatCommandTest {
         systemRegistry.setCommandRegistries(picocliCommands);
         systemRegistry.register("/?", picocliCommands);
         streamingContext = new StreamingContext();
-        ChatCommand chatCommand = new ChatCommand(chatService, lineReader, systemRegistry, streamingContext);
+        ChatCommand chatCommand = new ChatCommand(chatService, lineReader, systemRegistry, streamingContext,
+                chatMemoryRepository);
         cmd = new CommandLine(chatCommand);
         cmd.setOut(pw);
         cmd.setErr(pw);
@@ -147,6 +154,7 @@ class ChatCommandTest {
         // Then
         assertThat(exitCode).isZero();
         verify(lineReader).readLine("sc> ");
+        verify(chatMemoryRepository).ifAvailable(any());
     }
 
     @Test
@@ -5,7 +5,9 @@ import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -14,6 +16,9 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -27,6 +32,9 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.sc.ai.cli.chat.multimodal.DocumentAttachmentIndex;
+import org.sc.ai.cli.chat.multimodal.ImagePreprocessor;
+import org.sc.ai.cli.chat.multimodal.ParsedPrompt;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.ChatClient.AdvisorSpec;
 import org.springframework.ai.chat.memory.ChatMemory;
@@ -37,6 +45,7 @@ import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.core.io.PathResource;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import reactor.core.publisher.Flux;
 
 /**
@@ -88,7 +97,10 @@ class ChatServiceTest {
         lenient().when(requestSpec.advisors(ArgumentMatchers.<Consumer<AdvisorSpec>>any())).thenReturn(requestSpec);
         lenient().when(requestSpec.stream()).thenReturn(streamSpec);
         
-        chatService = new ChatService(chatClientBuilder, chatMemory, embeddingModel);
+        chatService = new ChatService(chatClientBuilder, chatMemory, embeddingModel,
+                new ImagePreprocessor(tempDir.resolve("images"), Map.of(), 1024, 0.85f),
+                new DocumentAttachmentIndex(embeddingModel, 4, 400, Duration.ofMinutes(30), 8),
+                new SimpleMeterRegistry(), 1500, new int[] { 2048, 4096 });
         
         // Initialize the vectorStoreStorageDirectory field to avoid NullPointerException
         ReflectionTestUtils.setField(chatService, "vectorStoreStorageDirectory", new PathResource(tempDir));
@@ -238,6 +250,23 @@ class ChatServiceTest {
         verify(simpleVectorStore, times(1)).load(any(PathResource.class));
     }
     
+    @Test
+    void sendAndStreamMessage_shouldNotReloadUnchangedVectorStoreFiles() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(chatService, "vectorStore", simpleVectorStore);
+        Files.write(tempDir.resolve("vector.json"), "{\"test\": \"data\"}".getBytes());
+        when(streamSpec.content()).thenReturn(Flux.just("Response"));
+        
+        // When
+        chatService.sendAndStreamMessage("Hello", "llama2", "conversation");
+        chatService.sendAndStreamMessage("Hello again", "llama2", "conversation");
+        Files.write(tempDir.resolve("more.json"), "{\"more\": \"data\"}".getBytes());
+        chatService.sendAndStreamMessage("And again", "llama2", "conversation");
+        
+        // Then
+        verify(simpleVectorStore, times(3)).load(any(PathResource.class));
+    }
+    
     @Test
     void sendAndStreamMessage_shouldHandleIOException_whenLoadingVectorStoreFilesFails() {
         // Given
@@ -417,4 +446,27 @@ class ChatServiceTest {
         verify(requestSpec).stream();
         verify(streamSpec).content();
     }
+
+    @Test
+    void sendAndStreamMessage_shouldPassExcerptsOfAttachedDocumentsToTheAdvisor() throws IOException {
+        // Given
+        Path notes = Files.writeString(tempDir.resolve("notes.txt"), "The release is planned for March.");
+        when(embeddingModel.embed(ArgumentMatchers.<List<String>>any())).thenReturn(List.of(new float[] { 1f }));
+        when(streamSpec.content()).thenReturn(Flux.just("March"));
+        var parsedPrompt = new ParsedPrompt("When is the release?", List.of(notes));
+
+        // When
+        chatService.sendAndStreamMessage(parsedPrompt, "llama2", "conversation-with-notes");
+
+        // Then the user message, which memory stores, is only what was typed
+        verify(requestSpec).user("When is the release?");
+        var captor = ArgumentCaptor.<Consumer<AdvisorSpec>>captor();
+        verify(requestSpec).advisors(captor.capture());
+        var advisorSpec = mock(AdvisorSpec.class);
+        captor.getValue().accept(advisorSpec);
+        verify(advisorSpec).param(ChatMemory.CONVERSATION_ID, "conversation-with-notes");
+        verify(advisorSpec).param(eq(DocumentExcerptAdvisor.EXCERPTS),
+                ArgumentMatchers.<Object>argThat(excerpts -> excerpts.toString().contains("--- notes.txt")
+                        && excerpts.toString().contains("The release is planned for March.")));
+    }
 }
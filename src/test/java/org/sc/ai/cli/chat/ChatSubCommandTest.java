@@ -1,13 +1,23 @@
 package org.sc.ai.cli.chat;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
 
 import org.jline.terminal.Terminal;
 import org.jline.terminal.TerminalBuilder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * Unit tests for {@link ChatSubCommand} and its nested command classes.
@@ -18,12 +28,18 @@ class ChatSubCommandTest {
 
     private Terminal terminal;
 
+    private MeterRegistry meterRegistry;
+
+    private ModelResidency modelResidency;
+
     private ChatSubCommand chatSubCommand;
 
     @BeforeEach
     void setUp() throws IOException {
         terminal = TerminalBuilder.terminal();
-        chatSubCommand = new ChatSubCommand(terminal);
+        meterRegistry = new SimpleMeterRegistry();
+        modelResidency = mock(ModelResidency.class);
+        chatSubCommand = new ChatSubCommand(terminal, meterRegistry, modelResidency);
     }
 
     @Test
@@ -73,6 +89,77 @@ class ChatSubCommandTest {
         assertThat(showCommand).isNotNull();
     }
 
+    @Test
+    void showCommand_shouldPrintMetrics_whenTopicIsMetrics() throws IOException {
+        // Given
+        var output = new ByteArrayOutputStream();
+        var dumbTerminal = TerminalBuilder.builder()
+                .streams(new ByteArrayInputStream(new byte[0]), output)
+                .dumb(true)
+                .build();
+        meterRegistry.counter("sc.test.counter", "kind", "unit").increment();
+        ChatSubCommand.ShowCommand showCommand = new ChatSubCommand.ShowCommand();
+        showCommand.parent = new ChatSubCommand(dumbTerminal, meterRegistry, modelResidency);
+        showCommand.topic = "metrics";
+
+        // When
+        showCommand.run();
+
+        // Then
+        assertThat(output.toString()).contains("sc.test.counter kind=unit count=1.00");
+    }
+
+    @Test
+    void showCommand_shouldPrintResidentModels_byDefault() throws IOException {
+        // Given
+        var output = new ByteArrayOutputStream();
+        var dumbTerminal = TerminalBuilder.builder()
+                .streams(new ByteArrayInputStream(new byte[0]), output)
+                .dumb(true)
+                .build();
+        var expiresAt = OffsetDateTime.now().plusMinutes(29).plusSeconds(30).toString();
+        when(modelResidency.residentModels()).thenReturn(List.of(
+                new ModelResidency.ResidentModel("llama3.2:latest", 3L << 30, 3L << 30, expiresAt),
+                new ModelResidency.ResidentModel("mxbai-embed-large:latest", 1L << 30, 0, expiresAt)));
+        ChatSubCommand.ShowCommand showCommand = new ChatSubCommand.ShowCommand();
+        showCommand.parent = new ChatSubCommand(dumbTerminal, meterRegistry, modelResidency);
+
+        // When
+        showCommand.run();
+
+        // Then
+        assertThat(output.toString())
+                .containsPattern("llama3\\.2:latest\\s+3\\.0 GB 100% GPU\\s+in 29m")
+                .containsPattern("mxbai-embed-large:latest\\s+1\\.0 GB 100% CPU\\s+in 29m");
+    }
+
+    @Test
+    void showCommand_shouldReportAnUnreachableServer() throws IOException {
+        // Given
+        var output = new ByteArrayOutputStream();
+        var dumbTerminal = TerminalBuilder.builder()
+                .streams(new ByteArrayInputStream(new byte[0]), output)
+                .dumb(true)
+                .build();
+        when(modelResidency.residentModels()).thenThrow(new ResourceAccessException("Connection refused"));
+        ChatSubCommand.ShowCommand showCommand = new ChatSubCommand.ShowCommand();
+        showCommand.parent = new ChatSubCommand(dumbTerminal, meterRegistry, modelResidency);
+
+        // When
+        showCommand.run();
+
+        // Then
+        assertThat(output.toString()).contains("Could not reach Ollama: Connection refused");
+    }
+
+    @Test
+    void unloads_shouldDescribeWhenAModelIsUnloaded() {
+        assertThat(ChatSubCommand.ShowCommand.unloads(OffsetDateTime.now().plusHours(2).plusMinutes(5).toString()))
+                .isEqualTo("in 2h 4m");
+        assertThat(ChatSubCommand.ShowCommand.unloads("2318-10-19T12:00:00Z")).isEqualTo("never");
+        assertThat(ChatSubCommand.ShowCommand.unloads("not a date")).isEqualTo("unknown");
+    }
+
     @Test
     void clearScreenCommand_shouldExecuteSuccessfully() {
         // Given
@@ -0,0 +1,107 @@
+package org.sc.ai.cli.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for {@link ContextPackingVectorStore}.
+ *
+ * @author Julius Krah
+ */
+class ContextPackingVectorStoreTest {
+    private static final String INSTALL = "Install the cli with the installer for your platform from the releases page.";
+    private static final String CONFIGURE = "Configure the provider in the config file under your home directory.";
+    private final VectorStore delegate = mock(VectorStore.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void similaritySearch_shouldDropNearDuplicates() {
+        var store = store(1500, document("1", INSTALL, "a.md", null),
+                document("2", INSTALL.replace("cli", "CLI").replace("page.", "page"), "b.md", null),
+                document("3", CONFIGURE, "c.md", null));
+
+        var results = store.similaritySearch(SearchRequest.builder().query("install").build());
+
+        assertThat(results).extracting(Document::getId).containsExactly("1", "3");
+        assertThat(meterRegistry.get("sc.chat.context.tokens.saved").summary().totalAmount()).isPositive();
+    }
+
+    @Test
+    void similaritySearch_shouldMergeConsecutiveChunksOfASource() {
+        var store = store(1500, document("2", "second part", "guide.md", 1),
+                document("3", CONFIGURE, "other.md", 1), document("1", "first part", "guide.md", 0),
+                document("4", "third part", "guide.md", 2));
+
+        var results = store.similaritySearch(SearchRequest.builder().query("guide").build());
+
+        assertThat(results).extracting(Document::getText)
+                .containsExactly("first part\nsecond part\nthird part", CONFIGURE);
+        assertThat(results.getFirst().getId()).isEqualTo("2");
+    }
+
+    @Test
+    void similaritySearch_shouldMergeOverlappingChunksKeepingTheOverlapOnce() {
+        var overlap = "the provider reads its base url from the config file";
+        var store = store(1500, document("1", overlap + " and then connects.", "guide.md", null),
+                document("2", "Before it starts, " + overlap, "guide.md", null));
+
+        var results = store.similaritySearch(SearchRequest.builder().query("provider").build());
+
+        assertThat(results).extracting(Document::getText)
+                .containsExactly("Before it starts, " + overlap + " and then connects.");
+    }
+
+    @Test
+    void similaritySearch_shouldNotMergeChunksThatAreNotConsecutive() {
+        var store = store(1500, document("1", "first part", "guide.md", 0),
+                document("2", "fourth part", "guide.md", 3));
+
+        var results = store.similaritySearch(SearchRequest.builder().query("guide").build());
+
+        assertThat(results).extracting(Document::getId).containsExactly("1", "2");
+    }
+
+    @Test
+    void similaritySearch_shouldKeepResultsInRankOrderWithinTheTokenBudget() {
+        var store = store(24, document("1", INSTALL, "a.md", null),
+                document("2", INSTALL + " " + CONFIGURE, "b.md", null),
+                document("3", "Run sc chat.", "c.md", null));
+
+        var results = store.similaritySearch(SearchRequest.builder().query("install").build());
+
+        assertThat(results).extracting(Document::getId).containsExactly("1", "3");
+    }
+
+    @Test
+    void simHash_shouldBeCloseForNearlyEqualText() {
+        long a = ContextPackingVectorStore.simHash(INSTALL + " " + CONFIGURE);
+        long b = ContextPackingVectorStore.simHash(INSTALL.toUpperCase() + " " + CONFIGURE + "!");
+        long c = ContextPackingVectorStore.simHash("Ollama serves models over a local HTTP API on port 11434.");
+
+        assertThat(Long.bitCount(a ^ b)).isLessThanOrEqualTo(ContextPackingVectorStore.NEAR_DUPLICATE_BITS);
+        assertThat(Long.bitCount(a ^ c)).isGreaterThan(ContextPackingVectorStore.NEAR_DUPLICATE_BITS);
+    }
+
+    private ContextPackingVectorStore store(int tokenBudget, Document... results) {
+        when(delegate.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(results));
+        return new ContextPackingVectorStore(delegate, tokenBudget, meterRegistry);
+    }
+
+    private static Document document(String id, String text, String source, Integer chunkIndex) {
+        Map<String, Object> metadata = chunkIndex == null ? Map.of("source", source)
+                : Map.of("source", source, "chunk_index", chunkIndex);
+        return Document.builder().id(id).text(text).metadata(metadata).build();
+    }
+}
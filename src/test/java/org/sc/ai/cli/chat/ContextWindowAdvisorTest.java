@@ -0,0 +1,94 @@
+package org.sc.ai.cli.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.ollama.api.OllamaOptions;
+
+/**
+ * Unit tests for {@link ContextWindowAdvisor}.
+ *
+ * @author Julius Krah
+ */
+class ContextWindowAdvisorTest {
+    private final AdvisorChain chain = mock(AdvisorChain.class);
+    private final ContextWindowAdvisor advisor = new ContextWindowAdvisor(8192, 2048, 4096);
+
+    @Test
+    void before_shouldPickTheSmallestBucketThatFits() {
+        var request = advisor.before(request("llama3.2", 0, new SystemMessage("You are helpful."),
+                new UserMessage("Hello")), chain);
+
+        assertThat(numCtx(request)).isEqualTo(2048);
+        assertThat(((OllamaOptions) request.prompt().getOptions()).getModel()).isEqualTo("llama3.2");
+    }
+
+    @Test
+    void before_shouldCountMemoryAndContextInThePrompt() {
+        var turn = "word ".repeat(1500);
+        var request = advisor.before(request("llama3.2", 0, new UserMessage(turn), new AssistantMessage(turn),
+                new UserMessage("question\n\nContext: " + turn)), chain);
+
+        assertThat(numCtx(request)).isEqualTo(8192);
+    }
+
+    @Test
+    void before_shouldLeaveRoomForTheConfiguredResponseLength() {
+        var request = advisor.before(request("llama3.2", 3000, new UserMessage("Hello")), chain);
+
+        assertThat(numCtx(request)).isEqualTo(4096);
+    }
+
+    @Test
+    void before_shouldNotShrinkTheWindowOfAModel() {
+        advisor.before(request("llama3.2", 3000, new UserMessage("Hello")), chain);
+
+        var same = advisor.before(request("llama3.2", 0, new UserMessage("Hello")), chain);
+        var other = advisor.before(request("gemma3", 0, new UserMessage("Hello")), chain);
+
+        assertThat(numCtx(same)).isEqualTo(4096);
+        assertThat(numCtx(other)).isEqualTo(2048);
+    }
+
+    @Test
+    void before_shouldUseTheLargestBucketForPromptsThatDoNotFit() {
+        var request = advisor.before(request("llama3.2", 0, new UserMessage("word ".repeat(20_000))), chain);
+
+        assertThat(numCtx(request)).isEqualTo(8192);
+    }
+
+    @Test
+    void before_shouldLeaveOtherProvidersUnchanged() {
+        var options = ChatOptions.builder().model("gpt-4o").build();
+        var request = ChatClientRequest.builder()
+                .prompt(new Prompt(new UserMessage("Hello"), options))
+                .context(Map.of())
+                .build();
+
+        assertThat(advisor.before(request, chain)).isSameAs(request);
+    }
+
+    private static ChatClientRequest request(String model, int numPredict, Message... messages) {
+        var options = OllamaOptions.builder().model(model).numPredict(numPredict).build();
+        return ChatClientRequest.builder()
+                .prompt(new Prompt(List.of(messages), options))
+                .context(Map.of())
+                .build();
+    }
+
+    private static Integer numCtx(ChatClientRequest request) {
+        return ((OllamaOptions) request.prompt().getOptions()).getNumCtx();
+    }
+}
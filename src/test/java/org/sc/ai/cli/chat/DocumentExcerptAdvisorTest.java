@@ -0,0 +1,59 @@
+package org.sc.ai.cli.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.prompt.Prompt;
+
+/**
+ * Unit tests for {@link DocumentExcerptAdvisor}.
+ *
+ * @author Julius Krah
+ */
+class DocumentExcerptAdvisorTest {
+    private static final String EXCERPTS = "Excerpts from the attached files:\n\n--- dogs.txt\nDogs need a walk every day.";
+    private final AdvisorChain chain = mock(AdvisorChain.class);
+    private final DocumentExcerptAdvisor advisor = new DocumentExcerptAdvisor();
+
+    @Test
+    void before_shouldAppendTheExcerptsToTheUserMessage() {
+        var request = advisor.before(request("How often do dogs walk?", Map.of(DocumentExcerptAdvisor.EXCERPTS,
+                EXCERPTS)), chain);
+
+        assertThat(request.prompt().getUserMessage().getText()).isEqualTo("How often do dogs walk?\n\n" + EXCERPTS);
+    }
+
+    @Test
+    void before_shouldLeaveRequestsWithoutExcerptsUnchanged() {
+        var request = request("Hello", Map.of());
+
+        assertThat(advisor.before(request, chain)).isSameAs(request);
+    }
+
+    @Test
+    void before_shouldKeepTheExcerptsOutOfMemory() {
+        var chatMemory = MessageWindowChatMemory.builder().build();
+        var memory = MessageChatMemoryAdvisor.builder(chatMemory).build();
+        var request = request("How often do dogs walk?", Map.of(ChatMemory.CONVERSATION_ID, "c1",
+                DocumentExcerptAdvisor.EXCERPTS, EXCERPTS));
+        assertThat(memory.getOrder()).isLessThan(advisor.getOrder());
+
+        var sent = advisor.before(memory.before(request, chain), chain);
+
+        assertThat(sent.prompt().getUserMessage().getText()).contains("Dogs need a walk every day.");
+        assertThat(chatMemory.get("c1")).extracting(Message::getText).containsExactly("How often do dogs walk?");
+    }
+
+    private static ChatClientRequest request(String text, Map<String, Object> context) {
+        return ChatClientRequest.builder().prompt(new Prompt(text)).context(context).build();
+    }
+}
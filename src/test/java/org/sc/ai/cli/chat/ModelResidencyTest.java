@@ -0,0 +1,94 @@
+package org.sc.ai.cli.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Unit tests for {@link ModelResidency}.
+ *
+ * @author Julius Krah
+ */
+class ModelResidencyTest {
+    private RestClient.Builder builder;
+    private MockRestServiceServer server;
+    private MockEnvironment environment;
+
+    @BeforeEach
+    void setUp() {
+        builder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+        environment = new MockEnvironment()
+                .withProperty("spring.ai.ollama.base-url", "http://ollama:11434")
+                .withProperty("spring.ai.model.chat", "ollama")
+                .withProperty("spring.ai.model.embedding", "ollama")
+                .withProperty("spring.ai.ollama.chat.options.model", "llama3.2")
+                .withProperty("spring.ai.ollama.chat.options.keep-alive", "30m")
+                .withProperty("spring.ai.ollama.embedding.options.model", "mxbai-embed-large")
+                .withProperty("spring.ai.ollama.embedding.options.keep-alive", "30m");
+    }
+
+    @Test
+    void afterPropertiesSet_shouldLoadTheChatAndEmbeddingModels() {
+        server.expect(requestTo("http://ollama:11434/api/generate"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().json("""
+                        {"model": "gemma3", "keep_alive": "30m"}"""))
+                .andRespond(withSuccess("{\"done\": true}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://ollama:11434/api/embed"))
+                .andExpect(content().json("""
+                        {"model": "mxbai-embed-large", "keep_alive": "30m", "input": ["warm-up"]}"""))
+                .andRespond(withSuccess("{\"embeddings\": [[0.1]]}", MediaType.APPLICATION_JSON));
+
+        new ModelResidency(builder, environment, new DefaultApplicationArguments("chat", "--model", "gemma3"))
+                .afterPropertiesSet();
+
+        server.verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void afterPropertiesSet_shouldSkipProvidersOtherThanOllama() {
+        environment.setProperty("spring.ai.model.chat", "bedrock-converse");
+        environment.setProperty("spring.ai.model.embedding", "none");
+        server.expect(ExpectedCount.never(), requestTo("http://ollama:11434/api/generate"));
+
+        new ModelResidency(builder, environment, new DefaultApplicationArguments("chat")).afterPropertiesSet();
+
+        server.verify();
+    }
+
+    @Test
+    void residentModels_shouldListTheModelsOllamaHoldsInMemory() {
+        environment.setProperty("sc.ollama.warm-up.enabled", "false");
+        server.expect(requestTo("http://ollama:11434/api/ps"))
+                .andRespond(withSuccess("""
+                        {"models": [{"name": "llama3.2:latest", "model": "llama3.2:latest", "size": 3000,
+                        "size_vram": 1500, "expires_at": "2026-10-19T12:30:00Z"}]}""", MediaType.APPLICATION_JSON));
+
+        var models = new ModelResidency(builder, environment, new DefaultApplicationArguments()).residentModels();
+
+        assertThat(models).containsExactly(
+                new ModelResidency.ResidentModel("llama3.2:latest", 3000, 1500, "2026-10-19T12:30:00Z"));
+    }
+
+    @Test
+    void modelArgument_shouldFindTheModelOption() {
+        assertThat(ModelResidency.modelArgument("chat", "-m", "llava")).isEqualTo("llava");
+        assertThat(ModelResidency.modelArgument("chat", "--model=llava", "Hi")).isEqualTo("llava");
+        assertThat(ModelResidency.modelArgument("chat", "Hi")).isNull();
+    }
+}
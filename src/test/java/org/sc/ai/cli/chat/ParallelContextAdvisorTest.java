@@ -0,0 +1,135 @@
+package org.sc.ai.cli.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for {@link ParallelContextAdvisor}.
+ *
+ * @author Julius Krah
+ */
+class ParallelContextAdvisorTest {
+    private static final Duration DELAY = Duration.ofMillis(400);
+    private final AdvisorChain chain = mock(AdvisorChain.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> calls = new ArrayList<>();
+
+    @Test
+    void before_shouldRunMemoryAndRetrievalConcurrently() {
+        var memory = new DelayedAdvisor("memory", request -> {
+            var messages = new ArrayList<Message>();
+            messages.add(new UserMessage("earlier question"));
+            messages.add(new AssistantMessage("earlier answer"));
+            messages.addAll(request.prompt().getInstructions());
+            return request.mutate().prompt(request.prompt().mutate().messages(messages).build()).build();
+        });
+        var retrieval = new DelayedAdvisor("retrieval", request -> {
+            var context = new HashMap<>(request.context());
+            context.put("documents", List.of("doc"));
+            var text = request.prompt().getUserMessage().getText() + "\n\nContext: doc";
+            return request.mutate().prompt(request.prompt().augmentUserMessage(text)).context(context).build();
+        });
+        var advisor = new ParallelContextAdvisor(memory, retrieval, meterRegistry);
+
+        long start = System.nanoTime();
+        var request = advisor.before(request("question"), chain);
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(elapsed).isLessThan(DELAY.multipliedBy(2));
+        assertThat(request.prompt().getInstructions()).extracting(Message::getText)
+                .containsExactly("earlier question", "earlier answer", "question\n\nContext: doc");
+        assertThat(request.context()).containsEntry("documents", List.of("doc")).containsEntry("id", "c1");
+        assertThat(meterRegistry.get("sc.chat.advisor.before").tag("branch", "memory").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sc.chat.advisor.before").tag("branch", "retrieval").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("sc.chat.advisor.before").tag("branch", "total").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void before_shouldRethrowTheFailureOfABranch() {
+        var memory = new DelayedAdvisor("memory", UnaryOperator.identity());
+        var retrieval = new DelayedAdvisor("retrieval", _ -> {
+            throw new IllegalStateException("vector store unavailable");
+        });
+        var advisor = new ParallelContextAdvisor(memory, retrieval, meterRegistry);
+
+        assertThatThrownBy(() -> advisor.before(request("question"), chain))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("vector store unavailable");
+    }
+
+    @Test
+    void after_shouldRunRetrievalThenMemory() {
+        var advisor = new ParallelContextAdvisor(new DelayedAdvisor("memory", UnaryOperator.identity()),
+                new DelayedAdvisor("retrieval", UnaryOperator.identity()), meterRegistry);
+
+        advisor.after(ChatClientResponse.builder().context(Map.of()).build(), chain);
+
+        assertThat(calls).containsExactly("retrieval.after", "memory.after");
+    }
+
+    private static ChatClientRequest request(String text) {
+        return ChatClientRequest.builder()
+                .prompt(new Prompt(new UserMessage(text)))
+                .context(Map.of("id", "c1"))
+                .build();
+    }
+
+    private final class DelayedAdvisor implements BaseAdvisor {
+        private final String name;
+        private final UnaryOperator<ChatClientRequest> before;
+
+        DelayedAdvisor(String name, UnaryOperator<ChatClientRequest> before) {
+            this.name = name;
+            this.before = before;
+        }
+
+        @Override
+        public ChatClientRequest before(ChatClientRequest chatClientRequest, AdvisorChain advisorChain) {
+            try {
+                Thread.sleep(DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return before.apply(chatClientRequest);
+        }
+
+        @Override
+        public ChatClientResponse after(ChatClientResponse chatClientResponse, AdvisorChain advisorChain) {
+            synchronized (calls) {
+                calls.add(name + ".after");
+            }
+            return chatClientResponse;
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.sc.ai.cli.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for {@link SpeculativeVectorStore}.
+ *
+ * @author Julius Krah
+ */
+class SpeculativeVectorStoreTest {
+    private static final SearchRequest TEMPLATE = SearchRequest.builder().build();
+    private VectorStore delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private SpeculativeVectorStore store;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(VectorStore.class);
+        when(delegate.similaritySearch(any(SearchRequest.class)))
+                .thenAnswer(invocation -> List.of(new Document(invocation.<SearchRequest>getArgument(0).getQuery())));
+        meterRegistry = new SimpleMeterRegistry();
+        store = new SpeculativeVectorStore(delegate, TEMPLATE, meterRegistry, () -> {
+        });
+    }
+
+    @Test
+    void similaritySearch_shouldReusePrefetchedResultsForTheSameText() {
+        store.speculate("How do I configure  the provider", Duration.ZERO);
+        verify(delegate, timeout(5000)).similaritySearch(any(SearchRequest.class));
+
+        var results = store.similaritySearch(request("how do I configure the provider?"));
+
+        assertThat(results).extracting(Document::getText).containsExactly("How do I configure  the provider");
+        verify(delegate, times(1)).similaritySearch(any(SearchRequest.class));
+        assertThat(count("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void similaritySearch_shouldSearchAgainForDifferentText() {
+        store.speculate("How do I configure the provider", Duration.ZERO);
+        verify(delegate, timeout(5000)).similaritySearch(any(SearchRequest.class));
+
+        var results = store.similaritySearch(request("What models are installed?"));
+
+        assertThat(results).extracting(Document::getText).containsExactly("What models are installed?");
+        assertThat(count("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void similaritySearch_shouldSearchAgainAfterTheStoreChanged() {
+        store.speculate("How do I configure the provider", Duration.ZERO);
+        verify(delegate, timeout(5000)).similaritySearch(any(SearchRequest.class));
+        store.invalidate();
+
+        store.similaritySearch(request("How do I configure the provider"));
+
+        verify(delegate, times(2)).similaritySearch(any(SearchRequest.class));
+        assertThat(count("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void speculate_shouldOnlySearchForTheLastTextOnceTypingPauses() {
+        store.speculate("How", Duration.ofMillis(200));
+        store.speculate("How do", Duration.ofMillis(200));
+        store.speculate("How do I", Duration.ofMillis(200));
+
+        verify(delegate, timeout(5000)).similaritySearch(argThat(request -> "How do I".equals(request.getQuery())));
+        assertThat(store.similaritySearch(request("How do I"))).extracting(Document::getText)
+                .containsExactly("How do I");
+        verify(delegate, times(1)).similaritySearch(any(SearchRequest.class));
+    }
+
+    @Test
+    void similaritySearch_shouldNotCountTurnsWithoutSpeculation() {
+        store.similaritySearch(request("Hello"));
+
+        assertThat(count("hit") + count("miss")).isZero();
+    }
+
+    @Test
+    void isClose_shouldAllowAFewEditsPerCharacter() {
+        assertThat(SpeculativeVectorStore.isClose("Summarise the release notes", "summarise the release notes.")).isTrue();
+        assertThat(SpeculativeVectorStore.isClose("Summarise the release notes", "Summarise the roadmap")).isFalse();
+    }
+
+    private static SearchRequest request(String query) {
+        return SearchRequest.from(TEMPLATE).query(query).build();
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("sc.chat.retrieval.speculative").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,143 @@
+package org.sc.ai.cli.chat.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sc.ai.cli.chat.memory.CachingChatMemoryRepository.Durability;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for {@link CachingChatMemoryRepository}.
+ *
+ * @author Julius Krah
+ */
+class CachingChatMemoryRepositoryTest {
+    private static final String CONVERSATION_ID = "conversation-1";
+
+    private InMemoryChatMemoryRepository delegate;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new InMemoryChatMemoryRepository();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void saveAll_shouldWriteThrough_whenDurabilityIsSync() {
+        var repository = new CachingChatMemoryRepository(delegate, Durability.SYNC, null, meterRegistry);
+
+        repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("Hello")));
+
+        assertThat(delegate.findByConversationId(CONVERSATION_ID)).hasSize(1);
+        assertThat(repository.pendingCount()).isZero();
+    }
+
+    @Test
+    void saveAll_shouldDeferWrites_untilFlush_whenDurabilityIsOnExit() {
+        var repository = new CachingChatMemoryRepository(delegate, Durability.ON_EXIT, null, meterRegistry);
+
+        repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("Hello")));
+
+        assertThat(repository.findByConversationId(CONVERSATION_ID)).hasSize(1);
+        assertThat(delegate.findByConversationId(CONVERSATION_ID)).isEmpty();
+        assertThat(repository.pendingCount()).isOne();
+
+        repository.flush();
+
+        assertThat(delegate.findByConversationId(CONVERSATION_ID)).hasSize(1);
+        assertThat(repository.pendingCount()).isZero();
+        assertThat(meterRegistry.get("sc.chat.memory.flush").timer().count()).isOne();
+    }
+
+    @Test
+    void saveAll_shouldFlushInBackground_whenDurabilityIsInterval() {
+        var repository = new CachingChatMemoryRepository(delegate, Durability.INTERVAL, Duration.ofMillis(20),
+                meterRegistry);
+
+        repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("Hello")));
+
+        await().atMost(Duration.ofSeconds(1))
+                .until(() -> !delegate.findByConversationId(CONVERSATION_ID).isEmpty());
+        repository.close();
+    }
+
+    @Test
+    void findByConversationId_shouldServeFromCache_afterFirstRead() {
+        delegate.saveAll(CONVERSATION_ID, List.of(new UserMessage("Hello")));
+        var repository = new CachingChatMemoryRepository(delegate, Durability.ON_EXIT, null, meterRegistry);
+
+        assertThat(repository.findByConversationId(CONVERSATION_ID)).hasSize(1);
+        delegate.deleteByConversationId(CONVERSATION_ID);
+
+        assertThat(repository.findByConversationId(CONVERSATION_ID)).hasSize(1);
+    }
+
+    @Test
+    void findByConversationId_shouldEvictTheLeastRecentlyUsedConversation() {
+        delegate.saveAll("a", List.of(new UserMessage("A")));
+        delegate.saveAll("b", List.of(new UserMessage("B")));
+        delegate.saveAll("c", List.of(new UserMessage("C")));
+        var repository = new CachingChatMemoryRepository(delegate, Durability.SYNC, null, 2, meterRegistry);
+        repository.findByConversationId("a");
+        repository.findByConversationId("b");
+        repository.findByConversationId("a");
+
+        repository.findByConversationId("c");
+        delegate.saveAll("a", List.of(new UserMessage("A2")));
+        delegate.saveAll("b", List.of(new UserMessage("B2")));
+
+        // a is still cached, b was evicted and is read from the store again
+        assertThat(repository.findByConversationId("a")).extracting(Message::getText).containsExactly("A");
+        assertThat(repository.findByConversationId("b")).extracting(Message::getText).containsExactly("B2");
+    }
+
+    @Test
+    void saveAll_shouldNotEvictConversationsWithPendingWrites() {
+        var repository = new CachingChatMemoryRepository(delegate, Durability.ON_EXIT, null, 1, meterRegistry);
+
+        repository.saveAll("a", List.of(new UserMessage("A")));
+        repository.saveAll("b", List.of(new UserMessage("B")));
+        repository.flush();
+
+        assertThat(delegate.findByConversationId("a")).extracting(Message::getText).containsExactly("A");
+        assertThat(delegate.findByConversationId("b")).extracting(Message::getText).containsExactly("B");
+    }
+
+    @Test
+    void findConversationIds_shouldLeaveOutRunningSummaries() {
+        delegate.saveAll(CONVERSATION_ID + TokenBudgetChatMemory.SUMMARY_SUFFIX, List.of(new UserMessage("summary")));
+        var repository = new CachingChatMemoryRepository(delegate, Durability.SYNC, null, meterRegistry);
+
+        repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("Hello")));
+        repository.saveAll("conversation-2" + TokenBudgetChatMemory.SUMMARY_SUFFIX,
+                List.of(new UserMessage("summary")));
+
+        assertThat(repository.findConversationIds()).containsExactly(CONVERSATION_ID);
+    }
+
+    @Test
+    void deleteByConversationId_shouldHideConversation_andDeleteOnClose() {
+        delegate.saveAll(CONVERSATION_ID, List.of(new UserMessage("Hello")));
+        var repository = new CachingChatMemoryRepository(delegate, Durability.ON_EXIT, null, meterRegistry);
+
+        repository.deleteByConversationId(CONVERSATION_ID);
+
+        assertThat(repository.findByConversationId(CONVERSATION_ID)).isEmpty();
+        assertThat(repository.findConversationIds()).doesNotContain(CONVERSATION_ID);
+
+        repository.close();
+
+        assertThat(delegate.findByConversationId(CONVERSATION_ID)).isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+package org.sc.ai.cli.chat.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+/**
+ * Unit tests for {@link LogStructuredChatMemoryRepository}.
+ *
+ * @author Julius Krah
+ */
+class LogStructuredChatMemoryRepositoryTest {
+    private static final String CONVERSATION_ID = "conversation-1";
+    private static final Duration COMPACTION_INTERVAL = Duration.ofHours(1);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void saveAll_shouldPersistAcrossInstances() {
+        try (var repository = new LogStructuredChatMemoryRepository(tempDir, COMPACTION_INTERVAL)) {
+            repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("Hello")));
+            repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("Hello"), new AssistantMessage("Hi\nthere")));
+        }
+
+        try (var repository = new LogStructuredChatMemoryRepository(tempDir, COMPACTION_INTERVAL)) {
+            assertThat(repository.findConversationIds()).containsExactly(CONVERSATION_ID);
+            assertThat(repository.findByConversationId(CONVERSATION_ID))
+                    .extracting(Message::getText)
+                    .containsExactly("Hello", "Hi\nthere");
+        }
+    }
+
+    @Test
+    void saveAll_shouldAppendOnlyNewMessages_whenConversationGrows() throws IOException {
+        try (var repository = new LogStructuredChatMemoryRepository(tempDir, COMPACTION_INTERVAL)) {
+            repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("Hello")));
+            repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("Hello"), new AssistantMessage("Hi")));
+
+            assertThat(segmentLines()).hasSize(2);
+        }
+    }
+
+    @Test
+    void compact_shouldRewriteSegment_whenMostRecordsAreDead() throws IOException {
+        try (var repository = new LogStructuredChatMemoryRepository(tempDir, COMPACTION_INTERVAL)) {
+            repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("one"), new AssistantMessage("two")));
+            repository.saveAll(CONVERSATION_ID, List.of(new AssistantMessage("two")));
+            repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("three")));
+            assertThat(segmentLines()).hasSize(6);
+
+            repository.compact();
+
+            assertThat(segmentLines()).hasSize(1);
+            assertThat(repository.findByConversationId(CONVERSATION_ID))
+                    .extracting(Message::getText)
+                    .containsExactly("three");
+        }
+    }
+
+    @Test
+    void deleteByConversationId_shouldRemoveSegment() {
+        try (var repository = new LogStructuredChatMemoryRepository(tempDir, COMPACTION_INTERVAL)) {
+            repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("Hello")));
+
+            repository.deleteByConversationId(CONVERSATION_ID);
+
+            assertThat(repository.findConversationIds()).isEmpty();
+            assertThat(repository.findByConversationId(CONVERSATION_ID)).isEmpty();
+        }
+    }
+
+    private List<String> segmentLines() throws IOException {
+        try (var files = Files.list(tempDir)) {
+            var segment = files.filter(path -> path.toString().endsWith(".log")).findFirst().orElseThrow();
+            return Files.readAllLines(segment);
+        }
+    }
+}
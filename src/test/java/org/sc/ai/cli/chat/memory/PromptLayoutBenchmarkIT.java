@@ -0,0 +1,120 @@
+package org.sc.ai.cli.chat.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.testcontainers.containers.BindMode;
+import org.testcontainers.ollama.OllamaContainer;
+
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Compares the time to first token of a long conversation with each
+ * {@link TokenBudgetChatMemory.Layout} against a local model.
+ *
+ * <p>Runs only with {@code -Dsc.benchmark=true}, e.g.
+ * {@code ./gradlew test --tests '*PromptLayoutBenchmarkIT' -Dsc.benchmark=true}.
+ *
+ * @author Julius Krah
+ */
+@EnabledIfSystemProperty(named = "sc.benchmark", matches = "true")
+class PromptLayoutBenchmarkIT {
+    private static final String MODEL = "qwen2.5:0.5b";
+    private static final int TURNS = 16;
+    private static final int TOKEN_BUDGET = 1024;
+    private static OllamaContainer ollama;
+    private static OllamaChatModel chatModel;
+
+    @BeforeAll
+    static void startOllama() throws Exception {
+        var models = Path.of(Objects.requireNonNullElse(System.getenv("OLLAMA_MODELS"),
+                System.getProperty("user.home") + "/.ollama"));
+        ollama = new OllamaContainer("ollama/ollama")
+                .withFileSystemBind(models.toString(), "/root/.ollama", BindMode.READ_WRITE);
+        ollama.start();
+        ollama.execInContainer("ollama", "pull", MODEL);
+        chatModel = OllamaChatModel.builder()
+                .ollamaApi(OllamaApi.builder().baseUrl(ollama.getEndpoint()).build())
+                // A fixed window, so the model is not reloaded between turns
+                .defaultOptions(OllamaOptions.builder().model(MODEL).temperature(0.0).numPredict(48).numCtx(4096)
+                        .build())
+                .build();
+    }
+
+    @AfterAll
+    static void stopOllama() {
+        if (ollama != null) {
+            ollama.stop();
+        }
+    }
+
+    @Test
+    void stablePrefix_shouldReachTheFirstTokenSoonerInLongConversations() {
+        // Load the model once so neither run pays for it
+        chatModel.call("Say hi.");
+
+        var sliding = run(TokenBudgetChatMemory.Layout.SLIDING);
+        var stable = run(TokenBudgetChatMemory.Layout.STABLE_PREFIX);
+
+        System.out.printf("%-5s %12s %12s%n", "turn", "sliding ms", "stable ms");
+        for (int turn = 0; turn < TURNS; turn++) {
+            System.out.printf("%-5d %12d %12d%n", turn + 1, sliding.get(turn).toMillis(), stable.get(turn).toMillis());
+        }
+        var slidingMean = mean(sliding.subList(TURNS / 2, TURNS));
+        var stableMean = mean(stable.subList(TURNS / 2, TURNS));
+        System.out.printf("mean of the last %d turns: sliding %d ms, stable %d ms%n", TURNS / 2, slidingMean.toMillis(),
+                stableMean.toMillis());
+
+        assertThat(stableMean).isLessThan(slidingMean);
+    }
+
+    /**
+     * @return the time to first token of each turn
+     */
+    private static List<Duration> run(TokenBudgetChatMemory.Layout layout) {
+        ChatMemory memory = new TokenBudgetChatMemory(new InMemoryChatMemoryRepository(), chatModel, TOKEN_BUDGET,
+                // Summaries complete before the next turn starts, so they do not skew its timing
+                Schedulers.immediate(), layout);
+        var chatClient = ChatClient.builder(chatModel)
+                .defaultAdvisors(MessageChatMemoryAdvisor.builder(memory).build())
+                .build();
+        var conversationId = layout.name();
+        var timings = new ArrayList<Duration>();
+        for (int turn = 0; turn < TURNS; turn++) {
+            var question = "Turn %d. Here are some notes to keep in mind: %s What is %d times 7?"
+                    .formatted(turn + 1, "The build runs on Java 22 with Gradle and Spring Boot. ".repeat(8), turn);
+            long start = System.nanoTime();
+            var first = new AtomicLong();
+            chatClient.prompt()
+                    .user(question)
+                    .advisors(advisors -> advisors.param(ChatMemory.CONVERSATION_ID, conversationId))
+                    .stream()
+                    .content()
+                    .doOnNext(_ -> first.compareAndSet(0, System.nanoTime()))
+                    .blockLast();
+            timings.add(Duration.ofNanos(first.get() - start));
+        }
+        return timings;
+    }
+
+    private static Duration mean(List<Duration> durations) {
+        return durations.stream().reduce(Duration.ZERO, Duration::plus).dividedBy(durations.size());
+    }
+}
@@ -0,0 +1,133 @@
+package org.sc.ai.cli.chat.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Unit tests for {@link TokenBudgetChatMemory}.
+ *
+ * @author Julius Krah
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenBudgetChatMemoryTest {
+    private static final String CONVERSATION_ID = "conversation-1";
+
+    @Mock
+    private ChatModel chatModel;
+
+    private ChatMemoryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryChatMemoryRepository();
+    }
+
+    @Test
+    void get_shouldReturnAllMessages_whenWithinBudget() {
+        var memory = new TokenBudgetChatMemory(repository, chatModel, 1000, Schedulers.immediate());
+        memory.add(CONVERSATION_ID, List.of(new UserMessage("Hello")));
+        memory.add(CONVERSATION_ID, List.of(new AssistantMessage("Hi there")));
+
+        assertThat(memory.get(CONVERSATION_ID)).extracting(Message::getText).containsExactly("Hello", "Hi there");
+        verify(chatModel, never()).call(any(Prompt.class));
+    }
+
+    @Test
+    void get_shouldDropOldestMessages_whenBudgetExceeded() {
+        var memory = new TokenBudgetChatMemory(repository, chatModel, 5, Schedulers.immediate());
+        repository.saveAll(CONVERSATION_ID, List.of(
+                new UserMessage("one two three four five six"),
+                new UserMessage("seven")));
+
+        assertThat(memory.get(CONVERSATION_ID)).extracting(Message::getText).containsExactly("seven");
+    }
+
+    @Test
+    void add_shouldFoldOlderTurnsIntoSummary_afterAssistantReply() {
+        when(chatModel.call(any(Prompt.class)))
+                .thenReturn(new ChatResponse(List.of(new Generation(new AssistantMessage("User said hello")))));
+        var memory = new TokenBudgetChatMemory(repository, chatModel, 5, Schedulers.immediate());
+
+        memory.add(CONVERSATION_ID, List.of(new UserMessage("hello hello hello hello hello hello")));
+        memory.add(CONVERSATION_ID, List.of(new AssistantMessage("hi")));
+
+        var messages = memory.get(CONVERSATION_ID);
+        assertThat(messages).hasSize(2);
+        assertThat(messages.getFirst().getMessageType()).isEqualTo(MessageType.SYSTEM);
+        assertThat(messages.getFirst().getText()).isEqualTo("User said hello");
+        assertThat(messages.getLast().getText()).isEqualTo("hi");
+        assertThat(repository.findByConversationId(CONVERSATION_ID)).hasSize(1);
+    }
+
+    @Test
+    void add_shouldFoldOnlyTheOverflow_withSlidingLayout() {
+        when(chatModel.call(any(Prompt.class)))
+                .thenReturn(new ChatResponse(List.of(new Generation(new AssistantMessage("summary")))));
+        var memory = new TokenBudgetChatMemory(repository, chatModel, 10, Schedulers.immediate(),
+                TokenBudgetChatMemory.Layout.SLIDING);
+        repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("one one one"), new AssistantMessage("two two two"),
+                new UserMessage("three three three"), new AssistantMessage("four four four")));
+
+        memory.add(CONVERSATION_ID, List.of(new AssistantMessage("five five five")));
+
+        assertThat(repository.findByConversationId(CONVERSATION_ID)).extracting(Message::getText)
+                .containsExactly("three three three", "four four four", "five five five");
+    }
+
+    @Test
+    void add_shouldFoldToHalfTheBudget_withStablePrefixLayout() {
+        when(chatModel.call(any(Prompt.class)))
+                .thenReturn(new ChatResponse(List.of(new Generation(new AssistantMessage("summary")))));
+        var memory = new TokenBudgetChatMemory(repository, chatModel, 10, Schedulers.immediate(),
+                TokenBudgetChatMemory.Layout.STABLE_PREFIX);
+        repository.saveAll(CONVERSATION_ID, List.of(new UserMessage("one one one"), new AssistantMessage("two two two"),
+                new UserMessage("three three three"), new AssistantMessage("four four four")));
+
+        memory.add(CONVERSATION_ID, List.of(new AssistantMessage("five five five")));
+        var before = memory.get(CONVERSATION_ID);
+        memory.add(CONVERSATION_ID, List.of(new UserMessage("six six six")));
+        memory.add(CONVERSATION_ID, List.of(new AssistantMessage("seven seven seven")));
+        var after = memory.get(CONVERSATION_ID);
+
+        assertThat(before).extracting(Message::getText).containsExactly("summary", "five five five");
+        // Nothing was folded for the next turn, so its prompt starts with the previous one
+        assertThat(after).extracting(Message::getText)
+                .containsExactly("summary", "five five five", "six six six", "seven seven seven");
+        verify(chatModel, times(1)).call(any(Prompt.class));
+    }
+
+    @Test
+    void clear_shouldRemoveMessagesAndSummary() {
+        var memory = new TokenBudgetChatMemory(repository, chatModel, 1000, Schedulers.immediate());
+        memory.add(CONVERSATION_ID, List.of(new UserMessage("Hello")));
+        repository.saveAll(CONVERSATION_ID + TokenBudgetChatMemory.SUMMARY_SUFFIX, List.of(new UserMessage("summary")));
+
+        memory.clear(CONVERSATION_ID);
+
+        assertThat(memory.get(CONVERSATION_ID)).isEmpty();
+    }
+}
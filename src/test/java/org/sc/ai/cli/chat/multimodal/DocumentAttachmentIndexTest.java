@@ -0,0 +1,108 @@
+package org.sc.ai.cli.chat.multimodal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+/**
+ * Unit tests for {@link DocumentAttachmentIndex}.
+ *
+ * @author Julius Krah
+ */
+class DocumentAttachmentIndexTest {
+    @TempDir
+    Path tempDir;
+    private EmbeddingModel embeddingModel;
+
+    @BeforeEach
+    void setUp() {
+        embeddingModel = mock(EmbeddingModel.class);
+        // Chunks about cats point one way, about dogs the other
+        when(embeddingModel.embed(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0)
+                .stream()
+                .map(DocumentAttachmentIndexTest::embedding)
+                .toList());
+        when(embeddingModel.embed(anyString())).thenAnswer(invocation -> embedding(invocation.getArgument(0)));
+    }
+
+    @Test
+    void excerpts_shouldReturnOnlyTheClosestChunks() throws IOException {
+        var cats = Files.writeString(tempDir.resolve("cats.txt"), "Cats sleep most of the day.");
+        var dogs = Files.writeString(tempDir.resolve("dogs.md"), "Dogs need a walk every day.");
+        var index = new DocumentAttachmentIndex(embeddingModel, 1, 400, Duration.ofMinutes(30), 8);
+
+        var excerpts = index.excerpts("c1", "How long do cats sleep?", List.of(cats, dogs));
+
+        assertThat(excerpts).startsWith("Excerpts from the attached files:")
+                .contains("--- cats.txt", "Cats sleep most of the day.")
+                .doesNotContain("Dogs");
+    }
+
+    @Test
+    void excerpts_shouldKeepAttachmentsForLaterTurnsOfTheConversation() throws IOException {
+        var dogs = Files.writeString(tempDir.resolve("dogs.txt"), "Dogs need a walk every day.");
+        var index = new DocumentAttachmentIndex(embeddingModel, 4, 400, Duration.ofMinutes(30), 8);
+        index.excerpts("c1", "Read this", List.of(dogs));
+
+        assertThat(index.excerpts("c1", "How often do dogs walk?", List.of())).contains("Dogs need a walk every day.");
+        assertThat(index.excerpts("c2", "How often do dogs walk?", List.of())).isEmpty();
+    }
+
+    @Test
+    void excerpts_shouldEmbedTheSameFileOnce() throws IOException {
+        var dogs = Files.writeString(tempDir.resolve("dogs.txt"), "Dogs need a walk every day.");
+        var copy = Files.writeString(tempDir.resolve("copy.txt"), "Dogs need a walk every day.");
+        var index = new DocumentAttachmentIndex(embeddingModel, 4, 400, Duration.ofMinutes(30), 8);
+
+        index.excerpts("c1", "Read this", List.of(dogs));
+        index.excerpts("c2", "And this", List.of(copy));
+
+        verify(embeddingModel, times(1)).embed(anyList());
+    }
+
+    @Test
+    void excerpts_shouldDropConversationsAfterTheirTtl() throws IOException {
+        var dogs = Files.writeString(tempDir.resolve("dogs.txt"), "Dogs need a walk every day.");
+        var index = new DocumentAttachmentIndex(embeddingModel, 4, 400, Duration.ZERO, 8);
+        index.excerpts("c1", "Read this", List.of(dogs));
+
+        assertThat(index.excerpts("c1", "How often do dogs walk?", List.of())).isEmpty();
+        assertThat(index.conversations()).isZero();
+    }
+
+    @Test
+    void excerpts_shouldNotEmbedPromptsWithoutAttachments() {
+        var index = new DocumentAttachmentIndex(embeddingModel, 4, 400, Duration.ofMinutes(30), 8);
+
+        assertThat(index.excerpts("c1", "Hello", List.of())).isEmpty();
+        verify(embeddingModel, never()).embed(anyString());
+    }
+
+    @Test
+    void isSupported_shouldAcceptDocumentsOnly() {
+        assertThat(DocumentAttachmentIndex.isSupported(Path.of("report.PDF"))).isTrue();
+        assertThat(DocumentAttachmentIndex.isSupported(Path.of("notes.md"))).isTrue();
+        assertThat(DocumentAttachmentIndex.isSupported(Path.of("photo.png"))).isFalse();
+    }
+
+    private static float[] embedding(String text) {
+        var lower = text.toLowerCase();
+        return new float[] { lower.contains("cat") ? 1f : 0f, lower.contains("dog") ? 1f : 0f };
+    }
+}
@@ -0,0 +1,153 @@
+package org.sc.ai.cli.chat.multimodal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.content.Media;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Unit tests for {@link ImagePreprocessor}.
+ *
+ * @author Julius Krah
+ */
+class ImagePreprocessorTest {
+    @TempDir
+    Path tempDir;
+
+    private ImagePreprocessor preprocessor() {
+        return new ImagePreprocessor(tempDir.resolve("cache"), Map.of("llava", 336), 1024, 0.85f);
+    }
+
+    @Test
+    void prepare_shouldDownsizeToNativeResolutionOfModel() throws IOException {
+        var photo = image("photo.jpg", "jpg", 3000, 2000, BufferedImage.TYPE_INT_RGB);
+
+        var media = preprocessor().prepare(List.of(photo), "llava:13b");
+
+        assertThat(media).hasSize(1);
+        assertThat(media.getFirst().getMimeType()).isEqualTo(MimeTypeUtils.IMAGE_JPEG);
+        var prepared = read(media.getFirst());
+        assertThat(prepared.getWidth()).isEqualTo(336);
+        assertThat(prepared.getHeight()).isEqualTo(224);
+    }
+
+    @Test
+    void prepare_shouldReuseCachedImage() throws IOException {
+        var photo = image("photo.jpg", "jpg", 1600, 1200, BufferedImage.TYPE_INT_RGB);
+        var first = preprocessor().prepare(List.of(photo), null).getFirst();
+        List<Path> cached;
+        try (var files = Files.list(tempDir.resolve("cache"))) {
+            cached = files.toList();
+        }
+        var modified = Files.getLastModifiedTime(cached.getFirst());
+
+        var second = preprocessor().prepare(List.of(photo), null).getFirst();
+
+        assertThat(cached).hasSize(1);
+        assertThat(Files.getLastModifiedTime(cached.getFirst())).isEqualTo(modified);
+        assertThat((byte[]) second.getData()).isEqualTo((byte[]) first.getData());
+        assertThat(read(second).getWidth()).isEqualTo(1024);
+    }
+
+    @Test
+    void prepare_shouldKeepTransparencyAsPng() throws IOException {
+        var logo = image("logo.png", "png", 2048, 2048, BufferedImage.TYPE_INT_ARGB);
+
+        var media = preprocessor().prepare(List.of(logo), "gemma3").getFirst();
+
+        assertThat(media.getMimeType()).isEqualTo(MimeTypeUtils.IMAGE_PNG);
+        assertThat(read(media).getColorModel().hasAlpha()).isTrue();
+    }
+
+    @Test
+    void prepare_shouldApplyTheExifOrientation() throws IOException {
+        // Stored landscape with a red top-left corner, tagged to be shown rotated 90° clockwise
+        var image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+        var graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 100, 100);
+        graphics.dispose();
+        var jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", jpeg);
+        var photo = Files.write(tempDir.resolve("portrait.jpg"), withOrientation(jpeg.toByteArray(), 6));
+
+        var prepared = read(preprocessor().prepare(List.of(photo), null).getFirst());
+
+        assertThat(prepared.getWidth()).isEqualTo(200);
+        assertThat(prepared.getHeight()).isEqualTo(300);
+        assertThat(new Color(prepared.getRGB(150, 50)).getRed()).isGreaterThan(200);
+        assertThat(new Color(prepared.getRGB(50, 50)).getRed()).isLessThan(50);
+    }
+
+    @Test
+    void orientation_shouldReadTheExifTag() throws IOException {
+        var jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+
+        assertThat(ImagePreprocessor.orientation(jpeg.toByteArray())).isEqualTo(1);
+        assertThat(ImagePreprocessor.orientation(withOrientation(jpeg.toByteArray(), 8))).isEqualTo(8);
+        assertThat(ImagePreprocessor.orientation("not an image".getBytes())).isEqualTo(1);
+    }
+
+    @Test
+    void prepare_shouldSendUndecodableImageUnchanged() throws IOException {
+        var broken = Files.writeString(tempDir.resolve("broken.webp"), "not an image");
+
+        var media = preprocessor().prepare(List.of(broken), null).getFirst();
+
+        assertThat((byte[]) media.getData()).isEqualTo(Files.readAllBytes(broken));
+        assertThat(media.getMimeType().toString()).isEqualTo("image/webp");
+    }
+
+    private Path image(String name, String format, int width, int height, int type) throws IOException {
+        var image = new BufferedImage(width, height, type);
+        var graphics = image.createGraphics();
+        graphics.fillRect(width / 4, height / 4, width / 2, height / 2);
+        graphics.dispose();
+        var path = tempDir.resolve(name);
+        ImageIO.write(image, format, path.toFile());
+        return path;
+    }
+
+    /**
+     * @return {@code jpeg} with an APP1 segment holding only the EXIF Orientation tag
+     */
+    private static byte[] withOrientation(byte[] jpeg, int orientation) {
+        var exif = ByteBuffer.allocate(2 + 2 + 6 + 8 + 2 + 12 + 4)
+                .putShort((short) 0xFFE1)
+                .putShort((short) (2 + 6 + 8 + 2 + 12 + 4))
+                .put("Exif\0\0".getBytes(StandardCharsets.US_ASCII))
+                // Big-endian TIFF header, first IFD right after it
+                .put("MM".getBytes(StandardCharsets.US_ASCII)).putShort((short) 42).putInt(8)
+                .putShort((short) 1)
+                .putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0)
+                .putInt(0)
+                .array();
+        var tagged = new byte[jpeg.length + exif.length];
+        // After the SOI marker
+        System.arraycopy(jpeg, 0, tagged, 0, 2);
+        System.arraycopy(exif, 0, tagged, 2, exif.length);
+        System.arraycopy(jpeg, 2, tagged, 2 + exif.length, jpeg.length - 2);
+        return tagged;
+    }
+
+    private static BufferedImage read(Media media) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream((byte[]) media.getData()));
+    }
+}
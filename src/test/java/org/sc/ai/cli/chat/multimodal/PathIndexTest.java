@@ -0,0 +1,118 @@
+package org.sc.ai.cli.chat.multimodal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link PathIndex}.
+ *
+ * @author Julius Krah
+ */
+class PathIndexTest {
+    private static final Duration BUDGET = Duration.ofSeconds(1);
+    @TempDir
+    Path root;
+    private PathIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(root.resolve("docs/guide"));
+        Files.createDirectories(root.resolve("build/libs"));
+        Files.createDirectories(root.resolve(".git/objects"));
+        Files.writeString(root.resolve(".gitignore"), "build/\n*.log\n!keep.log\n");
+        Files.writeString(root.resolve("docs/.gitignore"), "/draft.md\n");
+        for (var file : new String[] { "README.md", "notes.txt", "debug.log", "keep.log", "docs/readme.md",
+                "docs/draft.md", "docs/guide/setup.md", "build/libs/app.jar", ".git/config" }) {
+            Files.writeString(root.resolve(file), file);
+        }
+        index = new PathIndex(root, 1000);
+        index.start();
+        await(index::isReady);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Test
+    void complete_shouldListTheTypedDirectory() {
+        assertThat(index.complete("", 50, BUDGET))
+                .containsExactly(".gitignore", "docs/", "keep.log", "notes.txt", "README.md");
+        assertThat(index.complete("docs/", 50, BUDGET)).containsExactly("docs/.gitignore", "docs/guide/", "docs/readme.md");
+    }
+
+    @Test
+    void complete_shouldMatchPrefixesIgnoringCase() {
+        assertThat(index.complete("docs/RE", 50, BUDGET)).startsWith("docs/readme.md");
+        assertThat(index.prefixMatches("re", 50)).containsExactly("README.md");
+    }
+
+    @Test
+    void complete_shouldRespectGitIgnoreFiles() {
+        assertThat(index.complete("build", 50, BUDGET)).isEmpty();
+        assertThat(index.prefixMatches("debug", 50)).isEmpty();
+        assertThat(index.prefixMatches("docs/draft", 50)).isEmpty();
+        assertThat(index.prefixMatches(".git/", 50)).isEmpty();
+    }
+
+    @Test
+    void complete_shouldFillUpWithFuzzyMatches() {
+        assertThat(index.complete("setup", 50, BUDGET)).containsExactly("docs/guide/setup.md");
+        assertThat(index.complete("gdset", 50, BUDGET)).containsExactly("docs/guide/setup.md");
+    }
+
+    @Test
+    void complete_shouldSeeChangesOnDisk() throws IOException {
+        Files.writeString(root.resolve("docs/guide/install.md"), "install");
+        Files.delete(root.resolve("notes.txt"));
+
+        await(() -> index.prefixMatches("docs/guide/in", 50).contains("docs/guide/install.md")
+                && index.prefixMatches("notes", 50).isEmpty());
+    }
+
+    @Test
+    void complete_shouldReuseTheRoomOfDeletedEntries() throws IOException {
+        // Exactly the nine paths the index holds
+        try (var full = new PathIndex(root, 9)) {
+            full.start();
+            await(full::isReady);
+            Files.delete(root.resolve("notes.txt"));
+            await(() -> full.prefixMatches("notes", 50).isEmpty());
+
+            Files.writeString(root.resolve("todo.txt"), "todo");
+
+            await(() -> full.prefixMatches("todo", 50).contains("todo.txt"));
+        }
+    }
+
+    @Test
+    void fuzzyScore_shouldPreferMatchesInTheFileName() {
+        assertThat(PathIndex.fuzzyScore("xyz", "docs/readme.md")).isEqualTo(-1);
+        assertThat(PathIndex.fuzzyScore("read", "readme.md"))
+                .isGreaterThan(PathIndex.fuzzyScore("read", "r/e/a/d.md"));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition met in time").isNegative();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -113,11 +113,28 @@ class PromptParserTest {
     }
     
     @Test
-    void parse_shouldIgnoreNonImageFiles(@TempDir Path tempDir) throws IOException {
+    void parse_shouldAcceptDocuments(@TempDir Path tempDir) throws IOException {
         // Given
         Path textFile = tempDir.resolve("document.txt");
+        Path pdfFile = tempDir.resolve("report.pdf");
         Files.createFile(textFile);
-        String prompt = "Read @" + textFile.toString();
+        Files.createFile(pdfFile);
+        String prompt = "Read @" + textFile.toString() + " and @" + pdfFile.toString();
+        
+        // When
+        var result = parser.parse(prompt);
+        
+        // Then
+        assertThat(result.textContent()).isEqualTo("Read and");
+        assertThat(result.filePaths()).containsExactly(textFile, pdfFile);
+    }
+    
+    @Test
+    void parse_shouldIgnoreUnsupportedFiles(@TempDir Path tempDir) throws IOException {
+        // Given
+        Path archive = tempDir.resolve("archive.zip");
+        Files.createFile(archive);
+        String prompt = "Read @" + archive.toString();
         
         // When
         var result = parser.parse(prompt);
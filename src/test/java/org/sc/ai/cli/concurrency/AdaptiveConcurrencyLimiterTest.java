@@ -0,0 +1,81 @@
+package org.sc.ai.cli.concurrency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for {@link AdaptiveConcurrencyLimiter}.
+ *
+ * @author Julius Krah
+ */
+class AdaptiveConcurrencyLimiterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("chat",
+            new AdaptiveConcurrencyLimiter.Settings(2, 1, 4, 0.5, 2.0), meterRegistry);
+
+    @Test
+    void acquire_shouldQueueCallersOverTheLimit() throws InterruptedException {
+        var first = limiter.acquire();
+        limiter.acquire();
+
+        var third = CompletableFuture.supplyAsync(() -> Permits.acquire(limiter));
+        await().atMost(Duration.ofSeconds(5)).until(() -> limiter.getWaiting() == 1);
+        assertThat(meterRegistry.get("sc.limiter.queue").tag("name", "chat").gauge().value()).isEqualTo(1);
+        assertThat(third).isNotDone();
+
+        first.ignore();
+
+        assertThat(third.join()).isNotNull();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+        assertThat(limiter.getWaiting()).isZero();
+    }
+
+    @Test
+    void success_shouldGrowLimitWhileLatencyIsSteady() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            var a = limiter.acquire();
+            var b = limiter.acquire();
+            a.success(Duration.ofMillis(100));
+            b.success(Duration.ofMillis(100));
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(meterRegistry.get("sc.limiter.limit").tag("name", "chat").gauge().value()).isEqualTo(4);
+    }
+
+    @Test
+    void success_shouldBackOffWhenLatencyExceedsTolerance() throws InterruptedException {
+        limiter.acquire().success(Duration.ofMillis(100));
+
+        limiter.acquire().success(Duration.ofMillis(500));
+
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void dropped_shouldBackOffButNotBelowMinimum() throws InterruptedException {
+        limiter.acquire().dropped();
+        limiter.acquire().dropped();
+
+        assertThat(limiter.getLimit()).isEqualTo(1);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void permit_shouldOnlyBeReleasedOnce() throws InterruptedException {
+        var permit = limiter.acquire();
+        limiter.acquire();
+
+        permit.success();
+        permit.ignore();
+
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+}
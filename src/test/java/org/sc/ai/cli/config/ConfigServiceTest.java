@@ -3,10 +3,14 @@ package org.sc.ai.cli.config;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import java.io.IOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -194,27 +198,74 @@ class ConfigServiceTest {
                     .isThrownBy(() -> service.set(Map.of("chat-memory.cassandra.keyspace", "springboot")))
                     .withMessageContaining("Only one of 'jdbc' or 'cassandra' must be set.");
 
+            assertThatIllegalStateException()
+                    .isThrownBy(() -> service.set(Map.of("chat-memory.file.directory", "/tmp/sc-memory")))
+                    .withMessageContaining("Only one of 'jdbc', 'cassandra' or 'file' must be set.");
+
             assertThatIllegalArgumentException()
                     .isThrownBy(() -> service.set(Map.of("foo", "bar")))
                     .withMessageContaining("Unknown key: foo");
 
-            // Confirm the config contents remain unchanged (reformatted but not altered)
+            // Invalid updates are rejected before anything is written
             assertThat(config).content().isEqualTo("""
                     provider: ollama
-                    chat-memory:
-                      jdbc:
-                        url: jdbc:hsqldb:mem:testdb
-                        username: sa
                     providers:
-                      openai:
-                        base-url: https://api.openai.com/v1
-                        model: gpt-3.5-turbo
-                      ollama:
-                        base-url: http://localhost:11433
-                        model: mistral-small3.1
+                        ollama:
+                            base-url: http://localhost:11433
+                            model: mistral-small3.1
+                        openai:
+                            base-url: https://api.openai.com/v1
+                            model: gpt-3.5-turbo
+                            options: { } # provider-specific options
+                    chat-memory:
+                        jdbc:
+                            url: jdbc:hsqldb:mem:testdb
+                            username: sa
                     """);
         }
 
+        @Test
+        void get_reflectsChangesMadeByOtherWriters() throws IOException {
+            service.set(Map.of("provider", "ollama"));
+            assertThat(service.get("provider")).isEqualTo("ollama");
+
+            // Another process replacing the file, as an atomic rename would
+            Path config = configDir.resolve("config");
+            Path replacement = configDir.resolve("config.new");
+            Files.writeString(replacement, "provider: bedrock\n");
+            Files.move(replacement, config, StandardCopyOption.REPLACE_EXISTING);
+
+            assertThat(service.get("provider")).isEqualTo("bedrock");
+        }
+
+        @Test
+        void set_leavesNoTemporaryFilesBehind() throws IOException {
+            service.set(Map.of("provider", "ollama"));
+            service.unset(List.of("provider"));
+
+            try (var files = Files.list(configDir)) {
+                assertThat(files.map(path -> path.getFileName().toString()))
+                        .containsExactlyInAnyOrder("config", "config.lock");
+            }
+        }
+
+        @Test
+        void set_keepsTheSymlinkAndPermissionsOfTheConfigFile() throws IOException {
+            assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+            Path dotfiles = Files.createDirectories(configDir.resolve("dotfiles"));
+            Path target = Files.writeString(dotfiles.resolve("sc.yaml"), "provider: ollama\n");
+            Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("rw-------"));
+            Path config = configDir.resolve("config");
+            Files.delete(config);
+            Files.createSymbolicLink(config, target);
+
+            service.set(Map.of("provider", "openai"));
+
+            assertThat(Files.isSymbolicLink(config)).isTrue();
+            assertThat(target).content().contains("provider: openai");
+            assertThat(Files.getPosixFilePermissions(target)).isEqualTo(PosixFilePermissions.fromString("rw-------"));
+        }
+
         @Test
         void flattenMap_convertsNestedStructureToFlatKeys() {
             Map<String, Object> nestedMap = Map.of(
@@ -0,0 +1,80 @@
+package org.sc.ai.cli.daemon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the forwarding rules in {@link DaemonClient}.
+ *
+ * @author Julius Krah
+ */
+class DaemonClientTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void messageIndex_shouldFindChatMessage() {
+        assertThat(DaemonClient.messageIndex(new String[] { "chat", "Hello" })).isEqualTo(1);
+        assertThat(DaemonClient.messageIndex(new String[] { "--base-url", "http://box:11434", "chat", "-m", "llama3.2", "Hi" }))
+                .isEqualTo(5);
+        assertThat(DaemonClient.messageIndex(new String[] { "chat", "--", "--not-an-option" })).isEqualTo(2);
+    }
+
+    @Test
+    void messageIndex_shouldRejectLocalOnlyInvocations() {
+        assertThat(DaemonClient.messageIndex(new String[] { "chat" })).isEqualTo(-1);
+        assertThat(DaemonClient.messageIndex(new String[] { "chat", "--help" })).isNegative();
+        assertThat(DaemonClient.messageIndex(new String[] { "config", "--get", "provider" })).isNegative();
+        assertThat(DaemonClient.messageIndex(new String[] { "daemon", "stop" })).isNegative();
+    }
+
+    @Test
+    void isForwardable_shouldKeepAttachmentsAndBaseUrlLocal() {
+        assertThat(DaemonClient.isForwardable(new String[] { "chat", "-m", "llama3.2", "Hello" })).isTrue();
+        assertThat(DaemonClient.isForwardable(new String[] { "chat", "--", "--base-url" })).isTrue();
+        assertThat(DaemonClient.isForwardable(new String[] { "chat", "Summarise @notes.txt" })).isFalse();
+        assertThat(DaemonClient.isForwardable(new String[] { "--base-url", "http://box:11434", "chat", "Hi" }))
+                .isFalse();
+        assertThat(DaemonClient.isForwardable(new String[] { "chat", "Hi", "--base-url=http://box:11434" })).isFalse();
+        assertThat(DaemonClient.isForwardable(new String[] { "chat", " " })).isFalse();
+    }
+
+    @Test
+    void inlineStdin_shouldAppendPipedMessage_whenDaemonSocketExists() throws IOException {
+        var socket = Files.createFile(tempDir.resolve(DaemonProtocol.SOCKET_FILE_NAME));
+        var in = new ByteArrayInputStream(" -explain this\n".getBytes(StandardCharsets.UTF_8));
+
+        var args = new DaemonClient(socket).inlineStdin(new String[] { "chat" }, in);
+
+        assertThat(args).containsExactly("chat", "--", "-explain this");
+    }
+
+    @Test
+    void forward_shouldSkip_whenNoDaemonIsListening() {
+        var client = new DaemonClient(tempDir.resolve(DaemonProtocol.SOCKET_FILE_NAME));
+
+        var exitCode = client.forward(new String[] { "chat", "Hello" }, new ByteArrayOutputStream(),
+                new ByteArrayOutputStream());
+
+        assertThat(exitCode).isEmpty();
+    }
+
+    @Test
+    void forward_shouldSkip_whenTheMessageIsBlank() throws IOException {
+        var socket = Files.createFile(tempDir.resolve(DaemonProtocol.SOCKET_FILE_NAME));
+
+        var exitCode = new DaemonClient(socket).forward(new String[] { "chat", " " }, new ByteArrayOutputStream(),
+                new ByteArrayOutputStream());
+
+        assertThat(exitCode).isEmpty();
+    }
+}
@@ -0,0 +1,46 @@
+package org.sc.ai.cli.daemon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link DaemonProtocol}.
+ *
+ * @author Julius Krah
+ */
+class DaemonProtocolTest {
+
+    @Test
+    void readRequest_shouldReadWhatWriteRequestWrote() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        DaemonProtocol.writeRequest(new DataOutputStream(bytes), new String[] { "chat", "Grüß dich" });
+
+        var args = DaemonProtocol.readRequest(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(args).containsExactly("chat", "Grüß dich");
+    }
+
+    @Test
+    void readRequest_shouldRejectInvalidArgumentLengths() throws IOException {
+        assertThatIOException().isThrownBy(() -> DaemonProtocol.readRequest(request(-1)))
+                .withMessage("Invalid argument length: -1");
+        assertThatIOException().isThrownBy(() -> DaemonProtocol.readRequest(request(Integer.MAX_VALUE)))
+                .withMessage("Invalid argument length: " + Integer.MAX_VALUE);
+    }
+
+    private static DataInputStream request(int length) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        out.writeInt(1);
+        out.writeInt(length);
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
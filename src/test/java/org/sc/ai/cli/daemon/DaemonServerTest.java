@@ -0,0 +1,161 @@
+package org.sc.ai.cli.daemon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link DaemonServer} and {@link DaemonClient} over a real socket.
+ *
+ * @author Julius Krah
+ */
+class DaemonServerTest {
+    @TempDir
+    Path tempDir;
+    private DaemonServer server;
+    private Thread serverThread;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (server != null) {
+            server.close();
+            serverThread.join(5000);
+        }
+    }
+
+    @Test
+    void send_shouldRelayOutputAndExitCode() throws Exception {
+        var socket = start(Duration.ofMinutes(1), (args, out, err) -> {
+            out.print("Hello " + args[1]);
+            err.print("warning");
+            return 3;
+        }, () -> {
+        });
+        var out = new ByteArrayOutputStream();
+        var err = new ByteArrayOutputStream();
+
+        var exitCode = new DaemonClient(socket).send(new String[] { "chat", "world" }, out, err);
+
+        assertThat(exitCode).hasValue(3);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("Hello world");
+        assertThat(err.toString(StandardCharsets.UTF_8)).isEqualTo("warning");
+    }
+
+    @Test
+    void disconnect_shouldCancelRunningCommand() throws Exception {
+        var started = new CountDownLatch(1);
+        var cancelled = new CountDownLatch(1);
+        var socket = start(Duration.ofMinutes(1), (_, _, _) -> {
+            started.countDown();
+            try {
+                cancelled.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        }, cancelled::countDown);
+
+        try (var channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            var request = new DataOutputStream(DaemonProtocol.outputStream(channel));
+            DaemonProtocol.writeRequest(request, new String[] { "chat", "Hello" });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void disconnect_shouldNotCancelAnotherClientsCommand_whileWaitingForTheLock() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var cancellations = new AtomicInteger();
+        var socket = start(Duration.ofMinutes(1), (_, _, _) -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        }, cancellations::incrementAndGet);
+        var running = Thread.ofVirtual().start(() -> {
+            try {
+                new DaemonClient(socket).send(new String[] { "chat", "first" }, new ByteArrayOutputStream(),
+                        new ByteArrayOutputStream());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try (var channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            var request = new DataOutputStream(DaemonProtocol.outputStream(channel));
+            DaemonProtocol.writeRequest(request, new String[] { "chat", "second" });
+        }
+        TimeUnit.MILLISECONDS.sleep(200);
+        release.countDown();
+        running.join(5000);
+
+        assertThat(cancellations).hasValue(0);
+    }
+
+    @Test
+    void serve_shouldStop_whenIdle() throws Exception {
+        var socket = start(Duration.ofMillis(200), (_, _, _) -> 0, () -> {
+        });
+
+        serverThread.join(5000);
+
+        assertThat(serverThread.isAlive()).isFalse();
+        assertThat(Files.exists(socket)).isFalse();
+        assertThat(new DaemonClient(socket).isRunning()).isFalse();
+    }
+
+    @Test
+    void serve_shouldBindInADirectoryOnlyTheOwnerCanEnter() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+        var socket = start(Duration.ofMinutes(1), (_, _, _) -> 0, () -> {
+        });
+
+        assertThat(new DaemonClient(socket).isRunning()).isTrue();
+        assertThat(Files.getPosixFilePermissions(socket.getParent()))
+                .isEqualTo(PosixFilePermissions.fromString("rwx------"));
+    }
+
+    private Path start(Duration idleTimeout, DaemonServer.CommandExecutor executor, Runnable canceller)
+            throws InterruptedException {
+        var socket = DaemonProtocol.socketPath(tempDir.toString());
+        server = new DaemonServer(socket, idleTimeout, executor, canceller);
+        serverThread = Thread.ofPlatform().start(() -> {
+            try {
+                server.serve();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        var client = new DaemonClient(socket);
+        for (int i = 0; i < 100 && !client.isRunning(); i++) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        return socket;
+    }
+}
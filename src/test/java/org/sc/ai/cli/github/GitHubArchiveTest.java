@@ -0,0 +1,111 @@
+package org.sc.ai.cli.github;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Unit tests for {@link GitHubArchive}.
+ *
+ * @author Julius Krah
+ */
+class GitHubArchiveTest {
+    private static final String COMMIT = "0123456789abcdef0123456789abcdef01234567";
+
+    @Test
+    void read_shouldStreamMatchingFilesBelowDirectory() throws IOException {
+        var archive = new GitHubArchive(GitHubLocation.of("github://owner/repo/contents/docs/?ref=main"),
+                new RestTemplate());
+        var read = new ArrayList<String>();
+
+        int handled = archive.read(tarball(), new PathFilter(List.of("**/*.md", "**/*.png"), List.of("docs/drafts/**")),
+                entry -> read.add(entry.location() + " " + entry.commit() + " " + entry.binary() + " "
+                        + new String(entry.content().getInputStream().readAllBytes(), StandardCharsets.UTF_8)
+                                .length()));
+
+        assertThat(handled).isEqualTo(3);
+        assertThat(read).containsExactly(
+                "github://owner/repo/contents/docs/guide.md?ref=main " + COMMIT + " false 7",
+                "github://owner/repo/contents/docs/images/logo.png?ref=main " + COMMIT + " true 4",
+                "github://owner/repo/contents/docs/" + "a".repeat(120) + ".md?ref=main " + COMMIT + " false 4");
+    }
+
+    @Test
+    void read_shouldSkipUnreadFileContents() throws IOException {
+        var archive = new GitHubArchive(GitHubLocation.of("github://owner/repo"), new RestTemplate());
+        var paths = new ArrayList<String>();
+
+        archive.read(tarball(), PathFilter.all(), entry -> paths.add(entry.location().getPath()));
+
+        assertThat(paths).containsExactly("README.md", "docs/guide.md", "docs/drafts/todo.md",
+                "docs/images/logo.png", "docs/" + "a".repeat(120) + ".md");
+    }
+
+    /**
+     * Lays out a tarball the way {@code git archive} does for a GitHub download.
+     */
+    private static ByteArrayInputStream tarball() throws IOException {
+        var tar = new ByteArrayOutputStream();
+        var root = "owner-repo-0123456/";
+        entry(tar, "pax_global_header", 'g', pax("comment", COMMIT));
+        entry(tar, root, '5', new byte[0]);
+        entry(tar, root + "README.md", '0', "# Readme".getBytes(StandardCharsets.UTF_8));
+        entry(tar, root + "docs/guide.md", '0', "# Guide".getBytes(StandardCharsets.UTF_8));
+        entry(tar, root + "docs/drafts/todo.md", '0', "todo".getBytes(StandardCharsets.UTF_8));
+        entry(tar, root + "docs/images/logo.png", '0', new byte[] { (byte) 0x89, 'P', 0, 0 });
+        var longPath = root + "docs/" + "a".repeat(120) + ".md";
+        entry(tar, "PaxHeaders/long", 'x', pax("path", longPath));
+        entry(tar, longPath.substring(0, 99), '0', "long".getBytes(StandardCharsets.UTF_8));
+        tar.write(new byte[1024]);
+        var gzip = new ByteArrayOutputStream();
+        try (var out = new GZIPOutputStream(gzip)) {
+            tar.writeTo(out);
+        }
+        return new ByteArrayInputStream(gzip.toByteArray());
+    }
+
+    private static byte[] pax(String key, String value) {
+        var record = " " + key + "=" + value + "\n";
+        int length = record.length() + 2;
+        if (String.valueOf(length).length() > 2) {
+            length++;
+        }
+        return (length + record).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void entry(ByteArrayOutputStream tar, String name, char type, byte[] data) throws IOException {
+        var header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 124, String.format("%011o", data.length));
+        header[156] = (byte) type;
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        // The checksum is computed with its own field set to spaces
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        put(header, 148, String.format("%06o", checksum));
+        header[154] = 0;
+        tar.write(header);
+        tar.write(data);
+        tar.write(new byte[(512 - data.length % 512) % 512]);
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
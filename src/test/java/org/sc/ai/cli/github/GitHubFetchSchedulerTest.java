@@ -0,0 +1,109 @@
+package org.sc.ai.cli.github;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for {@link GitHubFetchScheduler}.
+ *
+ * @author Julius Krah
+ */
+class GitHubFetchSchedulerTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GitHubFetchScheduler scheduler = new GitHubFetchScheduler(
+            new GitHubFetchScheduler.Settings(1000, 100, 2, 2, Duration.ofSeconds(5)), meterRegistry);
+    private final MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET,
+            URI.create("https://api.github.com/repos/owner/repo/contents/README.md"));
+
+    @Test
+    void intercept_shouldRetryAfterSecondaryRateLimit() throws IOException {
+        var calls = new AtomicInteger();
+
+        var response = scheduler.intercept(request, new byte[0], (_, _) -> {
+            if (calls.getAndIncrement() == 0) {
+                var limited = new MockClientHttpResponse(new byte[0], HttpStatus.FORBIDDEN);
+                limited.getHeaders().set("Retry-After", "0");
+                return limited;
+            }
+            return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        });
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(calls).hasValue(2);
+        assertThat(meterRegistry.get("sc.github.retries").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void intercept_shouldFailWhenPrimaryLimitResetsTooLate() {
+        long reset = Instant.now().plus(Duration.ofHours(1)).getEpochSecond();
+
+        assertThatThrownBy(() -> scheduler.intercept(request, new byte[0], (_, _) -> {
+            var limited = new MockClientHttpResponse(new byte[0], HttpStatus.FORBIDDEN);
+            limited.getHeaders().set("X-RateLimit-Remaining", "0");
+            limited.getHeaders().set("X-RateLimit-Reset", String.valueOf(reset));
+            return limited;
+        })).isInstanceOf(GitHubRateLimitException.class)
+                .satisfies(e -> assertThat(((GitHubRateLimitException) e).getRetryAt())
+                        .isEqualTo(Instant.ofEpochSecond(reset)));
+        assertThat(meterRegistry.get("sc.github.rate-limited").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void intercept_shouldPassOtherForbiddenResponsesThrough() throws IOException {
+        var calls = new AtomicInteger();
+
+        var response = scheduler.intercept(request, new byte[0], (_, _) -> {
+            calls.incrementAndGet();
+            var forbidden = new MockClientHttpResponse(new byte[0], HttpStatus.FORBIDDEN);
+            forbidden.getHeaders().set("X-RateLimit-Remaining", "4999");
+            return forbidden;
+        });
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void forEach_shouldBoundConcurrency() throws IOException {
+        var running = new AtomicInteger();
+        var peak = new AtomicInteger();
+        List<Integer> items = IntStream.range(0, 10).boxed().toList();
+
+        scheduler.forEach(items, _ -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+        });
+
+        assertThat(peak.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void forEach_shouldRethrowFirstFailure() {
+        assertThatThrownBy(() -> scheduler.forEach(List.of("a", "b"), item -> {
+            if ("b".equals(item)) {
+                throw new IOException("boom");
+            }
+        })).isInstanceOf(IOException.class).hasMessage("boom");
+    }
+}
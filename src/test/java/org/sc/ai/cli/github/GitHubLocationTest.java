@@ -38,6 +38,22 @@ class GitHubLocationTest {
         assertThat(gitHubLocation.getRef()).isEqualTo("main");
     }
 
+    @Test
+    void shouldParseDirectoryAndRepositoryRoot() {
+        // When
+        GitHubLocation directory = GitHubLocation.of("github://owner/repo/contents/docs/guides/?ref=main");
+        GitHubLocation root = GitHubLocation.of("github://owner/repo");
+
+        // Then
+        assertThat(directory.getPath()).isEqualTo("docs/guides/");
+        assertThat(directory.getRef()).isEqualTo("main");
+        assertThat(directory.isDirectory()).isTrue();
+        assertThat(root.getPath()).isEmpty();
+        assertThat(root.isDirectory()).isTrue();
+        assertThat(GitHubLocation.of("github://owner/repo/contents/")).isEqualTo(root);
+        assertThat(GitHubLocation.of("github://owner/repo/contents/README.md").isDirectory()).isFalse();
+    }
+
     @Test
     void shouldCreateFromComponents() {
         // When
@@ -0,0 +1,160 @@
+package org.sc.ai.cli.github;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Unit tests for {@link GitHubResource}.
+ *
+ * @author Julius Krah
+ */
+class GitHubResourceTest {
+    private static final String CONTENTS = "https://api.github.com/repos/owner/repo/contents/docs/big.md";
+    private static final String RAW = "application/vnd.github.raw";
+    private final RestTemplate restTemplate = new RestTemplate();
+    private MockRestServiceServer server;
+    private GitHubResource resource;
+
+    @BeforeEach
+    void setUp() {
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        resource = new GitHubResource("github://owner/repo/contents/docs/big.md", restTemplate);
+    }
+
+    @Test
+    void getInputStream_shouldStreamRawContent() throws IOException {
+        server.expect(requestTo(CONTENTS))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header(HttpHeaders.ACCEPT, RAW))
+                .andRespond(withSuccess("# Big", MediaType.TEXT_PLAIN));
+
+        try (var in = resource.getInputStream()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("# Big");
+        }
+        server.verify();
+    }
+
+    @Test
+    void getInputStream_shouldFallBackToBlobWhenFileIsTooLarge() throws IOException {
+        server.expect(requestTo(CONTENTS))
+                .andExpect(header(HttpHeaders.ACCEPT, RAW))
+                .andRespond(withStatus(HttpStatus.FORBIDDEN).contentType(MediaType.APPLICATION_JSON).body("""
+                        {"message": "This API returns blobs up to 1 MB in size.",
+                         "errors": [{"resource": "Blob", "field": "data", "code": "too_large"}]}"""));
+        server.expect(requestTo(CONTENTS))
+                .andRespond(withSuccess("{\"sha\":\"abc123\",\"size\":5}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("https://api.github.com/repos/owner/repo/git/blobs/abc123"))
+                .andExpect(header(HttpHeaders.ACCEPT, RAW))
+                .andRespond(withSuccess("# Big", MediaType.TEXT_PLAIN));
+
+        try (var in = resource.getInputStream()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("# Big");
+        }
+        server.verify();
+    }
+
+    @Test
+    void getInputStream_shouldFallBackToBlob_whenTheMessageSaysTheFileIsTooLarge() throws IOException {
+        server.expect(requestTo(CONTENTS))
+                .andRespond(withStatus(HttpStatus.FORBIDDEN).contentType(MediaType.APPLICATION_JSON).body("""
+                        {"message": "The requested blob is too large to fetch via the API"}"""));
+        server.expect(requestTo(CONTENTS))
+                .andRespond(withSuccess("{\"sha\":\"abc123\",\"size\":5}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("https://api.github.com/repos/owner/repo/git/blobs/abc123"))
+                .andRespond(withSuccess("# Big", MediaType.TEXT_PLAIN));
+
+        try (var in = resource.getInputStream()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("# Big");
+        }
+        server.verify();
+    }
+
+    @Test
+    void getInputStream_shouldFail_whenAccessIsForbidden() {
+        server.expect(ExpectedCount.once(), requestTo(CONTENTS))
+                .andRespond(withStatus(HttpStatus.FORBIDDEN).contentType(MediaType.APPLICATION_JSON).body("""
+                        {"message": "Resource protected by organization SAML enforcement."}"""));
+
+        assertThatIOException().isThrownBy(resource::getInputStream).withMessageContaining("403");
+        server.verify();
+    }
+
+    @Test
+    void getInputStream_shouldFail_whenRateLimited() {
+        var headers = new HttpHeaders();
+        headers.set("X-RateLimit-Remaining", "0");
+        server.expect(ExpectedCount.once(), requestTo(CONTENTS))
+                .andRespond(withStatus(HttpStatus.FORBIDDEN).headers(headers).contentType(MediaType.APPLICATION_JSON)
+                        .body("""
+                                {"message": "API rate limit exceeded, and this request is too large to retry"}"""));
+
+        assertThatIOException().isThrownBy(resource::getInputStream).withMessageContaining("403");
+        server.verify();
+    }
+
+    @Test
+    void contentLength_shouldComeFromHeadRequest() throws IOException {
+        var headers = new HttpHeaders();
+        headers.setContentLength(2048);
+        server.expect(requestTo(CONTENTS))
+                .andExpect(method(HttpMethod.HEAD))
+                .andRespond(withSuccess().headers(headers));
+
+        assertThat(resource.contentLength()).isEqualTo(2048);
+        server.verify();
+    }
+
+    @Test
+    void lastModified_shouldComeFromHeadRequest() throws IOException {
+        var headers = new HttpHeaders();
+        headers.setLastModified(Instant.parse("2026-10-01T08:30:00Z"));
+        server.expect(requestTo(CONTENTS))
+                .andExpect(method(HttpMethod.HEAD))
+                .andRespond(withSuccess().headers(headers));
+
+        assertThat(resource.lastModified()).isEqualTo(Instant.parse("2026-10-01T08:30:00Z").toEpochMilli());
+        server.verify();
+    }
+
+    @Test
+    void lastModified_shouldFallBackToTheLastCommit() throws IOException {
+        server.expect(requestTo(CONTENTS))
+                .andExpect(method(HttpMethod.HEAD))
+                .andRespond(withSuccess());
+        server.expect(requestTo("https://api.github.com/repos/owner/repo/commits?path=docs/big.md&per_page=1"))
+                .andRespond(withSuccess("""
+                        [{"sha": "abc123", "commit": {"committer": {"date": "2026-09-14T17:05:42Z"}}}]""",
+                        MediaType.APPLICATION_JSON));
+
+        assertThat(resource.lastModified()).isEqualTo(Instant.parse("2026-09-14T17:05:42Z").toEpochMilli());
+        server.verify();
+    }
+
+    @Test
+    void exists_shouldBeFalseForMissingFile() {
+        server.expect(requestTo(CONTENTS))
+                .andExpect(method(HttpMethod.HEAD))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        assertThat(resource.exists()).isFalse();
+    }
+}
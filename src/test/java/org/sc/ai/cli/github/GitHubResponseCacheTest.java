@@ -0,0 +1,103 @@
+package org.sc.ai.cli.github;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Unit tests for {@link GitHubResponseCache}.
+ *
+ * @author Julius Krah
+ */
+class GitHubResponseCacheTest {
+    private static final String CONTENTS = "https://api.github.com/repos/owner/repo/contents/README.md?ref=main";
+    @TempDir
+    private Path directory;
+    private final List<HttpHeaders> sent = new ArrayList<>();
+
+    @Test
+    void intercept_shouldServeNotModifiedResponseFromCache() throws IOException {
+        var cache = new GitHubResponseCache(directory, DataSize.ofMegabytes(1));
+
+        var first = cache.intercept(request(CONTENTS), new byte[0], (r, _) -> respond(r, HttpStatus.OK, "v1"));
+        assertThat(body(first)).isEqualTo("v1");
+        var second = cache.intercept(request(CONTENTS), new byte[0],
+                (r, _) -> respond(r, HttpStatus.NOT_MODIFIED, ""));
+
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body(second)).isEqualTo("v1");
+        assertThat(sent.getFirst().getIfNoneMatch()).isEmpty();
+        assertThat(sent.getLast().getIfNoneMatch()).containsExactly("\"v1\"");
+    }
+
+    @Test
+    void intercept_shouldNotRevalidateWhenRefreshing() throws IOException {
+        var cache = new GitHubResponseCache(directory, DataSize.ofMegabytes(1));
+        body(cache.intercept(request(CONTENTS), new byte[0], (r, _) -> respond(r, HttpStatus.OK, "v1")));
+
+        cache.setRefresh(true);
+        var refreshed = cache.intercept(request(CONTENTS), new byte[0], (r, _) -> respond(r, HttpStatus.OK, "v2"));
+
+        assertThat(body(refreshed)).isEqualTo("v2");
+        assertThat(sent.getLast().getIfNoneMatch()).isEmpty();
+    }
+
+    @Test
+    void intercept_shouldEvictLeastRecentlyUsedEntries() throws IOException {
+        var cache = new GitHubResponseCache(directory, DataSize.ofBytes(4));
+        body(cache.intercept(request(CONTENTS), new byte[0], (r, _) -> respond(r, HttpStatus.OK, "abc")));
+
+        body(cache.intercept(request(CONTENTS.replace("main", "dev")), new byte[0],
+                (r, _) -> respond(r, HttpStatus.OK, "def")));
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.filter(path -> path.toString().endsWith(".body"))).hasSize(1);
+        }
+    }
+
+    @Test
+    void intercept_shouldIgnoreOtherHosts() throws IOException {
+        var cache = new GitHubResponseCache(directory, DataSize.ofMegabytes(1));
+
+        body(cache.intercept(request("https://example.com/file.md"), new byte[0],
+                (r, _) -> respond(r, HttpStatus.OK, "x")));
+
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    private static MockClientHttpRequest request(String uri) {
+        return new MockClientHttpRequest(HttpMethod.GET, URI.create(uri));
+    }
+
+    private ClientHttpResponse respond(HttpRequest request, HttpStatus status, String body) {
+        sent.add(HttpHeaders.readOnlyHttpHeaders(request.getHeaders()));
+        var response = new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), status);
+        response.getHeaders().setETag("\"" + body + "\"");
+        return response;
+    }
+
+    private static String body(ClientHttpResponse response) throws IOException {
+        try (response) {
+            return new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
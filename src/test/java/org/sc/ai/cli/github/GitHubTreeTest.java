@@ -0,0 +1,55 @@
+package org.sc.ai.cli.github;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Unit tests for {@link GitHubTree}.
+ *
+ * @author Julius Krah
+ */
+class GitHubTreeTest {
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+
+    @Test
+    void fetch_shouldListBlobsBelowDirectoryAtResolvedCommit() throws IOException {
+        server.expect(requestTo("https://api.github.com/repos/owner/repo/commits/release/1.x"))
+                .andExpect(header(HttpHeaders.ACCEPT, "application/vnd.github.sha"))
+                .andRespond(withSuccess("abc123\n", MediaType.TEXT_PLAIN));
+        server.expect(requestTo("https://api.github.com/repos/owner/repo/git/trees/abc123?recursive=1"))
+                .andRespond(withSuccess("""
+                        {
+                          "sha": "tree1",
+                          "truncated": false,
+                          "tree": [
+                            { "path": "README.md", "type": "blob", "sha": "b0" },
+                            { "path": "docs", "type": "tree", "sha": "t1" },
+                            { "path": "docs/guide.md", "type": "blob", "sha": "b1" },
+                            { "path": "docs/images/logo.png", "type": "blob", "sha": "b2" }
+                          ]
+                        }
+                        """, MediaType.APPLICATION_JSON));
+
+        var tree = GitHubTree.fetch(GitHubLocation.of("github://owner/repo/contents/docs/?ref=release/1.x"),
+                restTemplate);
+
+        assertThat(tree.commit()).isEqualTo("abc123");
+        assertThat(tree.truncated()).isFalse();
+        assertThat(tree.blobs()).containsExactly(
+                entry("docs/guide.md", "b1"),
+                entry("docs/images/logo.png", "b2"));
+        server.verify();
+    }
+}
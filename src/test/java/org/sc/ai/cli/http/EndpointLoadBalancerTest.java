@@ -0,0 +1,126 @@
+package org.sc.ai.cli.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link EndpointLoadBalancer}.
+ *
+ * @author Julius Krah
+ */
+class EndpointLoadBalancerTest {
+    private static final URI SLOW = URI.create("http://slow:11434");
+    private static final URI FAST = URI.create("http://fast:11434");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EndpointLoadBalancer loadBalancer = new EndpointLoadBalancer(SLOW, List.of(SLOW, FAST),
+            new EndpointLoadBalancer.HedgePolicy(0.5, 1), HttpClient.newHttpClient(), "/api/version",
+            Duration.ofHours(1), meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        loadBalancer.close();
+    }
+
+    @Test
+    void requestInterceptor_shouldRouteToLeastOutstandingEndpoint() throws IOException {
+        var interceptor = loadBalancer.requestInterceptor();
+        var hosts = new ArrayList<String>();
+        var request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://slow:11434/api/chat"));
+
+        interceptor.intercept(request, new byte[0], (outer, _) -> {
+            hosts.add(outer.getURI().getHost());
+            // Nested while the first request is still outstanding
+            return interceptor.intercept(request, new byte[0], (inner, _) -> {
+                hosts.add(inner.getURI().getHost());
+                return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+            });
+        });
+
+        assertThat(hosts).containsExactly("slow", "fast");
+        assertThat(loadBalancer.endpoints()).allMatch(endpoint -> endpoint.outstanding() == 0);
+    }
+
+    @Test
+    void requestInterceptor_shouldFailOverWhenConnectionIsRefused() throws IOException {
+        var request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://slow:11434/api/chat"));
+
+        var response = loadBalancer.requestInterceptor().intercept(request, new byte[0], (routed, _) -> {
+            if ("slow".equals(routed.getURI().getHost())) {
+                throw new ConnectException("Connection refused");
+            }
+            return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        });
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(loadBalancer.endpoints().getFirst().healthy()).isFalse();
+        assertThat(loadBalancer.choose(null).uri()).isEqualTo(FAST);
+    }
+
+    @Test
+    void requestInterceptor_shouldIgnoreOtherHosts() throws IOException {
+        var request = new MockClientHttpRequest(HttpMethod.GET, URI.create("https://api.github.com/repos/a/b"));
+        var routed = new ArrayList<URI>();
+
+        loadBalancer.requestInterceptor().intercept(request, new byte[0], (r, _) -> {
+            routed.add(r.getURI());
+            return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        });
+
+        assertThat(routed).containsExactly(URI.create("https://api.github.com/repos/a/b"));
+    }
+
+    @Test
+    void exchangeFilter_shouldHedgeSlowRequestToAnotherEndpoint() {
+        var filter = loadBalancer.exchangeFilter();
+        var request = ClientRequest.create(HttpMethod.POST, URI.create("http://slow:11434/api/chat")).build();
+        // A quick first response gives the window a sample to hedge against
+        filter.filter(request, _ -> Mono.just(ClientResponse.create(HttpStatus.OK).build()))
+                .flatMap(ClientResponse::releaseBody)
+                .block(Duration.ofSeconds(5));
+        var slowCancelled = new AtomicBoolean();
+
+        var response = filter.filter(request, routed -> "slow".equals(routed.url().getHost())
+                ? Mono.<ClientResponse>never().doOnCancel(() -> slowCancelled.set(true))
+                : Mono.just(ClientResponse.create(HttpStatus.OK).body("fast").build()))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(response.bodyToMono(String.class).block(Duration.ofSeconds(5))).isEqualTo("fast");
+        assertThat(slowCancelled).isTrue();
+        assertThat(meterRegistry.get("sc.endpoint.hedged").counter().count()).isEqualTo(1);
+        assertThat(loadBalancer.endpoints()).allMatch(endpoint -> endpoint.outstanding() == 0);
+    }
+
+    @Test
+    void exchangeFilter_shouldNotHedgeWithoutSamples() {
+        var request = ClientRequest.create(HttpMethod.POST, URI.create("http://slow:11434/api/chat")).build();
+        var hosts = new ArrayList<String>();
+
+        loadBalancer.exchangeFilter().filter(request, routed -> {
+            hosts.add(routed.url().getHost());
+            return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+        }).flatMap(ClientResponse::releaseBody).block(Duration.ofSeconds(5));
+
+        assertThat(hosts).containsExactly("slow");
+        assertThat(meterRegistry.get("sc.endpoint.hedged").counter().count()).isZero();
+    }
+}
@@ -0,0 +1,68 @@
+package org.sc.ai.cli.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+/**
+ * Unit tests for {@link GzipResponseInterceptor}.
+ *
+ * @author Julius Krah
+ */
+class GzipResponseInterceptorTest {
+    private final GzipResponseInterceptor interceptor = new GzipResponseInterceptor();
+
+    @Test
+    void intercept_shouldDecompressGzipResponse() throws IOException {
+        var request = new MockClientHttpRequest(HttpMethod.GET, URI.create("https://api.github.com/repos"));
+        var compressed = new MockClientHttpResponse(gzip("{\"content\":\"hello\"}"), HttpStatus.OK);
+        compressed.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        var response = interceptor.intercept(request, new byte[0], (_, _) -> compressed);
+
+        assertThat(request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"content\":\"hello\"}");
+    }
+
+    @Test
+    void intercept_shouldPassThroughUncompressedResponse() throws IOException {
+        var request = new MockClientHttpRequest(HttpMethod.GET, URI.create("http://localhost:11434/api/tags"));
+        var plain = new MockClientHttpResponse("{}".getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+
+        var response = interceptor.intercept(request, new byte[0], (_, _) -> plain);
+
+        assertThat(response).isSameAs(plain);
+    }
+
+    @Test
+    void intercept_shouldHandleEmptyGzipBody() throws IOException {
+        var request = new MockClientHttpRequest(HttpMethod.GET, URI.create("https://api.github.com/repos"));
+        var empty = new MockClientHttpResponse(new byte[0], HttpStatus.NOT_MODIFIED);
+        empty.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        var response = interceptor.intercept(request, new byte[0], (_, _) -> empty);
+
+        assertThat(response.getBody().readAllBytes()).isEmpty();
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
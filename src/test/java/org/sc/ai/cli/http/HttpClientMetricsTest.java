@@ -0,0 +1,50 @@
+package org.sc.ai.cli.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.NoSuchAlgorithmException;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for {@link HttpClientMetrics}.
+ *
+ * @author Julius Krah
+ */
+class HttpClientMetricsTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HttpClientMetrics metrics = new HttpClientMetrics(meterRegistry);
+
+    @Test
+    void requestInterceptor_shouldCountRequestsPerHost() throws IOException {
+        var interceptor = metrics.requestInterceptor();
+        var request = new MockClientHttpRequest(HttpMethod.GET, URI.create("https://api.github.com/repos/a/b"));
+
+        interceptor.intercept(request, new byte[0], (_, _) -> new MockClientHttpResponse(new byte[0], HttpStatus.OK));
+        interceptor.intercept(request, new byte[0], (_, _) -> new MockClientHttpResponse(new byte[0], HttpStatus.OK));
+
+        assertThat(meterRegistry.get(HttpClientMetrics.REQUESTS).tag("host", "api.github.com").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void sslContext_shouldCountNewConnectionsPerHost() throws NoSuchAlgorithmException {
+        var sslContext = metrics.sslContext(SSLContext.getDefault());
+
+        sslContext.createSSLEngine("api.github.com", 443);
+
+        assertThat(meterRegistry.get(HttpClientMetrics.CONNECTIONS).tag("host", "api.github.com").counter().count())
+                .isEqualTo(1);
+        assertThat(sslContext.getProtocol()).isEqualTo(SSLContext.getDefault().getProtocol());
+    }
+}
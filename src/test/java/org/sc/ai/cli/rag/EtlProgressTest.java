@@ -0,0 +1,40 @@
+package org.sc.ai.cli.rag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link EtlProgress}.
+ *
+ * @author Julius Krah
+ */
+class EtlProgressTest {
+    private final EtlProgress progress = new EtlProgress();
+
+    @Test
+    void render_shouldBeEmptyBeforeAnyStageStarts() {
+        assertThat(progress.render()).isEmpty();
+    }
+
+    @Test
+    void render_shouldShowStartedStagesInPipelineOrder() {
+        progress.add(EtlProgress.Stage.READ, 42);
+        progress.finish(EtlProgress.Stage.READ);
+        progress.add(EtlProgress.Stage.SPLIT, 310);
+        progress.finish(EtlProgress.Stage.SPLIT);
+        progress.expect(EtlProgress.Stage.EMBED, 310);
+        progress.add(EtlProgress.Stage.EMBED, 120);
+
+        assertThat(progress.render())
+                .isEqualTo("read 42 pages ✓ · split 310 chunks ✓ · embed 120/310 embeddings");
+    }
+
+    @Test
+    void render_shouldShowBytesWritten() {
+        progress.add(EtlProgress.Stage.WRITE, 1536);
+        progress.finish(EtlProgress.Stage.WRITE);
+
+        assertThat(progress.render()).isEqualTo("write 1.5 KB ✓");
+    }
+}
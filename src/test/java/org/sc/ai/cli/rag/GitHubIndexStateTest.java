@@ -0,0 +1,44 @@
+package org.sc.ai.cli.rag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link GitHubIndexState}.
+ *
+ * @author Julius Krah
+ */
+class GitHubIndexStateTest {
+
+    @Test
+    void save_shouldRoundTripCommitAndFiles(@TempDir Path tempDir) throws IOException {
+        var file = tempDir.resolve("index/github-owner-repo.properties");
+        var state = new GitHubIndexState();
+        state.commit("abc123");
+        state.files().put("docs/guide.md", new GitHubIndexState.IndexedFile("b1", List.of("id-1", "id-2")));
+        state.files().put("docs/logo.png", new GitHubIndexState.IndexedFile("b2", List.of()));
+
+        state.save(file);
+        var loaded = GitHubIndexState.load(file);
+
+        assertThat(loaded.commit()).isEqualTo("abc123");
+        assertThat(loaded.files()).containsOnlyKeys("docs/guide.md", "docs/logo.png");
+        assertThat(loaded.files().get("docs/guide.md").chunkIds()).containsExactly("id-1", "id-2");
+        assertThat(loaded.files().get("docs/logo.png").chunkIds()).isEmpty();
+        assertThat(tempDir.resolve("index")).isDirectoryNotContaining("glob:**.tmp");
+    }
+
+    @Test
+    void load_shouldStartEmptyWithoutFile(@TempDir Path tempDir) throws IOException {
+        var state = GitHubIndexState.load(tempDir.resolve("missing.properties"));
+
+        assertThat(state.commit()).isNull();
+        assertThat(state.files()).isEmpty();
+    }
+}
@@ -6,6 +6,8 @@ import java.io.StringWriter;
 import java.nio.file.Path;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 
 import org.junit.jupiter.api.Test;
@@ -13,6 +15,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.sc.ai.cli.github.GitHubResponseCache;
+import org.sc.ai.cli.github.PathFilter;
+import org.springframework.beans.factory.ObjectProvider;
 
 import picocli.CommandLine;
 
@@ -20,6 +25,8 @@ import picocli.CommandLine;
 class RagCommandTest {
     @Mock
     private RagService ragService;
+    @Mock
+    private ObjectProvider<GitHubResponseCache> gitHubResponseCache;
     @InjectMocks
     private RagCommand ragCommand;
 
@@ -76,6 +83,17 @@ class RagCommandTest {
         int exitCode = cmd.execute("--etl=file", "--output=output.txt", "file:///test.txt");
         assertThat(writer.toString()).isEmpty();
         assertThat(exitCode).isZero();
-        verify(ragService).processToFile("file:///test.txt", Path.of("output.txt"));
+        verify(ragService).processToFile(eq("file:///test.txt"), eq(Path.of("output.txt")), any(EtlProgress.class),
+                eq(PathFilter.all()));
+    }
+
+    @Test
+    void shouldBypassGitHubCacheWithRefresh() {
+        var cmd = new CommandLine(ragCommand);
+
+        int exitCode = cmd.execute("--refresh", "--output=output.txt", "github://owner/repo/contents/README.md");
+
+        assertThat(exitCode).isZero();
+        verify(gitHubResponseCache).ifAvailable(any());
     }
 }
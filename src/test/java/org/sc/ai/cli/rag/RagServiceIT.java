@@ -17,7 +17,6 @@ import org.springframework.ai.reader.TextReader;
 import org.springframework.ai.reader.jsoup.JsoupDocumentReader;
 import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
 import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.writer.FileDocumentWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -485,14 +484,13 @@ class RagServiceIT {
         Files.writeString(inputFile, "Sample content for ETL testing");
         Path outputPath = tempDir.resolve("etl-output.txt");
         
-        // Prepare the objects directly but stop before calling etl()
+        // Prepare the reader and writer of this run directly
         var resource = new FileSystemResource(inputFile);
-        ReflectionTestUtils.setField(ragService, "documentReader", new TextReader(resource));
-        ReflectionTestUtils.setField(ragService, "documentTransformer", new TokenTextSplitter(true));
-        ReflectionTestUtils.setField(ragService, "documentWriter", new FileDocumentWriter(outputPath.toString(), true, org.springframework.ai.document.MetadataMode.ALL, false));
+        var reader = new TextReader(resource);
+        var writer = new FileDocumentWriter(outputPath.toString(), true, org.springframework.ai.document.MetadataMode.ALL, false);
         
         // Invoke the etl method using reflection
-        ReflectionTestUtils.invokeMethod(ragService, "etl");
+        ReflectionTestUtils.invokeMethod(ragService, "etl", reader, "file://" + inputFile, writer, new EtlProgress());
         
         // Verify that the output file was created with expected content
         assertThat(outputPath)
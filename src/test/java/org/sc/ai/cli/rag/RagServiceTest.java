@@ -0,0 +1,82 @@
+package org.sc.ai.cli.rag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sc.ai.cli.github.GitHubArchive;
+import org.sc.ai.cli.github.GitHubFetchScheduler;
+import org.sc.ai.cli.github.GitHubLocation;
+import org.sc.ai.cli.github.GitHubResource;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.ResourceLoader;
+
+/**
+ * Unit tests for {@link RagService}.
+ *
+ * @author Julius Krah
+ */
+@ExtendWith(MockitoExtension.class)
+class RagServiceTest {
+    private static final String DIRECTORY = "github://owner/repo/contents/docs/";
+
+    @Mock
+    private ResourceLoader resourceLoader;
+    @Mock
+    private EmbeddingModel embeddingModel;
+    @Mock
+    private ObjectProvider<GitHubFetchScheduler> fetchScheduler;
+    @Mock
+    private GitHubResource directory;
+    @Mock
+    private GitHubArchive archive;
+
+    private RagService ragService;
+
+    @BeforeEach
+    void setUp() {
+        ragService = new RagService(resourceLoader, embeddingModel, fetchScheduler);
+    }
+
+    @Test
+    void processToFile_shouldWriteEveryFileOfADirectory(@TempDir Path tempDir) throws IOException {
+        when(resourceLoader.getResource(DIRECTORY)).thenReturn(directory);
+        when(directory.getLocation()).thenReturn(GitHubLocation.of(DIRECTORY));
+        when(directory.archive()).thenReturn(archive);
+        when(archive.read(any(), any())).thenAnswer(invocation -> {
+            GitHubArchive.EntryHandler handler = invocation.getArgument(1);
+            handler.handle(entry("alpha.txt", "Alpha is the first file."));
+            handler.handle(entry("bravo.txt", "Bravo is the second file."));
+            handler.handle(entry("charlie.txt", "Charlie is the third file."));
+            return 3;
+        });
+        var outputPath = tempDir.resolve("output.txt");
+        Files.writeString(outputPath, "Left over from an earlier run.");
+
+        ragService.processToFile(DIRECTORY, outputPath);
+
+        assertThat(outputPath).content()
+                .contains("Alpha is the first file.")
+                .contains("Bravo is the second file.")
+                .contains("Charlie is the third file.")
+                .doesNotContain("Left over from an earlier run.");
+    }
+
+    private static GitHubArchive.Entry entry(String name, String content) throws IOException {
+        return GitHubArchive.entry(GitHubLocation.of(DIRECTORY + name), "0123456789abcdef",
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}